@@ -2,10 +2,12 @@ package com.backend.ecommerce;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 
 
 @SpringBootApplication(scanBasePackages = "com.backend.ecommerce")
+@EnableScheduling
 public class EcommerceApplication {
 
 	public static void main(String[] args) {
@@ -1,9 +1,17 @@
 package com.backend.ecommerce;
 
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.web.method.annotation.AuthenticationPrincipalArgumentResolver;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.util.List;
+
+// Ordered first so its argument resolver is consulted before the ones other configurers add
+@Order(Ordered.HIGHEST_PRECEDENCE)
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
@@ -15,4 +23,11 @@ public class WebConfig implements WebMvcConfigurer {
                 .allowedHeaders("*") // Allowed headers
                 .allowCredentials(true); // Allow credentials (cookies, authorization headers)
     }
-}
\ No newline at end of file
+
+    // Spring Data's projection resolver claims any interface parameter and would bind an empty proxy of the
+    // request parameters to @AuthenticationPrincipal UserPrincipal, so the security resolver has to go first
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(new AuthenticationPrincipalArgumentResolver());
+    }
+}
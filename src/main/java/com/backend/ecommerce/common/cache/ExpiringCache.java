@@ -0,0 +1,232 @@
+package com.backend.ecommerce.common.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+/**
+ * Small size-bounded cache with a time-to-live per entry. Reads are lock-free; once the cache
+ * grows past its bound, expired entries are swept first and then arbitrary entries are dropped
+ * until it is back under the limit. {@link #getOrLoad} makes it read-through, with concurrent
+ * misses for the same key sharing a single load.
+ */
+public class ExpiringCache<K, V> {
+
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<K, CompletableFuture<V>> loads = new ConcurrentHashMap<>();
+    // Bumped by every invalidation, so a load that raced with one doesn't store what may be a stale value
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    private final int maxSize;
+    private final long ttlMillis;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private volatile Timer loadTimer;
+
+    public ExpiringCache(int maxSize, Duration ttl) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Cache size must be greater than zero");
+        }
+        this.maxSize = maxSize;
+        this.ttlMillis = ttl.toMillis();
+    }
+
+    public V get(K key) {
+        V value = lookup(key);
+        (value == null ? misses : hits).increment();
+        return value;
+    }
+
+    /**
+     * Returns the cached value or loads it. Only one caller runs the loader for a given key at a time; the
+     * others wait for and share its result. A null result is returned but not cached.
+     */
+    public V getOrLoad(K key, Function<? super K, ? extends V> loader) {
+        V value = get(key);
+        if (value != null) {
+            return value;
+        }
+        CompletableFuture<V> load = new CompletableFuture<>();
+        CompletableFuture<V> inFlight = loads.putIfAbsent(key, load);
+        if (inFlight != null) {
+            coalesced.increment();
+            return await(inFlight);
+        }
+        try {
+            // Another load may have completed between the miss and claiming the key
+            value = lookup(key);
+            if (value == null) {
+                long startGeneration = generation.get();
+                long start = System.nanoTime();
+                value = loader.apply(key);
+                Timer timer = loadTimer;
+                if (timer != null) {
+                    timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+                if (value != null && generation.get() == startGeneration) {
+                    put(key, value);
+                    // An invalidation slipped in between the check and the put; err on the side of a miss
+                    if (generation.get() != startGeneration) {
+                        entries.remove(key);
+                    }
+                }
+            }
+            load.complete(value);
+            return value;
+        } catch (RuntimeException | Error ex) {
+            load.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            loads.remove(key, load);
+        }
+    }
+
+    public void put(K key, V value) {
+        put(key, value, System.currentTimeMillis() + ttlMillis);
+    }
+
+    // Stores an entry with its own expiry, capped by the cache TTL
+    public void put(K key, V value, long expiresAtMillis) {
+        long expiresAt = Math.min(expiresAtMillis, System.currentTimeMillis() + ttlMillis);
+        entries.put(key, new Entry<>(value, expiresAt));
+        if (entries.size() > maxSize) {
+            evictOverflow();
+        }
+    }
+
+    public void invalidate(K key) {
+        generation.incrementAndGet();
+        entries.remove(key);
+    }
+
+    public void invalidateIf(BiPredicate<? super K, ? super V> predicate) {
+        generation.incrementAndGet();
+        entries.entrySet().removeIf(e -> predicate.test(e.getKey(), e.getValue().value));
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    public long coalescedLoadCount() {
+        return coalesced.sum();
+    }
+
+    // Registers hit/miss/eviction counters, load timings and the current size under the given cache name
+    public void bindTo(MeterRegistry registry, String name) {
+        FunctionCounter.builder("cache.gets", hits, LongAdder::sum)
+                .tag("cache", name).tag("result", "hit").register(registry);
+        FunctionCounter.builder("cache.gets", misses, LongAdder::sum)
+                .tag("cache", name).tag("result", "miss").register(registry);
+        FunctionCounter.builder("cache.evictions", evictions, LongAdder::sum)
+                .tag("cache", name).register(registry);
+        FunctionCounter.builder("cache.loads.coalesced", coalesced, LongAdder::sum)
+                .tag("cache", name).register(registry);
+        Gauge.builder("cache.size", entries, Map::size)
+                .tag("cache", name).register(registry);
+        loadTimer = Timer.builder("cache.loads").tag("cache", name).register(registry);
+    }
+
+    private V lookup(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired(System.currentTimeMillis())) {
+            if (entries.remove(key, entry)) {
+                evictions.increment();
+            }
+            return null;
+        }
+        return entry.value;
+    }
+
+    private static <V> V await(CompletableFuture<V> load) {
+        try {
+            return load.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (ex.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private void evictOverflow() {
+        // Only one thread sweeps at a time, the others keep going and may briefly overshoot
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                if (it.next().getValue().isExpired(now)) {
+                    it.remove();
+                    evictions.increment();
+                }
+            }
+            // Drop a little more than needed so we don't sweep again on the very next put
+            int target = maxSize - Math.max(1, maxSize / 10);
+            it = entries.entrySet().iterator();
+            while (entries.size() > target && it.hasNext()) {
+                it.next();
+                it.remove();
+                evictions.increment();
+            }
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long expiresAt;
+
+        private Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+}
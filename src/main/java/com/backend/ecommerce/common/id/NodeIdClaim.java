@@ -0,0 +1,78 @@
+package com.backend.ecommerce.common.id;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Detects two running instances configured with the same {@code ids.nodeId}, which would issue colliding
+ * ids. Each instance holds a lease on its node id in the database and renews it on a heartbeat; startup
+ * fails while another instance's lease is still live. A single instance runs on the default node id
+ * without any setup, and one restarted after a crash takes its lease back once the old heartbeat expires.
+ */
+@Component
+public class NodeIdClaim {
+
+    private static final Logger logger = LoggerFactory.getLogger(NodeIdClaim.class);
+
+    private final NodeIdLeaseDAO nodeIdLeaseDAO;
+    private final TransactionTemplate transactionTemplate;
+    private final int nodeId;
+    private final long ttlMillis;
+    private final String owner = UUID.randomUUID().toString();
+
+    public NodeIdClaim(NodeIdLeaseDAO nodeIdLeaseDAO, TransactionTemplate transactionTemplate,
+                       @Value("${ids.nodeId}") int nodeId,
+                       @Value("${ids.lease.ttlInSeconds}") long ttlInSeconds) {
+        this.nodeIdLeaseDAO = nodeIdLeaseDAO;
+        this.transactionTemplate = transactionTemplate;
+        this.nodeId = nodeId;
+        this.ttlMillis = ttlInSeconds * 1000;
+    }
+
+    // Runs before the web server takes requests, so no order id is issued on a node id that's already taken
+    @PostConstruct
+    public void claim() {
+        transactionTemplate.executeWithoutResult(status -> {
+            long now = System.currentTimeMillis();
+            Optional<NodeIdLease> existing = nodeIdLeaseDAO.findById(nodeId);
+            if (existing.isPresent() && !owner.equals(existing.get().getOwner())
+                    && existing.get().getHeartbeatAt().getTime() > now - ttlMillis) {
+                throw new IllegalStateException("Node id " + nodeId + " is in use by another running instance;"
+                        + " give every instance its own ids.nodeId (0-" + TimeOrderedIds.MAX_NODE_ID + ")");
+            }
+            NodeIdLease lease = existing.orElseGet(() -> new NodeIdLease(nodeId));
+            lease.setOwner(owner);
+            lease.setHeartbeatAt(new Timestamp(now));
+            nodeIdLeaseDAO.save(lease);
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${ids.lease.heartbeatMillis}", initialDelayString = "${ids.lease.heartbeatMillis}")
+    public void heartbeat() {
+        try {
+            claim();
+        } catch (RuntimeException ex) {
+            // Missed heartbeats let another instance take the node id; both are now issuing ids with it
+            logger.error("Lost the lease on node id {}, ids issued here may collide with another instance's", nodeId,
+                    ex);
+        }
+    }
+
+    // Lets a replacement start on this node id straight away instead of waiting out the lease
+    @PreDestroy
+    public void release() {
+        transactionTemplate.executeWithoutResult(status -> nodeIdLeaseDAO.findById(nodeId)
+                .filter(lease -> owner.equals(lease.getOwner()))
+                .ifPresent(nodeIdLeaseDAO::delete));
+    }
+}
@@ -0,0 +1,36 @@
+package com.backend.ecommerce.common.id;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.sql.Timestamp;
+
+// The running instance issuing ids with a node id, kept alive by its heartbeat; see NodeIdClaim
+@Getter
+@Setter
+@Entity
+@Table(name = "id_node_lease")
+public class NodeIdLease {
+    @Id
+    @Column(name = "node_id", nullable = false)
+    private Integer nodeId;
+
+    @Column(name = "owner", nullable = false, length = 36)
+    private String owner;
+
+    @Column(name = "heartbeat_at", nullable = false)
+    private Timestamp heartbeatAt;
+
+    // Two instances taking over the same expired lease at once; one of them fails on the version check
+    @Version
+    @Column(name = "version")
+    private Long version;
+
+    public NodeIdLease() {
+    }
+
+    public NodeIdLease(int nodeId) {
+        this.nodeId = nodeId;
+    }
+}
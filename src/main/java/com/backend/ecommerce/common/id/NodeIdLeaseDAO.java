@@ -0,0 +1,6 @@
+package com.backend.ecommerce.common.id;
+
+import org.springframework.data.repository.ListCrudRepository;
+
+public interface NodeIdLeaseDAO extends ListCrudRepository<NodeIdLease, Integer> {
+}
@@ -0,0 +1,19 @@
+package com.backend.ecommerce.common.id;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Assigns the {@code @Id} from {@link TimeOrderedIds} when the entity is persisted. Unlike IDENTITY, the id
+ * is known before the INSERT, so Hibernate can batch the inserts instead of running them one at a time to
+ * read back generated keys.
+ */
+@IdGeneratorType(SnowflakeIdGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface SnowflakeId {
+}
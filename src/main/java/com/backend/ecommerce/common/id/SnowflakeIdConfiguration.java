@@ -0,0 +1,18 @@
+package com.backend.ecommerce.common.id;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+// Installs this instance's node id for @SnowflakeId entities; NodeIdClaim checks no other running instance has it
+@Configuration
+public class SnowflakeIdConfiguration {
+
+    private static final Logger logger = LoggerFactory.getLogger(SnowflakeIdConfiguration.class);
+
+    public SnowflakeIdConfiguration(@Value("${ids.nodeId}") int nodeId) {
+        SnowflakeIdGenerator.install(new TimeOrderedIds(nodeId));
+        logger.info("Snowflake ids configured for node {}", nodeId);
+    }
+}
@@ -0,0 +1,40 @@
+package com.backend.ecommerce.common.id;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+
+import java.util.EnumSet;
+
+/**
+ * Hibernate side of {@link SnowflakeId}. Hibernate instantiates generators itself, so they share one
+ * process-wide {@link TimeOrderedIds} that {@link SnowflakeIdConfiguration} installs at startup with this
+ * node's id.
+ */
+public class SnowflakeIdGenerator implements BeforeExecutionGenerator {
+
+    private static volatile TimeOrderedIds ids;
+
+    public SnowflakeIdGenerator(SnowflakeId config) {
+    }
+
+    static void install(TimeOrderedIds timeOrderedIds) {
+        ids = timeOrderedIds;
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue,
+                           EventType eventType) {
+        TimeOrderedIds generator = ids;
+        if (generator == null) {
+            throw new IllegalStateException("Snowflake ids are not configured yet");
+        }
+        return generator.next();
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EventTypeSets.INSERT_ONLY;
+    }
+}
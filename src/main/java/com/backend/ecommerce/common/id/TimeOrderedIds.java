@@ -0,0 +1,53 @@
+package com.backend.ecommerce.common.id;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snowflake-style 64-bit ids: milliseconds since a custom epoch, then the node id, then a per-millisecond
+ * sequence. Ids from one node strictly increase; ids from different nodes never collide as long as every
+ * node has its own node id.
+ * <p>
+ * The layout is 41 + 5 + 7 = 53 bits, so ids stay exact as JavaScript numbers in JSON responses. That
+ * allows 32 nodes and 128 ids per millisecond per node, until 2093.
+ * <p>
+ * Never blocks: a burst beyond 128 ids in a millisecond, or a clock that steps backwards, borrows from
+ * the following milliseconds, and the clock catches up with the id stream later.
+ */
+public class TimeOrderedIds {
+
+    static final int NODE_BITS = 5;
+    static final int SEQUENCE_BITS = 7;
+    static final int TIMESTAMP_BITS = 41;
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+    // 2024-01-01T00:00:00Z
+    static final long EPOCH_MILLIS = 1704067200000L;
+
+    private final long node;
+    // Last issued (timestamp << SEQUENCE_BITS | sequence)
+    private final AtomicLong last = new AtomicLong();
+
+    public TimeOrderedIds(int nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID);
+        }
+        this.node = nodeId;
+    }
+
+    public long next() {
+        long now = (System.currentTimeMillis() - EPOCH_MILLIS) << SEQUENCE_BITS;
+        // Either the first sequence number of the current millisecond, or one past the last id issued
+        long next = last.updateAndGet(previous -> Math.max(now, previous + 1));
+        long timestamp = next >>> SEQUENCE_BITS;
+        if (timestamp >>> TIMESTAMP_BITS != 0) {
+            throw new IllegalStateException("Id timestamp overflow");
+        }
+        long sequence = next & ((1L << SEQUENCE_BITS) - 1);
+        return timestamp << (NODE_BITS + SEQUENCE_BITS) | node << SEQUENCE_BITS | sequence;
+    }
+
+    // When an id was issued, give or take the milliseconds borrowed under load
+    public static Instant timestampOf(long id) {
+        return Instant.ofEpochMilli((id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS);
+    }
+}
@@ -0,0 +1,59 @@
+package com.backend.ecommerce.common.pagination;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position after the last row of a page: the sort it belongs to, the row id as tie-breaker and the
+ * row's sort key value (absent when sorting by id alone). Encoded as URL-safe Base64 so clients treat
+ * it as an opaque token.
+ */
+public final class KeysetCursor {
+
+    private final String sort;
+    private final long id;
+    private final String value;
+
+    public KeysetCursor(String sort, long id, String value) {
+        this.sort = sort;
+        this.id = id;
+        this.value = value;
+    }
+
+    public String getSort() {
+        return sort;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public String encode() {
+        String raw = sort + ':' + id + (value == null ? "" : ':' + value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Rejects cursors that are malformed or were issued for a different sort order
+    public static KeysetCursor decode(String cursor, String expectedSort) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        // The value goes last, so it may itself contain ':'
+        String[] parts = raw.split(":", 3);
+        if (parts.length < 2 || !parts[0].equals(expectedSort)) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        try {
+            return new KeysetCursor(parts[0], Long.parseLong(parts[1]), parts.length == 3 ? parts[2] : null);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
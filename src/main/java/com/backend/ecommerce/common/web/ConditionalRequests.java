@@ -0,0 +1,92 @@
+package com.backend.ecommerce.common.web;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.util.HexFormat;
+
+/**
+ * Strong ETags derived from version counters instead of response bodies, so an unchanged resource can be
+ * answered with 304 before anything is loaded or serialized.
+ * <p>
+ * Every tag carries a per-process epoch, because counters restart at zero and differ between instances.
+ * It also carries a time window, because writes made through another instance don't bump the local
+ * counters. The window bounds how long such a change can go unnoticed.
+ */
+@Component
+public class ConditionalRequests {
+
+    static final String GZIP_SUFFIX = "-gzip";
+
+    private final String epoch;
+    private final long windowMillis;
+
+    public ConditionalRequests(@Value("${http.etag.windowSeconds}") long windowSeconds) {
+        byte[] random = new byte[6];
+        new SecureRandom().nextBytes(random);
+        this.epoch = HexFormat.of().formatHex(random);
+        this.windowMillis = windowSeconds * 1000;
+    }
+
+    public String etag(long... versions) {
+        StringBuilder etag = new StringBuilder(48).append('"').append(epoch);
+        for (long version : versions) {
+            etag.append('.').append(Long.toString(version, 36));
+        }
+        if (windowMillis > 0) {
+            etag.append('.').append(Long.toString(System.currentTimeMillis() / windowMillis, 36));
+        }
+        return etag.append('"').toString();
+    }
+
+    // Answers 304 and returns true when the client's copy matches the tag; otherwise leaves the response alone.
+    // The 304 carries the variant tag the client holds and the same Vary as the 200 it revalidates.
+    public boolean checkNotModified(HttpServletRequest request, HttpServletResponse response,
+                                    String etag, String cacheControl) {
+        String matched = matchingTag(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag);
+        if (matched == null) {
+            return false;
+        }
+        applyHeaders(response, matched, cacheControl);
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        return true;
+    }
+
+    // Validator and caching policy for a successful response; error responses shouldn't carry them
+    public void applyHeaders(HttpServletResponse response, String etag, String cacheControl) {
+        response.setHeader(HttpHeaders.ETAG, etag);
+        if (cacheControl != null && !cacheControl.isBlank()) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        }
+    }
+
+    // Our tag for the variant the client holds (identity or gzip), or null when none of its tags match
+    static String matchingTag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return null;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return etag;
+            }
+            // Weak comparison as RFC 9110 requires for If-None-Match; a gzip variant matches its identity tag
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag)) {
+                return etag;
+            }
+            if (tag.endsWith(GZIP_SUFFIX + '"')
+                    && tag.substring(0, tag.length() - GZIP_SUFFIX.length() - 1).equals(etag.substring(0, etag.length() - 1))) {
+                return tag;
+            }
+        }
+        return null;
+    }
+}
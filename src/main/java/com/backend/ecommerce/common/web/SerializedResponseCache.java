@@ -0,0 +1,115 @@
+package com.backend.ecommerce.common.web;
+
+import com.backend.ecommerce.common.cache.ExpiringCache;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * JSON response bodies kept already encoded, and gzipped when large enough, keyed by resource and
+ * version. A hit is written straight to the servlet output stream without building the object graph or
+ * running Jackson. Writes bump the owning service's version, which makes the old entries unreachable;
+ * they age out of the cache by TTL or size.
+ * <p>
+ * Writes made through another instance don't bump the local versions, so an entry can be stale for up to
+ * its TTL. The TTL is therefore capped at the ETag window, which bounds that staleness the same way.
+ */
+@Component
+public class SerializedResponseCache {
+
+    private final ObjectMapper objectMapper;
+    private final ExpiringCache<String, EncodedResponse> cache;
+    private final int gzipMinBytes;
+
+    public SerializedResponseCache(ObjectMapper objectMapper,
+                                   @Value("${response.cache.maxEntries}") int maxEntries,
+                                   @Value("${response.cache.expiryInSeconds}") long expiryInSeconds,
+                                   @Value("${response.cache.gzipMinBytes}") int gzipMinBytes,
+                                   @Value("${http.etag.windowSeconds}") long etagWindowSeconds,
+                                   MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.gzipMinBytes = gzipMinBytes;
+        long ttlSeconds = etagWindowSeconds > 0 ? Math.min(expiryInSeconds, etagWindowSeconds) : expiryInSeconds;
+        this.cache = new ExpiringCache<>(maxEntries, Duration.ofSeconds(ttlSeconds));
+        this.cache.bindTo(meterRegistry, "responses");
+    }
+
+    /**
+     * Encoded body for the resource at the given version, serializing whatever {@code body} returns on a
+     * miss. Returns null, without caching, when {@code body} returns null, for responses that aren't a
+     * plain 200 and should take the regular path.
+     */
+    public EncodedResponse get(String resource, long version, Supplier<?> body) {
+        return cache.getOrLoad(resource + '@' + version, key -> {
+            Object value = body.get();
+            return value == null ? null : encode(value);
+        });
+    }
+
+    public void write(HttpServletRequest request, HttpServletResponse response, EncodedResponse encoded) throws IOException {
+        byte[] bytes = encoded.json;
+        if (encoded.gzip != null && acceptsGzip(request)) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            // A strong ETag has to differ between content codings of the same resource
+            String etag = response.getHeader(HttpHeaders.ETAG);
+            if (etag != null && etag.endsWith("\"")) {
+                response.setHeader(HttpHeaders.ETAG,
+                        etag.substring(0, etag.length() - 1) + ConditionalRequests.GZIP_SUFFIX + '"');
+            }
+            bytes = encoded.gzip;
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        response.setContentLength(bytes.length);
+        response.getOutputStream().write(bytes);
+    }
+
+    private EncodedResponse encode(Object value) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(value);
+            return new EncodedResponse(json, json.length >= gzipMinBytes ? gzip(json) : null);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not serialize response", ex);
+        }
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return out.toByteArray();
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        return acceptEncoding != null && acceptEncoding.contains("gzip");
+    }
+
+    public static final class EncodedResponse {
+        private final byte[] json;
+        // Null when the body is too small for compression to pay off
+        private final byte[] gzip;
+
+        private EncodedResponse(byte[] json, byte[] gzip) {
+            this.json = json;
+            this.gzip = gzip;
+        }
+    }
+}
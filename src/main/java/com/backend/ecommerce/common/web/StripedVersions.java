@@ -0,0 +1,33 @@
+package com.backend.ecommerce.common.web;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Per-key version counters in fixed memory. Keys share one of a fixed number of stripes, so a bump
+ * may also change the version of unrelated keys; that only costs those a spurious cache miss, never a
+ * stale hit.
+ */
+public class StripedVersions {
+
+    private final AtomicLongArray stripes;
+    private final int mask;
+
+    public StripedVersions(int stripes) {
+        int size = Integer.highestOneBit(Math.max(2, stripes - 1)) << 1;
+        this.stripes = new AtomicLongArray(size);
+        this.mask = size - 1;
+    }
+
+    public long get(long key) {
+        return stripes.get(index(key));
+    }
+
+    public void bump(long key) {
+        stripes.incrementAndGet(index(key));
+    }
+
+    private int index(long key) {
+        long h = key * 0x9e3779b97f4a7c15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
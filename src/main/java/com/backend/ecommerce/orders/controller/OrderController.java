@@ -1,20 +1,30 @@
 package com.backend.ecommerce.orders.controller;
 
+import com.backend.ecommerce.common.pagination.CursorPage;
+import com.backend.ecommerce.common.web.ConditionalRequests;
 import com.backend.ecommerce.orders.model.Order;
 import com.backend.ecommerce.orders.model.OrderStatus;
 import com.backend.ecommerce.orders.payload.OrderDTO;
 import com.backend.ecommerce.orders.payload.OrderItemDTO;
+import com.backend.ecommerce.orders.payload.OrderSummary;
 import com.backend.ecommerce.orders.service.OrderService;
-import com.backend.ecommerce.users.model.LocalUser;
+import com.backend.ecommerce.products.product.model.ProductNotFoundException;
+import com.backend.ecommerce.users.model.UserPrincipal;
+import com.backend.ecommerce.users.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
+import java.time.Instant;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 
@@ -24,15 +34,25 @@ public class OrderController {
 
     private static final Logger logger = LoggerFactory.getLogger(OrderController.class);
     private final OrderService orderService;
+    private final UserService userService;
+    private final ConditionalRequests conditionalRequests;
+
+    @Value("${http.cacheControl.orders}")
+    private String cacheControl;
+    @Value("${orders.history.maxSize}")
+    private int maxHistoryPageSize;
 
     @Autowired
-    public OrderController(OrderService orderService) {
+    public OrderController(OrderService orderService, UserService userService,
+                           ConditionalRequests conditionalRequests) {
         this.orderService = orderService;
+        this.userService = userService;
+        this.conditionalRequests = conditionalRequests;
     }
 
     // Create an order
     @PostMapping("/create")
-    public ResponseEntity<?> createOrder(@AuthenticationPrincipal LocalUser user,
+    public ResponseEntity<?> createOrder(@AuthenticationPrincipal UserPrincipal user,
                                          @Valid @RequestBody OrderDTO orderRequest) {
         if (user == null) {
             logger.warn("Unauthorized attempt to create an order.");
@@ -49,6 +69,11 @@ public class OrderController {
 
         // Validate each OrderItemDTO
         for (OrderItemDTO item : orderRequest.getItems()) {
+            if (item.getProductId() == null) {
+                logger.warn("Order request contains an item without a product ID.");
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", "Every item must have a product ID"));
+            }
             if (item.getQuantity() <= 0) {
                 logger.warn("Invalid quantity for product ID {}: {}", item.getProductId(), item.getQuantity());
                 return ResponseEntity.badRequest()
@@ -71,7 +96,14 @@ public class OrderController {
                 .toList();
 
         // Create the order using the service
-        Order createdOrder = orderService.createOrder(productIds, quantities, user);
+        Order createdOrder;
+        try {
+            createdOrder = orderService.createOrder(productIds, quantities, userService.getUserReference(user));
+        } catch (ProductNotFoundException e) {
+            logger.warn("Order request references unknown products: {}", e.getProductIds());
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", e.getMessage(), "productIds", e.getProductIds()));
+        }
         logger.info("Order created successfully: {}", createdOrder.getId());
         return ResponseEntity.status(HttpStatus.CREATED)
                 .body(Map.of("message", "Order created successfully", "order", createdOrder));
@@ -79,30 +111,75 @@ public class OrderController {
 
     // Get orders for logged-in user
     @GetMapping("/user")
-    public ResponseEntity<?> getUserOrders(@AuthenticationPrincipal LocalUser user) {
+    public ResponseEntity<?> getUserOrders(@AuthenticationPrincipal UserPrincipal user,
+                                           HttpServletRequest request, HttpServletResponse response) {
         if (user == null) {
             logger.warn("Unauthorized attempt to get user orders.");
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(Map.of("error", "User not authenticated"));
         }
 
+        String etag = conditionalRequests.etag(user.getId(), orderService.getOrderVersion(user));
+        if (conditionalRequests.checkNotModified(request, response, etag, cacheControl)) {
+            return null;
+        }
         List<Order> orders = orderService.getOrdersByUser(user);
+        conditionalRequests.applyHeaders(response, etag, cacheControl);
         logger.info("Fetched orders for user: {}", user.getId());
         return ResponseEntity.ok(Map.of("orders", orders));
     }
 
+    // Order history of the logged-in user, newest first, a page at a time; from and to are inclusive ISO-8601 instants
+    @GetMapping("/history")
+    public ResponseEntity<?> getOrderHistory(@AuthenticationPrincipal UserPrincipal user,
+                                             @RequestParam(required = false) OrderStatus status,
+                                             @RequestParam(required = false) Instant from,
+                                             @RequestParam(required = false) Instant to,
+                                             @RequestParam(required = false) String cursor,
+                                             @RequestParam(defaultValue = "${orders.history.defaultSize}") int limit,
+                                             HttpServletRequest request, HttpServletResponse response) {
+        if (user == null) {
+            logger.warn("Unauthorized attempt to get order history.");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("error", "User not authenticated"));
+        }
+
+        String etag = conditionalRequests.etag(user.getId(), orderService.getOrderVersion(user));
+        if (conditionalRequests.checkNotModified(request, response, etag, cacheControl)) {
+            return null;
+        }
+        CursorPage<OrderSummary> page;
+        try {
+            page = orderService.getOrderHistory(user, status, from == null ? null : Date.from(from),
+                    to == null ? null : Date.from(to), cursor, Math.max(1, Math.min(limit, maxHistoryPageSize)));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid order history request: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        conditionalRequests.applyHeaders(response, etag, cacheControl);
+        logger.info("Fetched order history page for user: {}", user.getId());
+        return ResponseEntity.ok(page);
+    }
+
     // Get a specific order by ID
     @GetMapping("/{orderId}")
-    public ResponseEntity<?> getOrder(@AuthenticationPrincipal LocalUser user,
-                                      @PathVariable Long orderId) {
+    public ResponseEntity<?> getOrder(@AuthenticationPrincipal UserPrincipal user,
+                                      @PathVariable Long orderId,
+                                      HttpServletRequest request, HttpServletResponse response) {
         if (user == null) {
             logger.warn("Unauthorized attempt to get order with ID: {}", orderId);
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(Map.of("error", "User not authenticated"));
         }
 
+        // A 200 for this order was only ever served to its owner, so a matching tag can't leak anything
+        String etag = conditionalRequests.etag(user.getId(), orderService.getOrderVersion(user));
+        if (conditionalRequests.checkNotModified(request, response, etag, cacheControl)) {
+            return null;
+        }
         try {
             Order order = orderService.getOrderById(orderId, user);
+            conditionalRequests.applyHeaders(response, etag, cacheControl);
             logger.info("Fetched order: {}", orderId);
             return ResponseEntity.ok(Map.of("order", order));
         } catch (IllegalArgumentException e) {
@@ -114,7 +191,7 @@ public class OrderController {
 
     // Delete an order by ID
     @DeleteMapping("/{orderId}")
-    public ResponseEntity<?> deleteOrder(@AuthenticationPrincipal LocalUser user,
+    public ResponseEntity<?> deleteOrder(@AuthenticationPrincipal UserPrincipal user,
                                          @PathVariable Long orderId) {
         if (user == null) {
             logger.warn("Unauthorized attempt to delete order with ID: {}", orderId);
@@ -148,7 +225,7 @@ public class OrderController {
     }
 
     @PutMapping("/{orderId}/status")
-    public ResponseEntity<?> updateOrderStatus(@AuthenticationPrincipal LocalUser user,
+    public ResponseEntity<?> updateOrderStatus(@AuthenticationPrincipal UserPrincipal user,
                                                @PathVariable Long orderId,
                                                @Valid @RequestBody StatusUpdateRequest request) {
         if (user == null) {
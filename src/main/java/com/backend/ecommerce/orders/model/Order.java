@@ -1,5 +1,6 @@
 package com.backend.ecommerce.orders.model;
 
+import com.backend.ecommerce.common.id.SnowflakeId;
 import com.backend.ecommerce.users.model.LocalUser;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
@@ -8,11 +9,15 @@ import java.util.Date;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        // Order history, newest first; each ends in id so the keyset cursor position is unique
+        @Index(name = "idx_orders_user_date_id", columnList = "user_id, order_date, id"),
+        @Index(name = "idx_orders_user_status_date_id", columnList = "user_id, status, order_date, id")
+})
 public class Order {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @SnowflakeId
     private Long id;
 
     @ManyToOne
@@ -21,6 +26,7 @@ public class Order {
     private LocalUser user;
 
     @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "order_date")
     private Date orderDate;
 
     @Column(name = "total_amount")
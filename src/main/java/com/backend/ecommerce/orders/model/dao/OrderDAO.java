@@ -1,11 +1,55 @@
 package com.backend.ecommerce.orders.model.dao;
 
 import com.backend.ecommerce.orders.model.Order;
+import com.backend.ecommerce.orders.model.OrderStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 
 public interface OrderDAO extends JpaRepository<Order, Long> {
 
+    String HISTORY = "select o.id as id, o.orderDate as orderDate, o.status as status, o.totalAmount as totalAmount " +
+            "from Order o where o.user.id = :userId and o.orderDate >= :from and o.orderDate <= :to " +
+            "and (o.orderDate < :beforeDate or (o.orderDate = :beforeDate and o.id < :beforeId)) ";
+    String NEWEST_FIRST = "order by o.orderDate desc, o.id desc";
+
     List<Order> findByUserId(Long userId);
+
+    // A user's orders in the date range before the given position, newest first, served by the (user, date) index
+    @Query(HISTORY + NEWEST_FIRST)
+    List<OrderRow> findHistoryPage(Long userId, Date from, Date to, Date beforeDate, Long beforeId,
+                                   Pageable pageable);
+
+    @Query(HISTORY + "and o.status = :status " + NEWEST_FIRST)
+    List<OrderRow> findHistoryPageByStatus(Long userId, OrderStatus status, Date from, Date to, Date beforeDate,
+                                           Long beforeId, Pageable pageable);
+
+    // Line count, units and line total per order, for a whole page of orders at once
+    @Query("select i.order.id as orderId, count(i) as itemCount, sum(i.quantity) as units, " +
+            "sum(i.price * i.quantity) as itemsTotal from OrderItem i where i.order.id in :orderIds group by i.order.id")
+    List<ItemTotals> findItemTotals(Collection<Long> orderIds);
+
+    interface OrderRow {
+        Long getId();
+
+        Date getOrderDate();
+
+        OrderStatus getStatus();
+
+        Double getTotalAmount();
+    }
+
+    interface ItemTotals {
+        Long getOrderId();
+
+        Long getItemCount();
+
+        Long getUnits();
+
+        Double getItemsTotal();
+    }
 }
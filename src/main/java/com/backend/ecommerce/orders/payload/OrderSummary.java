@@ -0,0 +1,59 @@
+package com.backend.ecommerce.orders.payload;
+
+import com.backend.ecommerce.orders.model.OrderStatus;
+
+import java.util.Date;
+
+// One row of the order history: the order itself plus totals over its lines, without the lines
+public class OrderSummary {
+
+    private final Long id;
+    private final Date orderDate;
+    private final OrderStatus status;
+    private final double totalAmount;
+    private final long itemCount;
+    private final long units;
+    private final double itemsTotal;
+
+    public OrderSummary(Long id, Date orderDate, OrderStatus status, double totalAmount,
+                        long itemCount, long units, double itemsTotal) {
+        this.id = id;
+        this.orderDate = orderDate;
+        this.status = status;
+        this.totalAmount = totalAmount;
+        this.itemCount = itemCount;
+        this.units = units;
+        this.itemsTotal = itemsTotal;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Date getOrderDate() {
+        return orderDate;
+    }
+
+    public OrderStatus getStatus() {
+        return status;
+    }
+
+    public double getTotalAmount() {
+        return totalAmount;
+    }
+
+    // Number of order lines
+    public long getItemCount() {
+        return itemCount;
+    }
+
+    // Quantity summed over the lines
+    public long getUnits() {
+        return units;
+    }
+
+    // Price times quantity summed over the lines
+    public double getItemsTotal() {
+        return itemsTotal;
+    }
+}
@@ -1,33 +1,48 @@
 package com.backend.ecommerce.orders.service;
 
+import com.backend.ecommerce.common.pagination.CursorPage;
+import com.backend.ecommerce.common.pagination.KeysetCursor;
+import com.backend.ecommerce.common.web.StripedVersions;
 import com.backend.ecommerce.orders.model.Order;
 import com.backend.ecommerce.orders.model.OrderItem;
 import com.backend.ecommerce.orders.model.OrderStatus;
 import com.backend.ecommerce.orders.model.dao.OrderDAO;
-import com.backend.ecommerce.products.product.model.Product;
-import com.backend.ecommerce.products.product.dao.ProductDAO; // Import the ProductDAO
-import com.backend.ecommerce.products.product.model.ProductNotFoundException;
+import com.backend.ecommerce.orders.payload.OrderSummary;
+import com.backend.ecommerce.products.product.service.ProductService;
 import com.backend.ecommerce.users.model.LocalUser;
+import com.backend.ecommerce.users.model.UserPrincipal;
 import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
 public class OrderService {
 
+    private static final String HISTORY_SORT = "date";
+    // Open ends of the history date range; well inside what a DATETIME column holds
+    private static final Date EARLIEST = new Date(0);
+    private static final Date LATEST = new Date(253402214400000L); // 9999-12-31T00:00:00Z
+
     private final OrderDAO orderDAO;
-    private final ProductDAO productDAO; // Declare ProductDAO
+    private final ProductService productService; // Current prices for order lines
+    // Per-user version of the order list, bumped after every committed order write; drives ETags
+    private final StripedVersions orderVersions = new StripedVersions(4096);
 
     @Autowired
-    public OrderService(OrderDAO orderDAO, ProductDAO productDAO) {
+    public OrderService(OrderDAO orderDAO, ProductService productService) {
         this.orderDAO = orderDAO;
-        this.productDAO = productDAO; // Initialize ProductDAO
+        this.productService = productService;
     }
 
     // Create an order for a specific user
@@ -35,6 +50,8 @@ public class OrderService {
         if (productIds.size() != quantities.size()) {
             throw new IllegalArgumentException("Product IDs and quantities must have the same size");
         }
+        // Every line priced up front in one lookup; fails with all unknown product ids before anything is built
+        Map<Long, Double> prices = productService.getPrices(productIds);
 
         Order order = new Order();
         order.setUser(user);
@@ -46,13 +63,11 @@ public class OrderService {
 
         for (int i = 0; i < productIds.size(); i++) {
             Long productId = productIds.get(i);
-            Product product = productDAO.findById(productId)
-                    .orElseThrow(() -> new ProductNotFoundException("Product not found: " + productId)); // Custom exception
 
             OrderItem orderItem = new OrderItem();
-            orderItem.setProductId(productId); // Set the entire product object
+            orderItem.setProductId(productId);
             orderItem.setQuantity(quantities.get(i));
-            orderItem.setPrice(product.getPrice()); // Assuming Product has a getPrice method
+            orderItem.setPrice(prices.get(productId));
             orderItem.setOrder(order);
 
             totalAmount += orderItem.getPrice() * orderItem.getQuantity(); // Calculate total amount
@@ -62,15 +77,74 @@ public class OrderService {
         order.setItems(orderItems);
         order.setTotalAmount(totalAmount); // Set the calculated total amount
 
-        return orderDAO.save(order);
+        Order savedOrder = orderDAO.save(order);
+        bumpOrderVersion(user.getId());
+        return savedOrder;
     }
 
 
     // Get all orders for a specific user
-    public List<Order> getOrdersByUser(LocalUser user) {
+    public List<Order> getOrdersByUser(UserPrincipal user) {
         return orderDAO.findByUserId(user.getId());
     }
 
+    /**
+     * A page of the user's order history, newest first, optionally limited to one status and an inclusive
+     * date range. One indexed query reads the page of orders and one grouped query totals the lines of
+     * exactly those orders, so no item is loaded and the cost doesn't grow with the length of the history.
+     */
+    @Transactional
+    public CursorPage<OrderSummary> getOrderHistory(UserPrincipal user, OrderStatus status, Date from, Date to,
+                                                    String cursor, int limit) {
+        if (from != null && to != null && from.after(to)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+        Date lower = from == null ? EARLIEST : from;
+        Date upper = to == null ? LATEST : to;
+        Date beforeDate = upper;
+        long beforeId = Long.MAX_VALUE;
+        if (cursor != null) {
+            KeysetCursor after = KeysetCursor.decode(cursor, HISTORY_SORT);
+            beforeDate = parseDate(after.getValue());
+            beforeId = after.getId();
+        }
+
+        // One extra row tells whether there is a next page without a count query
+        PageRequest pageable = PageRequest.of(0, limit + 1);
+        List<OrderDAO.OrderRow> rows = status == null
+                ? orderDAO.findHistoryPage(user.getId(), lower, upper, beforeDate, beforeId, pageable)
+                : orderDAO.findHistoryPageByStatus(user.getId(), status, lower, upper, beforeDate, beforeId, pageable);
+        boolean more = rows.size() > limit;
+        if (more) {
+            rows = rows.subList(0, limit);
+        }
+        if (rows.isEmpty()) {
+            return new CursorPage<>(List.of(), null);
+        }
+
+        Map<Long, OrderDAO.ItemTotals> totals = new HashMap<>();
+        for (OrderDAO.ItemTotals itemTotals : orderDAO.findItemTotals(rows.stream().map(OrderDAO.OrderRow::getId).toList())) {
+            totals.put(itemTotals.getOrderId(), itemTotals);
+        }
+        List<OrderSummary> summaries = new ArrayList<>(rows.size());
+        for (OrderDAO.OrderRow row : rows) {
+            OrderDAO.ItemTotals itemTotals = totals.get(row.getId());
+            summaries.add(new OrderSummary(row.getId(), row.getOrderDate(), row.getStatus(),
+                    row.getTotalAmount() == null ? 0 : row.getTotalAmount(),
+                    itemTotals == null ? 0 : itemTotals.getItemCount(),
+                    itemTotals == null || itemTotals.getUnits() == null ? 0 : itemTotals.getUnits(),
+                    itemTotals == null || itemTotals.getItemsTotal() == null ? 0 : itemTotals.getItemsTotal()));
+        }
+
+        String nextCursor = null;
+        if (more) {
+            OrderDAO.OrderRow last = rows.get(rows.size() - 1);
+            nextCursor = new KeysetCursor(HISTORY_SORT, last.getId(),
+                    Long.toString(last.getOrderDate().getTime())).encode();
+        }
+        return new CursorPage<>(List.copyOf(summaries), nextCursor);
+    }
+
     // Find order by ID with items initialized to avoid LazyInitializationException
     @Transactional
     public Optional<Order> findOrderById(Long orderId) {
@@ -81,12 +155,13 @@ public class OrderService {
 
     // Update order status
     @Transactional
-    public Order updateOrderStatus(Long orderId, OrderStatus newStatus, LocalUser user) {
+    public Order updateOrderStatus(Long orderId, OrderStatus newStatus, UserPrincipal user) {
         Optional<Order> orderOpt = orderDAO.findById(orderId);
 
         if (orderOpt.isPresent() && orderOpt.get().getUser().getId().equals(user.getId())) {
             Order order = orderOpt.get();
             order.setStatus(newStatus); // Update the order status
+            bumpOrderVersion(user.getId());
             return orderDAO.save(order); // Save the updated order
         } else {
             throw new IllegalArgumentException("Access denied or order not found");
@@ -95,7 +170,7 @@ public class OrderService {
 
     // Get order details by order ID with items initialized
     @Transactional
-    public Order getOrderById(Long orderId, LocalUser user) {
+    public Order getOrderById(Long orderId, UserPrincipal user) {
         Optional<Order> orderOpt = orderDAO.findById(orderId);
         if (orderOpt.isPresent() && orderOpt.get().getUser().getId().equals(user.getId())) {
             Order order = orderOpt.get();
@@ -108,14 +183,43 @@ public class OrderService {
 
     // Delete an order by order ID
     @Transactional
-    public boolean deleteOrder(Long orderId, LocalUser user) {
+    public boolean deleteOrder(Long orderId, UserPrincipal user) {
         Optional<Order> orderOpt = orderDAO.findById(orderId);
         if (orderOpt.isPresent() && orderOpt.get().getUser().getId().equals(user.getId())) {
             orderDAO.deleteById(orderId);
+            bumpOrderVersion(user.getId());
             return true;
         } else {
             return false;
         }
     }
 
+    public long getOrderVersion(UserPrincipal user) {
+        return orderVersions.get(user.getId());
+    }
+
+    // Bumped once the change is visible, so a request racing the commit can't pair the new version with old data
+    private void bumpOrderVersion(Long userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    orderVersions.bump(userId);
+                }
+            });
+        } else {
+            orderVersions.bump(userId);
+        }
+    }
+
+    private static Date parseDate(String value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        try {
+            return new Date(Long.parseLong(value));
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
 }
@@ -1,14 +1,20 @@
 package com.backend.ecommerce.products.category.controller;
 
+import com.backend.ecommerce.common.web.ConditionalRequests;
+import com.backend.ecommerce.common.web.SerializedResponseCache;
 import com.backend.ecommerce.products.category.model.Category;
 import com.backend.ecommerce.products.category.service.CategoryService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
+import java.io.IOException;
 import java.util.List;
 
 @RestController
@@ -16,18 +22,33 @@ import java.util.List;
 public class CategoryController {
 
     private final CategoryService categoryService;
+    private final SerializedResponseCache responseCache;
+    private final ConditionalRequests conditionalRequests;
     private static final Logger logger = LoggerFactory.getLogger(CategoryController.class);
 
-    public CategoryController(CategoryService categoryService) {
+    @Value("${http.cacheControl.categories}")
+    private String cacheControl;
+
+    public CategoryController(CategoryService categoryService, SerializedResponseCache responseCache,
+                              ConditionalRequests conditionalRequests) {
         this.categoryService = categoryService;
+        this.responseCache = responseCache;
+        this.conditionalRequests = conditionalRequests;
     }
 
     @GetMapping("/categories")
-    public ResponseEntity<List<Category>> getAllCategories() {
+    public void getAllCategories(HttpServletRequest request, HttpServletResponse response) throws IOException {
         logger.info("Request received: Fetching all categories");
+        long version = categoryService.getVersion();
+        String etag = conditionalRequests.etag(version);
+        if (conditionalRequests.checkNotModified(request, response, etag, cacheControl)) {
+            return;
+        }
         List<Category> categories = categoryService.getAllCategories();
+        conditionalRequests.applyHeaders(response, etag, cacheControl);
+        // Pre-encoded bytes, re-serialized only when the category snapshot changes
+        responseCache.write(request, response, responseCache.get("categories", version, () -> categories));
         logger.info("Returning {} categories", categories.size());
-        return ResponseEntity.ok(categories);
     }
 
     @PostMapping("/category")
@@ -1,29 +1,153 @@
 package com.backend.ecommerce.products.category.service;
 
+import com.backend.ecommerce.common.cache.ExpiringCache;
 import com.backend.ecommerce.products.category.dao.CategoryDAO;
 import com.backend.ecommerce.products.category.model.Category;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Categories are served from an immutable in-memory snapshot. Reads never lock or touch the database;
+ * writes build a new snapshot and swap it in. The snapshot is reloaded on startup and periodically to
+ * pick up categories created through other instances. Ids found in neither are remembered for a short
+ * while, so lookups of unknown ids don't each cost a query.
+ */
 @Service
 public class CategoryService {
 
+    private static final Logger logger = LoggerFactory.getLogger(CategoryService.class);
+
     private final CategoryDAO categoryDAO;
 
-    public CategoryService(CategoryDAO categoryDAO) {
+    private volatile Snapshot snapshot = new Snapshot(List.of(), Map.of());
+    // Bumped whenever the snapshot content changes, for response caches
+    private final AtomicLong version = new AtomicLong();
+    // Ids missing from the database as well, dropped on reload and when a category with that id is saved
+    private final ExpiringCache<Long, Boolean> misses;
+
+    public CategoryService(CategoryDAO categoryDAO,
+                           @Value("${catalog.categories.misses.maxSize}") int missesMaxSize,
+                           @Value("${catalog.categories.misses.expiryInSeconds}") long missesExpiryInSeconds,
+                           MeterRegistry meterRegistry) {
         this.categoryDAO = categoryDAO;
+        this.misses = new ExpiringCache<>(missesMaxSize, Duration.ofSeconds(missesExpiryInSeconds));
+        this.misses.bindTo(meterRegistry, "category-misses");
+    }
+
+    @PostConstruct
+    @Scheduled(initialDelayString = "${catalog.categories.refreshIntervalMillis}",
+            fixedDelayString = "${catalog.categories.refreshIntervalMillis}")
+    public synchronized void reload() {
+        // Under the write lock so a concurrent createCategory can't be overwritten by an older read
+        Snapshot loaded = Snapshot.of(categoryDAO.findAll());
+        if (!loaded.sameContent(snapshot)) {
+            snapshot = loaded;
+            version.incrementAndGet();
+        }
+        misses.invalidateAll();
+        logger.debug("Category snapshot loaded with {} categories", snapshot.all().size());
+    }
+
+    public long getVersion() {
+        return version.get();
     }
 
     public List<Category> getAllCategories() {
-        return categoryDAO.findAll();
+        return snapshot.all();
     }
 
-    public Category createCategory(Category category) {
-        return categoryDAO.save(category);
+    public synchronized Category createCategory(Category category) {
+        Category saved = categoryDAO.save(category);
+        snapshot = snapshot.with(saved);
+        version.incrementAndGet();
+        misses.invalidate(saved.getId());
+        return saved;
     }
 
     public Category getCategoryById(Long id) {
-        return categoryDAO.findById(id).orElse(null);
+        Category category = snapshot.byId().get(id);
+        if (category != null) {
+            return category;
+        }
+        if (misses.get(id) != null) {
+            return null;
+        }
+        // Possibly created on another instance since the last reload
+        Optional<Category> loaded = categoryDAO.findById(id);
+        if (loaded.isEmpty()) {
+            misses.put(id, Boolean.TRUE);
+            return null;
+        }
+        return add(loaded.get());
+    }
+
+    private synchronized Category add(Category category) {
+        snapshot = snapshot.with(category);
+        version.incrementAndGet();
+        return snapshot.byId().get(category.getId());
+    }
+
+    // Detached copies, so a persistence context never manages (or mutates) the shared instances
+    private record Snapshot(List<Category> all, Map<Long, Category> byId) {
+
+        static Snapshot of(List<Category> categories) {
+            List<Category> all = new ArrayList<>(categories.size());
+            for (Category category : categories) {
+                all.add(copy(category));
+            }
+            all.sort(Comparator.comparing(Category::getId));
+            Map<Long, Category> byId = new HashMap<>();
+            for (Category category : all) {
+                byId.put(category.getId(), category);
+            }
+            return new Snapshot(List.copyOf(all), Map.copyOf(byId));
+        }
+
+        Snapshot with(Category category) {
+            List<Category> categories = new ArrayList<>(all.size() + 1);
+            for (Category existing : all) {
+                if (!existing.getId().equals(category.getId())) {
+                    categories.add(existing);
+                }
+            }
+            categories.add(category);
+            return of(categories);
+        }
+
+        boolean sameContent(Snapshot other) {
+            if (all.size() != other.all.size()) {
+                return false;
+            }
+            for (int i = 0; i < all.size(); i++) {
+                Category a = all.get(i);
+                Category b = other.all.get(i);
+                if (!a.getId().equals(b.getId()) || !Objects.equals(a.getName(), b.getName())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static Category copy(Category category) {
+            Category copy = new Category();
+            copy.setId(category.getId());
+            copy.setName(category.getName());
+            return copy;
+        }
     }
 }
@@ -1,45 +1,188 @@
 package com.backend.ecommerce.products.product.controller;
 
+import com.backend.ecommerce.common.pagination.CursorPage;
+import com.backend.ecommerce.common.web.ConditionalRequests;
+import com.backend.ecommerce.common.web.SerializedResponseCache;
+import com.backend.ecommerce.common.web.SerializedResponseCache.EncodedResponse;
+import com.backend.ecommerce.products.product.facet.CatalogFacets;
 import com.backend.ecommerce.products.product.model.Product;
 import com.backend.ecommerce.products.product.payload.ProductDTO;
+import com.backend.ecommerce.products.product.payload.ProductSearchResult;
+import com.backend.ecommerce.products.product.payload.ProductSort;
+import com.backend.ecommerce.products.product.payload.ProductView;
+import com.backend.ecommerce.products.product.search.ProductNameSuggester;
+import com.backend.ecommerce.products.product.search.ProductSearchIndex;
 import com.backend.ecommerce.products.product.service.ProductService;
-import com.backend.ecommerce.users.model.LocalUser;
+import com.backend.ecommerce.users.model.UserPrincipal;
+import com.backend.ecommerce.users.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/auth")
 public class ProductController {
 
     private static final Logger logger = LoggerFactory.getLogger(ProductController.class);
+
+    @Value("${catalog.page.maxSize}")
+    private int maxPageSize;
+    @Value("${http.cacheControl.products}")
+    private String cacheControl;
+    @Value("${catalog.search.maxWindow}")
+    private int maxSearchWindow;
+    @Value("${http.cacheControl.suggestions}")
+    private String suggestionsCacheControl;
+
     private final ProductService productService;
+    private final UserService userService;
+    private final SerializedResponseCache responseCache;
+    private final ConditionalRequests conditionalRequests;
+    private final ProductSearchIndex searchIndex;
+    private final ProductNameSuggester nameSuggester;
+    private final CatalogFacets catalogFacets;
 
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, UserService userService,
+                             SerializedResponseCache responseCache, ConditionalRequests conditionalRequests,
+                             ProductSearchIndex searchIndex, ProductNameSuggester nameSuggester,
+                             CatalogFacets catalogFacets) {
         this.productService = productService;
+        this.userService = userService;
+        this.responseCache = responseCache;
+        this.conditionalRequests = conditionalRequests;
+        this.searchIndex = searchIndex;
+        this.nameSuggester = nameSuggester;
+        this.catalogFacets = catalogFacets;
     }
 
     @PostMapping("/product")
-    public ResponseEntity<Product> createProduct(@AuthenticationPrincipal LocalUser user,
+    public ResponseEntity<Product> createProduct(@AuthenticationPrincipal UserPrincipal user,
                                                  @Valid @RequestBody ProductDTO productDTO) {
         logger.info("User {} is attempting to create a new product: {}", user.getUsername(), productDTO.getName());
-        Product product = productService.createProduct(productDTO, user);
+        Product product = productService.createProduct(productDTO, userService.getUserReference(user));
         logger.info("Product {} created successfully by user {}", product.getName(), user.getUsername());
         return ResponseEntity.status(HttpStatus.CREATED).body(product);
     }
 
     @GetMapping("/products")
-    public ResponseEntity<List<Product>> getAllProducts() {
-        logger.info("Fetching all products");
-        List<Product> products = productService.getAllProducts();
-        logger.info("Returned {} products", products.size());
-        return ResponseEntity.ok(products);
+    public ResponseEntity<?> getAllProducts(@RequestParam(defaultValue = "id") String sort,
+                                            @RequestParam(required = false) String cursor,
+                                            @RequestParam(defaultValue = "${catalog.page.defaultSize}") int limit,
+                                            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        logger.info("Fetching products page, sort: {}, limit: {}", sort, limit);
+        long version = productService.getCatalogVersion();
+        String etag = conditionalRequests.etag(version);
+        if (conditionalRequests.checkNotModified(request, response, etag, cacheControl)) {
+            return null;
+        }
+        EncodedResponse page;
+        try {
+            ProductSort productSort = ProductSort.from(sort);
+            int pageSize = clampLimit(limit);
+            page = responseCache.get(pageKey("products", productSort, cursor, pageSize), version,
+                    () -> productService.getAllProducts(productSort, cursor, pageSize));
+        } catch (IllegalArgumentException ex) {
+            logger.warn("Invalid products page request: {}", ex.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+        }
+        conditionalRequests.applyHeaders(response, etag, cacheControl);
+        responseCache.write(request, response, page);
+        return null;
+    }
+
+    // Full-text search over names and descriptions, best match first; paged by offset up to the max window
+    @GetMapping("/products/search")
+    public ResponseEntity<?> searchProducts(@RequestParam("q") String query,
+                                            @RequestParam(required = false) Long categoryId,
+                                            @RequestParam(required = false) Double minPrice,
+                                            @RequestParam(required = false) Double maxPrice,
+                                            @RequestParam(defaultValue = "0") int offset,
+                                            @RequestParam(defaultValue = "${catalog.search.defaultSize}") int limit) {
+        logger.info("Searching products, query: {}, category: {}", query, categoryId);
+        if (query.isBlank()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Query must not be blank"));
+        }
+        if (minPrice != null && maxPrice != null && minPrice > maxPrice) {
+            return ResponseEntity.badRequest().body(Map.of("error", "minPrice must not exceed maxPrice"));
+        }
+        int pageSize = clampLimit(limit);
+        if (offset < 0 || offset + pageSize > maxSearchWindow) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Results beyond " + maxSearchWindow + " are not available"));
+        }
+        if (!searchIndex.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", "Search is starting up"));
+        }
+        ProductSearchResult result = searchIndex.search(query, categoryId, minPrice, maxPrice, offset, pageSize);
+        return ResponseEntity.ok(result);
+    }
+
+    // Product name completions for the search box, most popular first; called on every keystroke, so no logging
+    @GetMapping("/products/suggest")
+    public ResponseEntity<?> suggestProducts(@RequestParam String prefix,
+                                             @RequestParam(defaultValue = "${catalog.suggest.maxResults}") int limit) {
+        if (prefix.isBlank()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Prefix must not be blank"));
+        }
+        if (!nameSuggester.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", "Suggestions are starting up"));
+        }
+        int size = Math.max(1, Math.min(limit, nameSuggester.getMaxResults()));
+        List<String> suggestions = nameSuggester.suggest(prefix, size);
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok();
+        if (!suggestionsCacheControl.isBlank()) {
+            ok.header(HttpHeaders.CACHE_CONTROL, suggestionsCacheControl);
+        }
+        return ok.body(suggestions);
+    }
+
+    // Products in any of the given categories within a price range, cheapest first
+    @GetMapping("/products/filter")
+    public ResponseEntity<?> filterProducts(@RequestParam(required = false) List<Long> categoryId,
+                                            @RequestParam(required = false) Double minPrice,
+                                            @RequestParam(required = false) Double maxPrice,
+                                            @RequestParam(required = false) String cursor,
+                                            @RequestParam(defaultValue = "${catalog.page.defaultSize}") int limit) {
+        logger.info("Filtering products, categories: {}, price: {} - {}", categoryId, minPrice, maxPrice);
+        if (!catalogFacets.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", "Filtering is starting up"));
+        }
+        CursorPage<Long> ids;
+        try {
+            ids = catalogFacets.filter(categoryId, minPrice, maxPrice, cursor, clampLimit(limit));
+        } catch (IllegalArgumentException ex) {
+            logger.warn("Invalid product filter request: {}", ex.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+        }
+        return ResponseEntity.ok(new CursorPage<>(productService.getProducts(ids.getItems()), ids.getNextCursor()));
+    }
+
+    // Facet counts for a filter; bands are ascending lower bounds of the price bands to count
+    @GetMapping("/products/facets")
+    public ResponseEntity<?> getProductFacets(@RequestParam(required = false) List<Long> categoryId,
+                                              @RequestParam(required = false) Double minPrice,
+                                              @RequestParam(required = false) Double maxPrice,
+                                              @RequestParam(required = false) List<Double> bands) {
+        if (!catalogFacets.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", "Filtering is starting up"));
+        }
+        try {
+            return ResponseEntity.ok(catalogFacets.count(categoryId, minPrice, maxPrice, bands == null ? List.of() : bands));
+        } catch (IllegalArgumentException ex) {
+            logger.warn("Invalid product facets request: {}", ex.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+        }
     }
 
     @PutMapping("/product/{id}")
@@ -59,17 +202,49 @@ public class ProductController {
     }
 
     @GetMapping("/category/{categoryId}")
-    public ResponseEntity<?> getProductsByCategory(@PathVariable Long categoryId) {
+    public ResponseEntity<?> getProductsByCategory(@PathVariable Long categoryId,
+                                                   @RequestParam(defaultValue = "id") String sort,
+                                                   @RequestParam(required = false) String cursor,
+                                                   @RequestParam(defaultValue = "${catalog.page.defaultSize}") int limit,
+                                                   HttpServletRequest request, HttpServletResponse response) throws IOException {
         logger.info("Fetching products for category ID: {}", categoryId);
 
-        List<Product> products = productService.getProductsByCategory(categoryId);
+        long version = productService.getCategoryVersion(categoryId);
+        String etag = conditionalRequests.etag(version);
+        if (conditionalRequests.checkNotModified(request, response, etag, cacheControl)) {
+            return null;
+        }
+        EncodedResponse page;
+        try {
+            ProductSort productSort = ProductSort.from(sort);
+            int pageSize = clampLimit(limit);
+            page = responseCache.get(pageKey("category:" + categoryId, productSort, cursor, pageSize), version, () -> {
+                CursorPage<ProductView> products =
+                        productService.getProductsByCategory(categoryId, productSort, cursor, pageSize);
+                // An empty first page is a 404, which isn't cached
+                return cursor == null && products.getItems().isEmpty() ? null : products;
+            });
+        } catch (IllegalArgumentException ex) {
+            logger.warn("Invalid category page request for category ID {}: {}", categoryId, ex.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+        }
 
-        if (products.isEmpty()) {
+        if (page == null) {
             logger.warn("No products found for category ID: {}", categoryId);
             return ResponseEntity.status(404).body("No products found for this category.");
         }
 
-        logger.info("Found {} products for category ID: {}", products.size(), categoryId);
-        return ResponseEntity.ok(products);
+        // Cached, already encoded JSON goes straight to the response; null tells Spring it's been handled
+        conditionalRequests.applyHeaders(response, etag, cacheControl);
+        responseCache.write(request, response, page);
+        return null;
+    }
+
+    private static String pageKey(String resource, ProductSort sort, String cursor, int limit) {
+        return resource + ':' + sort.key() + ':' + limit + ':' + (cursor == null ? "" : cursor);
+    }
+
+    private int clampLimit(int limit) {
+        return Math.max(1, Math.min(limit, maxPageSize));
     }
 }
@@ -2,13 +2,95 @@ package com.backend.ecommerce.products.product.dao;
 
 import com.backend.ecommerce.products.category.model.Category;
 import com.backend.ecommerce.products.product.model.Product;
+import com.backend.ecommerce.products.product.payload.ProductView;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.ListCrudRepository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface ProductDAO extends ListCrudRepository<Product, Long> {
 
     Category findByName(String name);
     // Fetch products by category ID
     List<Product> findByCategoryId(Long categoryId);
+
+    // Keyset pages: rows strictly after the cursor position in (sort key, id) order. Only the page size of
+    // the Pageable is used, the offset always stays 0. Rows come back as ProductView projections, so a page
+    // is one query over products and categories with no entity hydration.
+
+    String VIEW = "select new com.backend.ecommerce.products.product.payload.ProductView(" +
+            "p.id, p.name, p.price, p.description, p.imageUrl, c.id, c.name) from Product p join p.category c ";
+
+    @Query(VIEW + "where p.id = :id")
+    Optional<ProductView> findViewById(Long id);
+
+    // In no particular order; callers put them back in the order they need
+    @Query(VIEW + "where p.id in :ids")
+    List<ProductView> findViewsByIdIn(Collection<Long> ids);
+
+    @Query(VIEW + "where p.id > :afterId order by p.id")
+    List<ProductView> findPageById(Long afterId, Pageable pageable);
+
+    @Query(VIEW + "where p.price > :afterPrice or (p.price = :afterPrice and p.id > :afterId) order by p.price, p.id")
+    List<ProductView> findPageByPrice(Double afterPrice, Long afterId, Pageable pageable);
+
+    @Query(VIEW + "where p.name > :afterName or (p.name = :afterName and p.id > :afterId) order by p.name, p.id")
+    List<ProductView> findPageByName(String afterName, Long afterId, Pageable pageable);
+
+    @Query(VIEW + "where c.id = :categoryId and p.id > :afterId order by p.id")
+    List<ProductView> findCategoryPageById(Long categoryId, Long afterId, Pageable pageable);
+
+    @Query(VIEW + "where c.id = :categoryId " +
+            "and (p.price > :afterPrice or (p.price = :afterPrice and p.id > :afterId)) order by p.price, p.id")
+    List<ProductView> findCategoryPageByPrice(Long categoryId, Double afterPrice, Long afterId, Pageable pageable);
+
+    @Query(VIEW + "where c.id = :categoryId " +
+            "and (p.name > :afterName or (p.name = :afterName and p.id > :afterId)) order by p.name, p.id")
+    List<ProductView> findCategoryPageByName(Long categoryId, String afterName, Long afterId, Pageable pageable);
+
+    // Names of products after the given id, a page at a time, for rebuilding the autocomplete trie
+    @Query("select p.id as id, p.name as name from Product p where p.id > :afterId order by p.id")
+    List<ProductName> findNamesAfter(Long afterId, Pageable pageable);
+
+    // Units ordered per product over all orders, used as suggestion popularity
+    @Query("select i.productId as productId, sum(i.quantity) as units from OrderItem i group by i.productId")
+    List<UnitsSold> findUnitsSold();
+
+    // Facet columns in (price, id) order after the given position, served by the price index
+    @Query("select p.id as id, p.category.id as categoryId, p.price as price from Product p " +
+            "where p.price > :afterPrice or (p.price = :afterPrice and p.id > :afterId) order by p.price, p.id")
+    List<FacetRow> findFacetRowsAfter(Double afterPrice, Long afterId, Pageable pageable);
+
+    // Just the prices, for pricing order lines
+    @Query("select p.id as id, p.price as price from Product p where p.id in :ids")
+    List<ProductPrice> findPricesByIdIn(Collection<Long> ids);
+
+    interface ProductName {
+        Long getId();
+
+        String getName();
+    }
+
+    interface UnitsSold {
+        Long getProductId();
+
+        Long getUnits();
+    }
+
+    interface ProductPrice {
+        Long getId();
+
+        Double getPrice();
+    }
+
+    interface FacetRow {
+        Long getId();
+
+        Long getCategoryId();
+
+        Double getPrice();
+    }
 }
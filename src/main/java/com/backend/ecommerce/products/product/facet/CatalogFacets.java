@@ -0,0 +1,282 @@
+package com.backend.ecommerce.products.product.facet;
+
+import com.backend.ecommerce.common.pagination.CursorPage;
+import com.backend.ecommerce.common.pagination.KeysetCursor;
+import com.backend.ecommerce.products.category.model.Category;
+import com.backend.ecommerce.products.category.service.CategoryService;
+import com.backend.ecommerce.products.product.dao.ProductDAO;
+import com.backend.ecommerce.products.product.facet.FacetSnapshot.Row;
+import com.backend.ecommerce.products.product.payload.FacetCounts;
+import com.backend.ecommerce.products.product.payload.ProductSort;
+import com.backend.ecommerce.products.product.payload.ProductView;
+import com.backend.ecommerce.products.product.service.ProductChangeListener;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Category and price filtering and facet counts over a {@link FacetSnapshot} of the whole catalog, so no
+ * query touches the database. Product writes through this instance are queued after commit and merged
+ * into a new snapshot shortly after; a periodic reload picks up writes made through other instances.
+ */
+@Component
+public class CatalogFacets implements ProductChangeListener, MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogFacets.class);
+    private static final int PAGE_SIZE = 10000;
+
+    private final ProductDAO productDAO;
+    private final CategoryService categoryService;
+    private final int maxPriceBands;
+
+    private volatile FacetSnapshot snapshot = FacetSnapshot.empty();
+    private volatile boolean ready;
+
+    // Latest committed state per changed product, not yet merged into the snapshot
+    private final Object pendingLock = new Object();
+    private Map<Long, Row> pending = new HashMap<>();
+
+    public CatalogFacets(ProductDAO productDAO, CategoryService categoryService,
+                         @Value("${catalog.facets.maxPriceBands}") int maxPriceBands) {
+        this.productDAO = productDAO;
+        this.categoryService = categoryService;
+        this.maxPriceBands = maxPriceBands;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("catalog.facets.products", this, facets -> facets.snapshot.size).register(registry);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Counts per category within the price range, counts per price band within the categories, and the
+     * number of products matching both. Band bounds are ascending lower bounds; each band runs up to the
+     * next bound and the last one is open-ended. Empty categories are left out.
+     */
+    public FacetCounts count(Collection<Long> categoryIds, Double minPrice, Double maxPrice, List<Double> bandBounds) {
+        if (bandBounds.size() > maxPriceBands) {
+            throw new IllegalArgumentException("At most " + maxPriceBands + " price bands are supported");
+        }
+        for (int i = 1; i < bandBounds.size(); i++) {
+            if (bandBounds.get(i) <= bandBounds.get(i - 1)) {
+                throw new IllegalArgumentException("Price bands must be in ascending order");
+            }
+        }
+        FacetSnapshot facets = snapshot;
+        int from = minPrice == null ? 0 : facets.lowerBound(minPrice);
+        int to = maxPrice == null ? facets.size : facets.upperBound(maxPrice);
+        int[] selected = ordinals(facets, categoryIds);
+
+        int[] counts = new int[facets.categoryIds.length];
+        if (counts.length < Long.SIZE) {
+            // Few categories: popcounts over each bitset beat touching every row in the slice
+            for (int c = 0; c < counts.length; c++) {
+                counts[c] = facets.count(c, from, to);
+            }
+        } else {
+            for (int i = from; i < to; i++) {
+                counts[facets.categories[i]]++;
+            }
+        }
+        int total = selected == null ? Math.max(0, to - from) : 0;
+        if (selected != null) {
+            for (int ordinal : selected) {
+                total += counts[ordinal];
+            }
+        }
+
+        List<FacetCounts.CategoryCount> categories = new ArrayList<>();
+        for (int c = 0; c < counts.length; c++) {
+            if (counts[c] > 0) {
+                Category category = categoryService.getCategoryById(facets.categoryIds[c]);
+                categories.add(new FacetCounts.CategoryCount(facets.categoryIds[c],
+                        category == null ? null : category.getName(), counts[c]));
+            }
+        }
+        categories.sort(Comparator.comparingInt(FacetCounts.CategoryCount::getCount).reversed());
+
+        List<FacetCounts.PriceBandCount> bands = new ArrayList<>(bandBounds.size());
+        for (int b = 0; b < bandBounds.size(); b++) {
+            Double upper = b + 1 < bandBounds.size() ? bandBounds.get(b + 1) : null;
+            int bandFrom = facets.lowerBound(bandBounds.get(b));
+            int bandTo = upper == null ? facets.size : facets.lowerBound(upper);
+            int count = 0;
+            if (selected == null) {
+                count = bandTo - bandFrom;
+            } else {
+                for (int ordinal : selected) {
+                    count += facets.count(ordinal, bandFrom, bandTo);
+                }
+            }
+            bands.add(new FacetCounts.PriceBandCount(bandBounds.get(b), upper, count));
+        }
+        return new FacetCounts(total, List.copyOf(categories), List.copyOf(bands));
+    }
+
+    /**
+     * Ids of the products in any of the categories (all when empty) within the price range, cheapest first,
+     * a page at a time. Cursors are the same (price, id) cursors as a price-sorted catalog listing.
+     */
+    public CursorPage<Long> filter(Collection<Long> categoryIds, Double minPrice, Double maxPrice,
+                                   String cursor, int limit) {
+        KeysetCursor after = cursor == null ? null : KeysetCursor.decode(cursor, ProductSort.PRICE.key());
+        FacetSnapshot facets = snapshot;
+        int from = minPrice == null ? 0 : facets.lowerBound(minPrice);
+        int to = maxPrice == null ? facets.size : facets.upperBound(maxPrice);
+        if (after != null) {
+            from = Math.max(from, facets.after(parsePrice(after.getValue()), after.getId()));
+        }
+        int[] selected = ordinals(facets, categoryIds);
+
+        // One extra row tells whether there is a next page
+        int[] rows = new int[limit + 1];
+        int found = 0;
+        if (selected == null) {
+            for (int i = from; i < to && found < rows.length; i++) {
+                rows[found++] = i;
+            }
+        } else if (from < to) {
+            for (int w = from >>> 6; w <= (to - 1) >>> 6 && found < rows.length; w++) {
+                long word = 0;
+                for (int ordinal : selected) {
+                    word |= facets.categoryBits[ordinal][w];
+                }
+                if (w == from >>> 6) {
+                    word &= -1L << from;
+                }
+                if (w == (to - 1) >>> 6) {
+                    word &= -1L >>> (63 - ((to - 1) & 63));
+                }
+                while (word != 0 && found < rows.length) {
+                    rows[found++] = (w << 6) + Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                }
+            }
+        }
+
+        int count = Math.min(found, limit);
+        List<Long> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(facets.ids[rows[i]]);
+        }
+        String nextCursor = null;
+        if (found > limit) {
+            int last = rows[limit - 1];
+            nextCursor = new KeysetCursor(ProductSort.PRICE.key(), facets.ids[last],
+                    Double.toString(facets.prices[last])).encode();
+        }
+        return new CursorPage<>(List.copyOf(ids), nextCursor);
+    }
+
+    @Override
+    public void productSaved(ProductView product) {
+        synchronized (pendingLock) {
+            pending.put(product.getId(), new Row(product.getId(), product.getCategory().getId(), product.getPrice()));
+        }
+    }
+
+    @Override
+    public void productDeleted(Long productId) {
+        synchronized (pendingLock) {
+            pending.put(productId, new Row(productId, null, 0));
+        }
+    }
+
+    // Merges queued changes into a new snapshot; one pass over the columns, however many changes are queued
+    @Scheduled(fixedDelayString = "${catalog.facets.refreshDelayMillis}")
+    public synchronized void refresh() {
+        Map<Long, Row> changes = drainPending();
+        if (!changes.isEmpty()) {
+            snapshot = snapshot.with(changes);
+        }
+    }
+
+    /**
+     * Loads a fresh snapshot in (price, id) order straight from the price index, so nothing is sorted in
+     * memory. Changes queued meanwhile are applied on top; they're full row states, so one the load already
+     * saw is simply applied again.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${catalog.facets.reloadIntervalMillis}",
+            fixedDelayString = "${catalog.facets.reloadIntervalMillis}")
+    public synchronized void reload() {
+        long started = System.nanoTime();
+        try {
+            FacetSnapshot.Builder builder = new FacetSnapshot.Builder(snapshot.size, null);
+            double afterPrice = -Double.MAX_VALUE;
+            long afterId = 0;
+            List<ProductDAO.FacetRow> page;
+            do {
+                page = productDAO.findFacetRowsAfter(afterPrice, afterId, PageRequest.of(0, PAGE_SIZE));
+                for (ProductDAO.FacetRow row : page) {
+                    builder.add(row.getId(), row.getCategoryId(), row.getPrice());
+                    afterPrice = row.getPrice();
+                    afterId = row.getId();
+                }
+            } while (page.size() == PAGE_SIZE);
+
+            FacetSnapshot loaded = builder.build();
+            Map<Long, Row> changes = drainPending();
+            snapshot = changes.isEmpty() ? loaded : loaded.with(changes);
+            ready = true;
+            logger.info("Catalog facets loaded: {} products in {} categories in {} ms", snapshot.size,
+                    snapshot.categoryIds.length, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        } catch (RuntimeException ex) {
+            // Keep the previous snapshot; queued changes stay queued for the next refresh
+            logger.error("Failed to load catalog facets", ex);
+        }
+    }
+
+    private Map<Long, Row> drainPending() {
+        synchronized (pendingLock) {
+            if (pending.isEmpty()) {
+                return Map.of();
+            }
+            Map<Long, Row> changes = pending;
+            pending = new HashMap<>();
+            return changes;
+        }
+    }
+
+    // Ordinals of the requested categories, or null for no category filter
+    private static int[] ordinals(FacetSnapshot facets, Collection<Long> categoryIds) {
+        if (categoryIds == null || categoryIds.isEmpty()) {
+            return null;
+        }
+        return categoryIds.stream().distinct()
+                .mapToInt(facets::ordinal)
+                .filter(ordinal -> ordinal >= 0)
+                .toArray();
+    }
+
+    private static double parsePrice(String value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.backend.ecommerce.products.product.facet;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable column store of the catalog for filtering and facet counts: one primitive array per column,
+ * rows ordered by (price, id), plus a bitset over the rows for each category. A price range is therefore
+ * a contiguous slice found by binary search, and counting a category within it is a popcount over the
+ * slice's words.
+ */
+final class FacetSnapshot {
+
+    // A product as the facets see it; a null category marks a deleted product in a change set
+    record Row(long id, Long categoryId, double price) {
+        static final Comparator<Row> ORDER = Comparator.comparingDouble(Row::price).thenComparingLong(Row::id);
+    }
+
+    final int size;
+    final long[] ids;
+    final double[] prices;
+    // Category ordinal per row
+    final int[] categories;
+    // Ordinal to category id; categories are never removed, an emptied one just counts zero
+    final long[] categoryIds;
+    final long[][] categoryBits;
+    private final Map<Long, Integer> ordinals;
+
+    private FacetSnapshot(int size, long[] ids, double[] prices, int[] categories, long[] categoryIds,
+                          Map<Long, Integer> ordinals) {
+        this.size = size;
+        this.ids = ids;
+        this.prices = prices;
+        this.categories = categories;
+        this.categoryIds = categoryIds;
+        this.ordinals = ordinals;
+        this.categoryBits = new long[categoryIds.length][(size + 63) >>> 6];
+        for (int i = 0; i < size; i++) {
+            categoryBits[categories[i]][i >>> 6] |= 1L << i;
+        }
+    }
+
+    static FacetSnapshot empty() {
+        return new Builder(0, null).build();
+    }
+
+    int ordinal(long categoryId) {
+        Integer ordinal = ordinals.get(categoryId);
+        return ordinal == null ? -1 : ordinal;
+    }
+
+    // First row with price >= min
+    int lowerBound(double min) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (prices[mid] < min) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // First row with price > max
+    int upperBound(double max) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (prices[mid] <= max) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // First row strictly after (price, id), for resuming from a cursor
+    int after(double price, long id) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (prices[mid] < price || (prices[mid] == price && ids[mid] <= id)) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // Rows of the category within [from, to)
+    int count(int ordinal, int from, int to) {
+        if (from >= to) {
+            return 0;
+        }
+        long[] bits = categoryBits[ordinal];
+        int first = from >>> 6;
+        int last = (to - 1) >>> 6;
+        // Shifts use the low six bits, so -1L << from keeps bits from (from % 64) up
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> (63 - ((to - 1) & 63));
+        if (first == last) {
+            return Long.bitCount(bits[first] & firstMask & lastMask);
+        }
+        int count = Long.bitCount(bits[first] & firstMask);
+        for (int w = first + 1; w < last; w++) {
+            count += Long.bitCount(bits[w]);
+        }
+        return count + Long.bitCount(bits[last] & lastMask);
+    }
+
+    /**
+     * New snapshot with the changes applied. Both sides are already in row order, so this is a single merge
+     * pass that reuses the category ordinals, not a re-sort.
+     */
+    FacetSnapshot with(Map<Long, Row> changes) {
+        long[] changedIds = new long[changes.size()];
+        int n = 0;
+        for (Long id : changes.keySet()) {
+            changedIds[n++] = id;
+        }
+        Arrays.sort(changedIds);
+        Row[] inserts = changes.values().stream()
+                .filter(row -> row.categoryId() != null)
+                .sorted(Row.ORDER)
+                .toArray(Row[]::new);
+
+        Builder builder = new Builder(size + inserts.length, this);
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            if (Arrays.binarySearch(changedIds, ids[i]) >= 0) {
+                continue;
+            }
+            while (j < inserts.length && (inserts[j].price() < prices[i]
+                    || (inserts[j].price() == prices[i] && inserts[j].id() < ids[i]))) {
+                builder.add(inserts[j++]);
+            }
+            builder.addWithOrdinal(ids[i], categories[i], prices[i]);
+        }
+        while (j < inserts.length) {
+            builder.add(inserts[j++]);
+        }
+        return builder.build();
+    }
+
+    // Collects rows that arrive in (price, id) order
+    static final class Builder {
+        private int size;
+        private long[] ids;
+        private double[] prices;
+        private int[] categories;
+        private long[] categoryIds;
+        private final Map<Long, Integer> ordinals;
+
+        Builder(int expectedSize, FacetSnapshot base) {
+            int capacity = Math.max(16, expectedSize);
+            this.ids = new long[capacity];
+            this.prices = new double[capacity];
+            this.categories = new int[capacity];
+            this.categoryIds = base == null ? new long[0] : base.categoryIds.clone();
+            this.ordinals = base == null ? new HashMap<>() : new HashMap<>(base.ordinals);
+        }
+
+        void add(Row row) {
+            add(row.id(), row.categoryId(), row.price());
+        }
+
+        void add(long id, long categoryId, double price) {
+            addWithOrdinal(id, ordinal(categoryId), price);
+        }
+
+        // For rows copied from the base snapshot, whose ordinals this builder shares
+        void addWithOrdinal(long id, int ordinal, double price) {
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                prices = Arrays.copyOf(prices, capacity);
+                categories = Arrays.copyOf(categories, capacity);
+            }
+            ids[size] = id;
+            prices[size] = price;
+            categories[size] = ordinal;
+            size++;
+        }
+
+        private int ordinal(long categoryId) {
+            Integer ordinal = ordinals.get(categoryId);
+            if (ordinal == null) {
+                ordinal = categoryIds.length;
+                categoryIds = Arrays.copyOf(categoryIds, ordinal + 1);
+                categoryIds[ordinal] = categoryId;
+                ordinals.put(categoryId, ordinal);
+            }
+            return ordinal;
+        }
+
+        FacetSnapshot build() {
+            return new FacetSnapshot(size, ids, prices, categories, categoryIds, Map.copyOf(ordinals));
+        }
+    }
+}
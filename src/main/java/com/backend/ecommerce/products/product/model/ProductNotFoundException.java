@@ -1,11 +1,29 @@
 package com.backend.ecommerce.products.product.model;
 
+import java.util.Collection;
+import java.util.List;
+
 public class ProductNotFoundException extends RuntimeException {
+
+    // Every requested id that didn't resolve, so a caller can report them all at once
+    private final List<Long> productIds;
+
     public ProductNotFoundException(Long productId) {
         super("Product not found with ID: " + productId);
+        this.productIds = List.of(productId);
+    }
+
+    public ProductNotFoundException(Collection<Long> productIds) {
+        super("Products not found with IDs: " + productIds);
+        this.productIds = List.copyOf(productIds);
     }
 
     public ProductNotFoundException(String message) {
         super(message);
+        this.productIds = List.of();
+    }
+
+    public List<Long> getProductIds() {
+        return productIds;
     }
 }
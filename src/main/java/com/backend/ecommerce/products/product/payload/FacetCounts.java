@@ -0,0 +1,82 @@
+package com.backend.ecommerce.products.product.payload;
+
+import java.util.List;
+
+/**
+ * Facet counts for a catalog filter. Category counts honour the price range but not the category filter,
+ * and price band counts honour the category filter but not the price range, so each facet shows what
+ * picking another value would return. {@code total} honours both.
+ */
+public class FacetCounts {
+
+    private final int total;
+    private final List<CategoryCount> categories;
+    private final List<PriceBandCount> priceBands;
+
+    public FacetCounts(int total, List<CategoryCount> categories, List<PriceBandCount> priceBands) {
+        this.total = total;
+        this.categories = categories;
+        this.priceBands = priceBands;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public List<CategoryCount> getCategories() {
+        return categories;
+    }
+
+    public List<PriceBandCount> getPriceBands() {
+        return priceBands;
+    }
+
+    public static class CategoryCount {
+        private final Long id;
+        private final String name;
+        private final int count;
+
+        public CategoryCount(Long id, String name, int count) {
+            this.id = id;
+            this.name = name;
+            this.count = count;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getCount() {
+            return count;
+        }
+    }
+
+    // Products priced from min (inclusive) up to max (exclusive); max is null for the last, open band
+    public static class PriceBandCount {
+        private final double min;
+        private final Double max;
+        private final int count;
+
+        public PriceBandCount(double min, Double max, int count) {
+            this.min = min;
+            this.max = max;
+            this.count = count;
+        }
+
+        public double getMin() {
+            return min;
+        }
+
+        public Double getMax() {
+            return max;
+        }
+
+        public int getCount() {
+            return count;
+        }
+    }
+}
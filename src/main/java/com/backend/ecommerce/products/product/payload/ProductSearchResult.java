@@ -0,0 +1,34 @@
+package com.backend.ecommerce.products.product.payload;
+
+import java.util.List;
+
+/**
+ * One window of search hits, best match first. {@code total} counts every product matching the query
+ * and filters, not only the ones returned. For queries matching a large part of the catalog, products that
+ * can't make it into the window may be skipped uncounted; {@code totalExact} is false then and {@code total}
+ * is a lower bound.
+ */
+public class ProductSearchResult {
+
+    private final List<ProductView> items;
+    private final int total;
+    private final boolean totalExact;
+
+    public ProductSearchResult(List<ProductView> items, int total, boolean totalExact) {
+        this.items = items;
+        this.total = total;
+        this.totalExact = totalExact;
+    }
+
+    public List<ProductView> getItems() {
+        return items;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public boolean isTotalExact() {
+        return totalExact;
+    }
+}
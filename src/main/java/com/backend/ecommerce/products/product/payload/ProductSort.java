@@ -0,0 +1,22 @@
+package com.backend.ecommerce.products.product.payload;
+
+import java.util.Locale;
+
+// Orders a catalog listing can be paged in; every one is backed by an index ending in the product id
+public enum ProductSort {
+    ID,
+    PRICE,
+    NAME;
+
+    public static ProductSort from(String value) {
+        try {
+            return valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Unsupported sort: " + value);
+        }
+    }
+
+    public String key() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,77 @@
+package com.backend.ecommerce.products.product.payload;
+
+import com.backend.ecommerce.products.category.model.Category;
+import com.backend.ecommerce.products.product.model.Product;
+
+/**
+ * Read model for catalog listings, built straight from a JPQL constructor expression so no Product,
+ * Category or seller entities are hydrated. Serializes to the same JSON shape as {@code Product}.
+ */
+public class ProductView {
+
+    private final Long id;
+    private final String name;
+    private final Double price;
+    private final String description;
+    private final String imageUrl;
+    private final CategorySummary category;
+
+    public ProductView(Long id, String name, Double price, String description, String imageUrl,
+                       Long categoryId, String categoryName) {
+        this.id = id;
+        this.name = name;
+        this.price = price;
+        this.description = description;
+        this.imageUrl = imageUrl;
+        this.category = new CategorySummary(categoryId, categoryName);
+    }
+
+    // Same view from an entity already in memory, e.g. one just saved
+    public static ProductView of(Product product) {
+        Category category = product.getCategory();
+        return new ProductView(product.getId(), product.getName(), product.getPrice(), product.getDescription(),
+                product.getImageUrl(), category.getId(), category.getName());
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Double getPrice() {
+        return price;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getImageUrl() {
+        return imageUrl;
+    }
+
+    public CategorySummary getCategory() {
+        return category;
+    }
+
+    public static class CategorySummary {
+        private final Long id;
+        private final String name;
+
+        public CategorySummary(Long id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.backend.ecommerce.products.product.search;
+
+import com.backend.ecommerce.products.product.dao.ProductDAO;
+import com.backend.ecommerce.products.product.payload.ProductView;
+import com.backend.ecommerce.products.product.search.SuggestionTrie.Suggestion;
+import com.backend.ecommerce.products.product.service.ProductChangeListener;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * As-you-type product name suggestions from an in-memory {@link SuggestionTrie}. Products with the same
+ * normalized name share one suggestion, weighted by how many units of them have been ordered, plus one
+ * per product so unsold names still rank by how common they are.
+ * <p>
+ * Renames, new products and deletes through this instance are applied after commit; weights and writes
+ * made through other instances are refreshed by the periodic rebuild.
+ */
+@Component
+public class ProductNameSuggester implements ProductChangeListener, MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductNameSuggester.class);
+    private static final int PAGE_SIZE = 5000;
+    private static final int MAX_KEY_LENGTH = 100;
+
+    private final ProductDAO productDAO;
+    private final int maxResults;
+
+    private volatile SuggestionTrie trie;
+    private volatile boolean ready;
+
+    // Guards names and trie updates. While a rebuild runs, changes are also queued in pending (null for a
+    // delete) and replayed onto the rebuilt names, which may have been read before they committed.
+    private final Object writeLock = new Object();
+    private Names names = new Names();
+    private Map<Long, String> pending;
+
+    public ProductNameSuggester(ProductDAO productDAO,
+                                @Value("${catalog.suggest.maxResults}") int maxResults) {
+        this.productDAO = productDAO;
+        this.maxResults = maxResults;
+        this.trie = SuggestionTrie.empty(maxResults);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("catalog.suggest.names", this, suggester -> suggester.names.bySuggestionKey.size())
+                .register(registry);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int getMaxResults() {
+        return maxResults;
+    }
+
+    // Best completions of the prefix, at most maxResults. The list is shared and must not be modified.
+    public List<String> suggest(String prefix, int limit) {
+        String key = SearchAnalyzer.normalize(prefix);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        // A trailing space means the last word is complete: "red " shouldn't suggest "reddish"
+        if (Character.isWhitespace(prefix.charAt(prefix.length() - 1))) {
+            key = key + ' ';
+        }
+        List<String> completions = trie.complete(key.length() > MAX_KEY_LENGTH ? key.substring(0, MAX_KEY_LENGTH) : key);
+        return completions.size() <= limit ? completions : completions.subList(0, limit);
+    }
+
+    @Override
+    public void productSaved(ProductView product) {
+        synchronized (writeLock) {
+            apply(product.getId(), product.getName());
+            if (pending != null) {
+                pending.put(product.getId(), product.getName());
+            }
+        }
+    }
+
+    @Override
+    public void productDeleted(Long productId) {
+        synchronized (writeLock) {
+            apply(productId, null);
+            if (pending != null) {
+                pending.put(productId, null);
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${catalog.suggest.rebuildIntervalMillis}",
+            fixedDelayString = "${catalog.suggest.rebuildIntervalMillis}")
+    public synchronized void rebuild() {
+        synchronized (writeLock) {
+            pending = new LinkedHashMap<>();
+        }
+        try {
+            Map<Long, Long> unitsSold = new HashMap<>();
+            for (ProductDAO.UnitsSold sold : productDAO.findUnitsSold()) {
+                unitsSold.put(sold.getProductId(), sold.getUnits());
+            }
+
+            Names loaded = new Names();
+            long afterId = 0;
+            List<ProductDAO.ProductName> page;
+            do {
+                page = productDAO.findNamesAfter(afterId, PageRequest.of(0, PAGE_SIZE));
+                for (ProductDAO.ProductName product : page) {
+                    loaded.put(product.getId(), product.getName(), 1 + unitsSold.getOrDefault(product.getId(), 0L));
+                    afterId = product.getId();
+                }
+            } while (page.size() == PAGE_SIZE);
+            SuggestionTrie built = SuggestionTrie.build(loaded.suggestions(), maxResults);
+
+            synchronized (writeLock) {
+                names = loaded;
+                trie = built;
+                pending.forEach(this::apply);
+            }
+            ready = true;
+            logger.info("Autocomplete rebuilt: {} names from {} products",
+                    loaded.bySuggestionKey.size(), loaded.byProduct.size());
+        } catch (RuntimeException ex) {
+            // Keep the previous trie; it only lacks names and sales from other instances
+            logger.error("Failed to rebuild autocomplete", ex);
+        } finally {
+            synchronized (writeLock) {
+                pending = null;
+            }
+        }
+    }
+
+    // Holds the write lock; a null name removes the product
+    private void apply(Long productId, String name) {
+        SuggestionTrie updated = trie;
+        for (String key : names.put(productId, name, -1)) {
+            Suggestion suggestion = names.suggestion(key);
+            updated = suggestion == null ? updated.without(key) : updated.with(suggestion);
+        }
+        trie = updated;
+    }
+
+    private static String key(String name) {
+        String key = SearchAnalyzer.normalize(name);
+        return key.length() > MAX_KEY_LENGTH ? key.substring(0, MAX_KEY_LENGTH) : key;
+    }
+
+    private record Named(String key, long weight) {
+    }
+
+    private record Aggregate(String text, long weight, int products) {
+    }
+
+    // Writer-only mapping of products to their suggestion keys, and of keys to the combined suggestion
+    private static final class Names {
+        final Map<Long, Named> byProduct = new HashMap<>();
+        final Map<String, Aggregate> bySuggestionKey = new HashMap<>();
+
+        /**
+         * Points the product at its (new) name, or drops it for a null name. A negative weight keeps the
+         * product's current weight, or 1 for a product not seen before. Returns the keys whose suggestion
+         * changed.
+         */
+        List<String> put(Long productId, String name, long weight) {
+            List<String> changed = new ArrayList<>(2);
+            Named previous = byProduct.remove(productId);
+            if (previous != null) {
+                bySuggestionKey.computeIfPresent(previous.key(), (key, aggregate) -> aggregate.products() == 1 ? null
+                        : new Aggregate(aggregate.text(), aggregate.weight() - previous.weight(), aggregate.products() - 1));
+                changed.add(previous.key());
+            }
+            String key = name == null ? "" : key(name);
+            if (key.isEmpty()) {
+                return changed;
+            }
+            long productWeight = weight >= 0 ? weight : previous != null ? previous.weight() : 1;
+            byProduct.put(productId, new Named(key, productWeight));
+            bySuggestionKey.merge(key, new Aggregate(name.trim(), productWeight, 1), (existing, added) ->
+                    new Aggregate(existing.text(), existing.weight() + added.weight(), existing.products() + 1));
+            if (!changed.contains(key)) {
+                changed.add(key);
+            }
+            return changed;
+        }
+
+        Suggestion suggestion(String key) {
+            Aggregate aggregate = bySuggestionKey.get(key);
+            return aggregate == null ? null : new Suggestion(key, aggregate.text(), aggregate.weight());
+        }
+
+        List<Suggestion> suggestions() {
+            List<Suggestion> suggestions = new ArrayList<>(bySuggestionKey.size());
+            bySuggestionKey.forEach((key, aggregate) -> suggestions.add(new Suggestion(key, aggregate.text(), aggregate.weight())));
+            return suggestions;
+        }
+    }
+}
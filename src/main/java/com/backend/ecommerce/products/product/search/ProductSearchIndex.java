@@ -0,0 +1,743 @@
+package com.backend.ecommerce.products.product.search;
+
+import com.backend.ecommerce.products.product.dao.ProductDAO;
+import com.backend.ecommerce.products.product.payload.ProductSearchResult;
+import com.backend.ecommerce.products.product.payload.ProductView;
+import com.backend.ecommerce.products.product.service.ProductChangeListener;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process inverted index over product names and descriptions, ranked with BM25. A name term counts
+ * {@value #NAME_WEIGHT} times as much as a description term, and the last query term also matches as a
+ * prefix so as-you-type queries work. Every query term has to match.
+ * <p>
+ * Postings keep each document's term frequency and, per chunk of {@value #CHUNK_SIZE}, the highest frequency
+ * and shortest document in it. Once the top window is full and enough matches have been counted, chunks and
+ * documents whose best possible score can't beat the window's worst hit are skipped without being looked at
+ * (block-max pruning); {@code total} is then a lower bound.
+ * <p>
+ * Readers never lock. Postings are append-only arrays published through volatile blocks; an updated or
+ * deleted product is only marked dead, and its postings are dropped by the next rebuild. Writes through
+ * this instance arrive after commit as a {@link ProductChangeListener}; the periodic rebuild picks up
+ * writes made through other instances.
+ */
+@Component
+public class ProductSearchIndex implements ProductChangeListener, MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchIndex.class);
+    private static final int PAGE_SIZE = 5000;
+    private static final int NAME_WEIGHT = 3;
+    private static final int MAX_QUERY_TERMS = 8;
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final int CHUNK_SHIFT = 7;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    // Frequencies are stored in a byte; the top value stands for itself and anything above
+    private static final int MAX_STORED_TF = 255;
+    // Bounds and scores add the same floats in a different order, so leave room for rounding
+    private static final float PRUNE_SLACK = 0.9999f;
+
+    private final ProductDAO productDAO;
+    private final Timer queries;
+    // Matches counted exactly before pruning may start
+    private final int trackTotalHits;
+
+    private volatile Segment current = new Segment();
+    // False until the first build completes; an empty index would answer every query with nothing
+    private volatile boolean ready;
+
+    // Guards segment writes. While a rebuild runs, changes go to both segments, and the products they touch
+    // are remembered so the rebuild doesn't overwrite them with rows it read before the change committed.
+    private final Object writeLock = new Object();
+    private Segment building;
+    private final Set<Long> changedDuringRebuild = new HashSet<>();
+
+    public ProductSearchIndex(ProductDAO productDAO,
+                              @Value("${catalog.search.trackTotalHits}") int trackTotalHits,
+                              MeterRegistry meterRegistry) {
+        this.productDAO = productDAO;
+        this.trackTotalHits = trackTotalHits;
+        this.queries = Timer.builder("catalog.search.queries").register(meterRegistry);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("catalog.search.documents", this, index -> index.current.liveDocs).register(registry);
+        Gauge.builder("catalog.search.deadDocuments", this, index -> index.current.deadDocs).register(registry);
+        Gauge.builder("catalog.search.terms", this, index -> index.current.termCount).register(registry);
+        Gauge.builder("catalog.search.ready", this, index -> index.ready ? 1 : 0).register(registry);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public ProductSearchResult search(String query, Long categoryId, Double minPrice, Double maxPrice,
+                                      int offset, int limit) {
+        return queries.record(() -> find(query, categoryId, minPrice, maxPrice, offset, limit));
+    }
+
+    @Override
+    public void productSaved(ProductView product) {
+        Analyzed analyzed = analyze(product);
+        synchronized (writeLock) {
+            current.put(analyzed);
+            if (building != null) {
+                building.put(analyzed);
+                changedDuringRebuild.add(product.getId());
+            }
+        }
+    }
+
+    @Override
+    public void productDeleted(Long productId) {
+        synchronized (writeLock) {
+            current.remove(productId);
+            if (building != null) {
+                building.remove(productId);
+                changedDuringRebuild.add(productId);
+            }
+        }
+    }
+
+    // Indexing a large catalog takes tens of seconds, so the first build doesn't hold up startup; until it
+    // completes isReady() is false and searches find nothing
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildInBackground() {
+        Thread thread = new Thread(this::rebuild, "product-search-index-build");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Builds a fresh segment from the database and swaps it in. The next page is fetched while the previous
+     * one is analyzed across the common pool, so the build is bound by the database rather than tokenizing.
+     */
+    @Scheduled(initialDelayString = "${catalog.search.rebuildIntervalMillis}",
+            fixedDelayString = "${catalog.search.rebuildIntervalMillis}")
+    public synchronized void rebuild() {
+        long started = System.nanoTime();
+        Segment segment = new Segment();
+        synchronized (writeLock) {
+            building = segment;
+        }
+        try {
+            CompletableFuture<Void> indexing = CompletableFuture.completedFuture(null);
+            long afterId = 0;
+            List<ProductView> page;
+            do {
+                page = productDAO.findPageById(afterId, PageRequest.of(0, PAGE_SIZE));
+                if (!page.isEmpty()) {
+                    afterId = page.get(page.size() - 1).getId();
+                }
+                List<ProductView> batch = page;
+                indexing.join();
+                indexing = CompletableFuture.runAsync(() -> index(segment, batch));
+            } while (page.size() == PAGE_SIZE);
+            indexing.join();
+
+            synchronized (writeLock) {
+                current = segment;
+            }
+            ready = true;
+            logger.info("Product search index rebuilt: {} products, {} terms in {} ms", segment.liveDocs,
+                    segment.termCount, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        } catch (RuntimeException ex) {
+            // Keep serving the previous segment; it only lacks writes made through other instances
+            logger.error("Failed to rebuild product search index", ex);
+        } finally {
+            synchronized (writeLock) {
+                building = null;
+                changedDuringRebuild.clear();
+            }
+        }
+    }
+
+    private void index(Segment segment, List<ProductView> products) {
+        List<Analyzed> analyzed = products.parallelStream().map(ProductSearchIndex::analyze).toList();
+        synchronized (writeLock) {
+            for (Analyzed product : analyzed) {
+                if (!changedDuringRebuild.contains(product.view().getId())) {
+                    segment.put(product);
+                }
+            }
+        }
+    }
+
+    private ProductSearchResult find(String query, Long categoryId, Double minPrice, Double maxPrice,
+                                     int offset, int limit) {
+        Segment segment = current;
+        List<String> terms = SearchAnalyzer.queryTerms(query, MAX_QUERY_TERMS);
+        int liveDocs = segment.liveDocs;
+        if (!ready || terms.isEmpty() || liveDocs <= 0) {
+            return new ProductSearchResult(List.of(), 0, true);
+        }
+
+        List<Clause> clauses = new ArrayList<>(terms.size());
+        for (int i = 0; i < terms.size(); i++) {
+            Clause clause = segment.clause(terms.get(i), i == terms.size() - 1, liveDocs);
+            if (clause == null) {
+                return new ProductSearchResult(List.of(), 0, true);
+            }
+            clauses.add(clause);
+        }
+        // Candidates come from the rarest clause; the others are checked against each candidate's own terms
+        clauses.sort(Comparator.comparingLong(clause -> clause.postingCount));
+        Clause driving = clauses.get(0);
+        Clause prefix = null;
+        for (Clause clause : clauses) {
+            if (clause != driving && clause.blocks.length > 1) {
+                prefix = clause;
+            }
+        }
+
+        // Read after the posting blocks, so every ordinal in them has its document in this array
+        Doc[] docs = segment.docs;
+        float avgLength = Math.max(1f, (float) segment.liveLength / liveDocs);
+        Filter filter = new Filter(clauses, categoryId, minPrice, maxPrice, avgLength);
+        TopHits top = new TopHits(offset + limit, trackTotalHits);
+
+        if (prefix == null) {
+            top.seen = driving.blocks.length > 1 ? new BitSet() : null;
+            scan(driving, 0, others(clauses, driving, null), 0, docs, filter, top);
+        } else {
+            // A prefix's rarest completions score far above its common ones, so bounding the prefix by its best
+            // completion would stop any pruning while scanning the driving clause. The completions rarer than the
+            // driving clause are scanned first instead; after that, only documents with a common completion are
+            // left, and those are bounded by the best common completion.
+            top.seen = new BitSet();
+            scan(prefix, driving.postingCount, others(clauses, prefix, null), 0, docs, filter, top);
+            float commonBound = prefix.upperBound(avgLength, driving.postingCount);
+            if (commonBound > 0) {
+                scan(driving, 0, others(clauses, driving, prefix), commonBound, docs, filter, top);
+            }
+        }
+
+        List<Hit> hits = new ArrayList<>(top.hits);
+        hits.sort(Hit.WORST_FIRST.reversed());
+        List<ProductView> items = new ArrayList<>(Math.max(0, hits.size() - offset));
+        for (int i = offset; i < hits.size(); i++) {
+            items.add(hits.get(i).doc.view);
+        }
+        return new ProductSearchResult(List.copyOf(items), top.total, top.exact);
+    }
+
+    // Every clause except the given ones; all of them are single terms, only the last query term is a prefix
+    private static Clause[] others(List<Clause> clauses, Clause scanned, Clause excluded) {
+        List<Clause> others = new ArrayList<>(clauses.size());
+        for (Clause clause : clauses) {
+            if (clause != scanned && clause != excluded) {
+                others.add(clause);
+            }
+        }
+        return others.toArray(new Clause[0]);
+    }
+
+    /**
+     * Scores the documents in the clause's postings lists shorter than {@code maxPostings} (0 for all of them),
+     * highest-idf terms first so the window fills with strong hits early. Each candidate is first looked up in
+     * the {@code required} single-term clauses' postings, which rejects non-matches and bounds the score
+     * without reading the document; {@code extraBound} covers any clause left out of both. Chunks and
+     * documents that can't beat the window are skipped.
+     */
+    private static void scan(Clause clause, long maxPostings, Clause[] required, float extraBound, Doc[] docs,
+                             Filter filter, TopHits top) {
+        float avgLength = filter.avgLength;
+        float requiredBound = extraBound;
+        for (Clause other : required) {
+            requiredBound += other.upperBound(avgLength, 0);
+        }
+        Integer[] order = new Integer[clause.blocks.length];
+        for (int b = 0; b < order.length; b++) {
+            order[b] = b;
+        }
+        Arrays.sort(order, (a, b) -> Float.compare(clause.idfs[b], clause.idfs[a]));
+        Cursor[] cursors = new Cursor[required.length];
+        for (int b : order) {
+            Block block = clause.blocks[b];
+            if (maxPostings > 0 && block.size() >= maxPostings) {
+                continue;
+            }
+            float idf = clause.idfs[b];
+            // Ordinals only ascend within one list, so the cursors start over for each
+            for (int c = 0; c < required.length; c++) {
+                cursors[c] = new Cursor(required[c].blocks[0]);
+            }
+            chunks:
+            for (int from = 0; from < block.size(); from += CHUNK_SIZE) {
+                int chunk = from >>> CHUNK_SHIFT;
+                int minLength = block.chunkMinLengths()[chunk];
+                if (idf * tfBound(block.chunkMaxTf(chunk), minLength, avgLength) + requiredBound < top.threshold) {
+                    top.exact = false;
+                    continue;
+                }
+                int to = Math.min(block.size(), from + CHUNK_SIZE);
+                candidates:
+                for (int i = from; i < to; i++) {
+                    int ordinal = block.ordinals()[i];
+                    float bound = idf * tfBound(block.tf(i), minLength, avgLength) + extraBound;
+                    for (int c = 0; c < required.length; c++) {
+                        Cursor cursor = cursors[c];
+                        if (!cursor.advance(ordinal)) {
+                            if (cursor.exhausted()) {
+                                // Nothing further down this list has the term either
+                                break chunks;
+                            }
+                            continue candidates;
+                        }
+                        bound += required[c].idfs[0] * cursor.tfBound(avgLength);
+                    }
+                    if (bound < top.threshold) {
+                        // Not marked as seen: a prefix clause may still reach it through a better-scoring term
+                        top.exact = false;
+                        continue;
+                    }
+                    if (top.seen != null) {
+                        if (top.seen.get(ordinal)) {
+                            continue;
+                        }
+                        top.seen.set(ordinal);
+                    }
+                    Doc doc = docs[ordinal];
+                    float score = filter.score(doc);
+                    if (score > 0) {
+                        top.offer(doc, score);
+                    }
+                }
+            }
+        }
+    }
+
+    // Term frequencies per product, name terms weighted up; runs outside the write lock
+    private static Analyzed analyze(ProductView product) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String term : SearchAnalyzer.terms(product.getName())) {
+            frequencies.merge(term, NAME_WEIGHT, Integer::sum);
+        }
+        for (String term : SearchAnalyzer.terms(product.getDescription())) {
+            frequencies.merge(term, 1, Integer::sum);
+        }
+        String[] terms = new String[frequencies.size()];
+        int[] tfs = new int[terms.length];
+        int i = 0;
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            terms[i] = entry.getKey();
+            tfs[i++] = entry.getValue();
+        }
+        return new Analyzed(product, terms, tfs);
+    }
+
+    /**
+     * Highest BM25 term-frequency component any document with at most this frequency and at least this length
+     * can have. The component grows with the frequency and shrinks with the length, whatever the average length.
+     */
+    private static float tfBound(int tf, int minLength, float avgLength) {
+        if (tf >= MAX_STORED_TF) {
+            // The limit as the frequency grows
+            return K1 + 1;
+        }
+        return tf * (K1 + 1) / (tf + K1 * (1 - B + B * minLength / avgLength));
+    }
+
+    private static float idf(int docFrequency, int liveDocs) {
+        // Stats are updated without coordinating with readers, so clamp rather than trust df <= N
+        return (float) Math.max(0.0001, Math.log(1 + (liveDocs - docFrequency + 0.5) / (docFrequency + 0.5)));
+    }
+
+    private record Analyzed(ProductView view, String[] terms, int[] tfs) {
+    }
+
+    // A product as indexed in one segment; live turns false once it's updated or deleted
+    private static final class Doc {
+        final ProductView view;
+        final Long categoryId;
+        final double price;
+        // Segment term ids in ascending order, with their weighted frequencies
+        final int[] termIds;
+        final int[] tfs;
+        final int length;
+        volatile boolean live = true;
+
+        Doc(ProductView view, int[] termIds, int[] tfs) {
+            this.view = view;
+            this.categoryId = view.getCategory().getId();
+            this.price = view.getPrice() == null ? 0 : view.getPrice();
+            this.termIds = termIds;
+            this.tfs = tfs;
+            int length = 0;
+            for (int tf : tfs) {
+                length += tf;
+            }
+            this.length = length;
+        }
+
+        boolean matches(Long categoryId, Double minPrice, Double maxPrice) {
+            return (categoryId == null || categoryId.equals(this.categoryId))
+                    && (minPrice == null || price >= minPrice)
+                    && (maxPrice == null || price <= maxPrice);
+        }
+
+        // BM25 term-frequency component for the term at index i of termIds
+        float tfWeight(int i, float avgLength) {
+            float tf = tfs[i];
+            return tf * (K1 + 1) / (tf + K1 * (1 - B + B * length / avgLength));
+        }
+    }
+
+    /**
+     * Immutable view of a postings list; appends share the arrays and publish a longer block. Next to each
+     * ordinal is the document's frequency (capped at {@value #MAX_STORED_TF}), and per chunk the highest of
+     * those and the shortest document. An append can only raise the last chunk's maximum or lower its minimum,
+     * so a reader holding an older block still gets valid bounds. The whole list's extremes come along too.
+     */
+    private record Block(int[] ordinals, byte[] tfs, byte[] chunkMaxTfs, int[] chunkMinLengths, int size,
+                         int maxTf, int minLength) {
+        static final Block EMPTY = new Block(new int[0], new byte[0], new byte[0], new int[0], 0, 0, Integer.MAX_VALUE);
+
+        int tf(int i) {
+            return tfs[i] & 0xFF;
+        }
+
+        int chunkMaxTf(int chunk) {
+            return chunkMaxTfs[chunk] & 0xFF;
+        }
+    }
+
+    private static final class Postings {
+        final int termId;
+        volatile Block block = Block.EMPTY;
+        // Live documents containing the term; the block may also hold dead ones
+        volatile int docFrequency;
+
+        Postings(int termId) {
+            this.termId = termId;
+        }
+
+        // Writers hold the index write lock
+        void add(int ordinal, int tf, int length) {
+            Block current = block;
+            int size = current.size();
+            int[] ordinals = current.ordinals();
+            byte[] tfs = current.tfs();
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, Math.max(4, ordinals.length * 2));
+                tfs = Arrays.copyOf(tfs, ordinals.length);
+            }
+            int chunk = size >>> CHUNK_SHIFT;
+            byte[] chunkMaxTfs = current.chunkMaxTfs();
+            int[] chunkMinLengths = current.chunkMinLengths();
+            if (chunk == chunkMaxTfs.length) {
+                chunkMaxTfs = Arrays.copyOf(chunkMaxTfs, Math.max(1, chunkMaxTfs.length * 2));
+                chunkMinLengths = Arrays.copyOf(chunkMinLengths, chunkMaxTfs.length);
+            }
+            byte stored = (byte) Math.min(tf, MAX_STORED_TF);
+            ordinals[size] = ordinal;
+            tfs[size] = stored;
+            if ((size & (CHUNK_SIZE - 1)) == 0) {
+                // First entry of the chunk; no published block covers this slot yet
+                chunkMaxTfs[chunk] = stored;
+                chunkMinLengths[chunk] = length;
+            } else {
+                chunkMaxTfs[chunk] = (byte) Math.max(chunkMaxTfs[chunk] & 0xFF, stored & 0xFF);
+                chunkMinLengths[chunk] = Math.min(chunkMinLengths[chunk], length);
+            }
+            block = new Block(ordinals, tfs, chunkMaxTfs, chunkMinLengths, size + 1,
+                    Math.max(current.maxTf(), stored & 0xFF), Math.min(current.minLength(), length));
+            docFrequency++;
+        }
+    }
+
+    // One query term: a single term id, or for a prefix the ids of its expansions in ascending order
+    private static final class Clause {
+        final int[] termIds;
+        final float[] idfs;
+        final Block[] blocks;
+        final long postingCount;
+
+        Clause(int[] termIds, float[] idfs, Block[] blocks) {
+            this.termIds = termIds;
+            this.idfs = idfs;
+            this.blocks = blocks;
+            long count = 0;
+            for (Block block : blocks) {
+                count += block.size();
+            }
+            this.postingCount = count;
+        }
+
+        // Zero when the document doesn't match; a prefix scores as its best-matching expansion
+        float score(Doc doc, float avgLength) {
+            if (termIds.length == 1) {
+                int i = Arrays.binarySearch(doc.termIds, termIds[0]);
+                return i < 0 ? 0 : idfs[0] * doc.tfWeight(i, avgLength);
+            }
+            // Both id lists are sorted, so one merge pass finds the expansions the document contains
+            float best = 0;
+            int i = 0;
+            int j = 0;
+            while (i < doc.termIds.length && j < termIds.length) {
+                if (doc.termIds[i] < termIds[j]) {
+                    i++;
+                } else if (doc.termIds[i] > termIds[j]) {
+                    j++;
+                } else {
+                    best = Math.max(best, idfs[j] * doc.tfWeight(i, avgLength));
+                    i++;
+                    j++;
+                }
+            }
+            return best;
+        }
+
+        // The most this clause can add to a document's score through terms with at least minPostings postings
+        float upperBound(float avgLength, long minPostings) {
+            float bound = 0;
+            for (int i = 0; i < blocks.length; i++) {
+                if (blocks[i].size() > 0 && blocks[i].size() >= minPostings) {
+                    bound = Math.max(bound, idfs[i] * tfBound(blocks[i].maxTf(), blocks[i].minLength(), avgLength));
+                }
+            }
+            return bound;
+        }
+    }
+
+    // Position in a single term's postings, moved forward to each candidate ordinal in turn
+    private static final class Cursor {
+        final Block block;
+        int position;
+
+        Cursor(Block block) {
+            this.block = block;
+        }
+
+        // Gallops to the first posting at or after the ordinal; true if it's the ordinal itself
+        boolean advance(int ordinal) {
+            int[] ordinals = block.ordinals();
+            int size = block.size();
+            if (position >= size || ordinals[position] >= ordinal) {
+                return position < size && ordinals[position] == ordinal;
+            }
+            int low = position;
+            int step = 1;
+            while (low + step < size && ordinals[low + step] < ordinal) {
+                low += step;
+                step <<= 1;
+            }
+            int high = Math.min(size, low + step + 1);
+            int found = Arrays.binarySearch(ordinals, low + 1, high, ordinal);
+            position = found >= 0 ? found : -found - 1;
+            return found >= 0;
+        }
+
+        boolean exhausted() {
+            return position >= block.size();
+        }
+
+        // Bound for the posting the cursor is on
+        float tfBound(float avgLength) {
+            return ProductSearchIndex.tfBound(block.tf(position), block.chunkMinLengths()[position >>> CHUNK_SHIFT],
+                    avgLength);
+        }
+    }
+
+    // Query clauses and filters; the score is zero for documents that don't match
+    private record Filter(List<Clause> clauses, Long categoryId, Double minPrice, Double maxPrice, float avgLength) {
+
+        float score(Doc doc) {
+            if (!doc.live || !doc.matches(categoryId, minPrice, maxPrice)) {
+                return 0;
+            }
+            float score = 0;
+            for (Clause clause : clauses) {
+                float clauseScore = clause.score(doc, avgLength);
+                if (clauseScore <= 0) {
+                    return 0;
+                }
+                score += clauseScore;
+            }
+            return score;
+        }
+    }
+
+    // Bounded heap of the best hits so far, and the score a candidate has to reach to get in
+    private static final class TopHits {
+        final PriorityQueue<Hit> hits;
+        final int window;
+        final int trackTotalHits;
+        // Documents already scored, when the scan can reach a document more than once
+        BitSet seen;
+        int total;
+        boolean exact = true;
+        // Pruning stays off until the window is full and enough matches have been counted
+        float threshold = Float.NEGATIVE_INFINITY;
+
+        TopHits(int window, int trackTotalHits) {
+            this.hits = new PriorityQueue<>(window + 1, Hit.WORST_FIRST);
+            this.window = window;
+            this.trackTotalHits = trackTotalHits;
+        }
+
+        void offer(Doc doc, float score) {
+            total++;
+            if (hits.size() < window) {
+                hits.offer(new Hit(doc, score));
+            } else if (Hit.WORST_FIRST.compare(hits.peek(), new Hit(doc, score)) < 0) {
+                hits.poll();
+                hits.offer(new Hit(doc, score));
+            }
+            if (hits.size() == window && total >= trackTotalHits) {
+                // A candidate scoring exactly the worst hit may still win on id, so only strictly lower bounds are skipped
+                threshold = hits.peek().score() * PRUNE_SLACK;
+            }
+        }
+    }
+
+    private record Hit(Doc doc, float score) {
+        // Lower score first, and on equal scores the higher id, so the heap evicts those first
+        static final Comparator<Hit> WORST_FIRST = Comparator.comparingDouble(Hit::score)
+                .thenComparing(hit -> hit.doc.view.getId(), Comparator.reverseOrder());
+    }
+
+    private static final class Segment {
+        final ConcurrentSkipListMap<String, Postings> terms = new ConcurrentSkipListMap<>();
+        // Writer-only bookkeeping
+        private final List<Postings> byTermId = new ArrayList<>();
+        private final Map<Long, Doc> byProductId = new HashMap<>();
+        private int nextOrdinal;
+
+        // Indexed by ordinal, the position postings refer to
+        volatile Doc[] docs = new Doc[1024];
+        volatile int liveDocs;
+        volatile long liveLength;
+        volatile int deadDocs;
+        volatile int termCount;
+
+        void put(Analyzed product) {
+            remove(product.view().getId());
+            String[] terms = product.terms();
+            Postings[] postings = new Postings[terms.length];
+            long[] sorted = new long[terms.length];
+            for (int i = 0; i < terms.length; i++) {
+                postings[i] = postings(terms[i]);
+                // Term id in the high half, original position in the low half, so sorting keeps tfs aligned
+                sorted[i] = (long) postings[i].termId << 32 | i;
+            }
+            Arrays.sort(sorted);
+            int[] termIds = new int[terms.length];
+            int[] tfs = new int[terms.length];
+            for (int i = 0; i < sorted.length; i++) {
+                termIds[i] = (int) (sorted[i] >>> 32);
+                tfs[i] = product.tfs()[(int) sorted[i]];
+            }
+
+            Doc doc = new Doc(product.view(), termIds, tfs);
+            int ordinal = nextOrdinal++;
+            Doc[] array = docs;
+            if (ordinal == array.length) {
+                array = Arrays.copyOf(array, array.length * 2);
+            }
+            array[ordinal] = doc;
+            // Published before any postings block that refers to the ordinal
+            docs = array;
+            byProductId.put(product.view().getId(), doc);
+            for (int i = 0; i < postings.length; i++) {
+                postings[i].add(ordinal, product.tfs()[i], doc.length);
+            }
+            liveDocs++;
+            liveLength += doc.length;
+        }
+
+        void remove(Long productId) {
+            Doc doc = byProductId.remove(productId);
+            if (doc == null) {
+                return;
+            }
+            doc.live = false;
+            for (int termId : doc.termIds) {
+                byTermId.get(termId).docFrequency--;
+            }
+            liveDocs--;
+            liveLength -= doc.length;
+            deadDocs++;
+        }
+
+        private Postings postings(String term) {
+            Postings postings = terms.get(term);
+            if (postings == null) {
+                postings = new Postings(byTermId.size());
+                byTermId.add(postings);
+                terms.put(term, postings);
+                termCount++;
+            }
+            return postings;
+        }
+
+        // Null when nothing live matches the term, which fails the whole query
+        Clause clause(String term, boolean prefix, int liveDocs) {
+            if (!prefix || term.length() < MIN_PREFIX_LENGTH) {
+                Postings postings = terms.get(term);
+                if (postings == null || postings.docFrequency <= 0) {
+                    return null;
+                }
+                return new Clause(new int[]{postings.termId}, new float[]{idf(postings.docFrequency, liveDocs)},
+                        new Block[]{postings.block});
+            }
+
+            List<Map.Entry<String, Postings>> matches = new ArrayList<>();
+            for (Map.Entry<String, Postings> entry
+                    : terms.subMap(term, true, term + Character.MAX_VALUE, false).entrySet()) {
+                if (entry.getValue().docFrequency > 0) {
+                    matches.add(entry);
+                }
+            }
+            if (matches.isEmpty()) {
+                return null;
+            }
+            if (matches.size() > MAX_PREFIX_EXPANSIONS) {
+                // Keep the exact term and the most common completions
+                matches.sort(Comparator.<Map.Entry<String, Postings>>comparingInt(
+                        entry -> entry.getKey().equals(term) ? Integer.MAX_VALUE : entry.getValue().docFrequency
+                ).reversed());
+                matches = matches.subList(0, MAX_PREFIX_EXPANSIONS);
+            }
+            matches.sort(Comparator.comparingInt(entry -> entry.getValue().termId));
+            int[] termIds = new int[matches.size()];
+            float[] idfs = new float[matches.size()];
+            Block[] blocks = new Block[matches.size()];
+            for (int i = 0; i < matches.size(); i++) {
+                Postings postings = matches.get(i).getValue();
+                termIds[i] = postings.termId;
+                idfs[i] = idf(postings.docFrequency, liveDocs);
+                blocks[i] = postings.block;
+            }
+            return new Clause(termIds, idfs, blocks);
+        }
+    }
+}
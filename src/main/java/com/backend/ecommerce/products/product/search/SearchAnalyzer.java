@@ -0,0 +1,86 @@
+package com.backend.ecommerce.products.product.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Splits product text into index terms: accents stripped, lower-cased, broken on anything that isn't a
+ * letter or digit. Indexed text and queries go through the same steps, so they agree on terms.
+ */
+final class SearchAnalyzer {
+
+    static final int MAX_TERM_LENGTH = 40;
+
+    // Too common in product copy to say anything about relevance
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "is", "it",
+            "of", "on", "or", "the", "this", "to", "with");
+
+    private SearchAnalyzer() {
+    }
+
+    // Index terms in order of appearance, stop words dropped
+    static List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        for (String token : tokenize(text)) {
+            if (!STOP_WORDS.contains(token)) {
+                terms.add(token);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Distinct query terms. The last one is kept even if it's a stop word, because it's matched as a
+     * prefix: "the" is how "thermos" starts out while it's being typed.
+     */
+    static List<String> queryTerms(String query, int maxTerms) {
+        List<String> tokens = tokenize(query);
+        Set<String> terms = new LinkedHashSet<>();
+        for (int i = 0; i < tokens.size() && terms.size() < maxTerms; i++) {
+            String token = tokens.get(i);
+            if (i == tokens.size() - 1 || !STOP_WORDS.contains(token)) {
+                terms.add(token);
+            }
+        }
+        return List.copyOf(terms);
+    }
+
+    // The whole text as its tokens separated by single spaces, stop words included
+    static String normalize(String text) {
+        return String.join(" ", tokenize(text));
+    }
+
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                token.append(c);
+            } else {
+                flush(token, tokens);
+            }
+        }
+        flush(token, tokens);
+        return tokens;
+    }
+
+    private static void flush(StringBuilder token, List<String> tokens) {
+        if (token.length() > 0 && token.length() <= MAX_TERM_LENGTH) {
+            tokens.add(token.toString().toLowerCase(Locale.ROOT));
+        }
+        token.setLength(0);
+    }
+}
@@ -0,0 +1,241 @@
+package com.backend.ecommerce.products.product.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable radix trie from normalized keys to suggestions. Every node carries the top completions of
+ * its subtree, precomputed, so a lookup walks one node per edge and returns a list that already exists.
+ * Updates copy the path from the root to the changed key and share every other node.
+ */
+final class SuggestionTrie {
+
+    record Suggestion(String key, String text, long weight) {
+    }
+
+    // Heaviest first, then alphabetical so the order is stable
+    private static final Comparator<Suggestion> BEST_FIRST = Comparator.comparingLong(Suggestion::weight)
+            .reversed().thenComparing(Suggestion::key);
+
+    private final Node root;
+    private final int k;
+
+    private SuggestionTrie(Node root, int k) {
+        this.root = root;
+        this.k = k;
+    }
+
+    static SuggestionTrie empty(int k) {
+        return new SuggestionTrie(new Node("", new Node[0], null, k), k);
+    }
+
+    // Bulk build, much cheaper than inserting one key at a time; keys must be distinct and non-empty
+    static SuggestionTrie build(Collection<Suggestion> suggestions, int k) {
+        Suggestion[] sorted = suggestions.toArray(new Suggestion[0]);
+        Arrays.sort(sorted, Comparator.comparing(Suggestion::key));
+        return new SuggestionTrie(build("", sorted, 0, sorted.length, 0, k), k);
+    }
+
+    // Up to k texts whose keys start with the prefix, best first
+    List<String> complete(String prefix) {
+        Node node = root;
+        int depth = 0;
+        while (depth < prefix.length()) {
+            int i = Arrays.binarySearch(node.firstChars, prefix.charAt(depth));
+            if (i < 0) {
+                return List.of();
+            }
+            Node child = node.children[i];
+            int remaining = prefix.length() - depth;
+            if (remaining <= child.label.length()) {
+                // The prefix ends inside this edge, so the whole subtree below it matches
+                return child.label.regionMatches(0, prefix, depth, remaining) ? child.texts : List.of();
+            }
+            if (!prefix.regionMatches(depth, child.label, 0, child.label.length())) {
+                return List.of();
+            }
+            depth += child.label.length();
+            node = child;
+        }
+        return node.texts;
+    }
+
+    SuggestionTrie with(Suggestion suggestion) {
+        return new SuggestionTrie(update(root, suggestion.key(), 0, suggestion, k), k);
+    }
+
+    SuggestionTrie without(String key) {
+        return new SuggestionTrie(update(root, key, 0, null, k), k);
+    }
+
+    private static Node build(String label, Suggestion[] sorted, int from, int to, int depth, int k) {
+        Suggestion terminal = null;
+        if (from < to && sorted[from].key().length() == depth) {
+            terminal = sorted[from++];
+        }
+        List<Node> children = new ArrayList<>();
+        while (from < to) {
+            char c = sorted[from].key().charAt(depth);
+            int end = from + 1;
+            while (end < to && sorted[end].key().charAt(depth) == c) {
+                end++;
+            }
+            // Keys are sorted, so the first and last of the group share the group's longest common prefix
+            String first = sorted[from].key();
+            String last = sorted[end - 1].key();
+            int common = depth + 1;
+            while (common < first.length() && common < last.length() && first.charAt(common) == last.charAt(common)) {
+                common++;
+            }
+            children.add(build(first.substring(depth, common), sorted, from, end, common, k));
+            from = end;
+        }
+        return new Node(label, children.toArray(new Node[0]), terminal, k);
+    }
+
+    // Sets (or with a null suggestion, removes) the key below node, whose path covers key[0, depth)
+    private static Node update(Node node, String key, int depth, Suggestion suggestion, int k) {
+        if (depth == key.length()) {
+            return new Node(node.label, node.children, suggestion, k);
+        }
+        int i = Arrays.binarySearch(node.firstChars, key.charAt(depth));
+        if (i < 0) {
+            if (suggestion == null) {
+                return node;
+            }
+            Node leaf = new Node(key.substring(depth), new Node[0], suggestion, k);
+            return node.withChild(-i - 1, leaf, true, k);
+        }
+
+        Node child = node.children[i];
+        int common = 0;
+        while (common < child.label.length() && depth + common < key.length()
+                && child.label.charAt(common) == key.charAt(depth + common)) {
+            common++;
+        }
+        Node replacement;
+        if (common == child.label.length()) {
+            replacement = update(child, key, depth + common, suggestion, k);
+        } else {
+            if (suggestion == null) {
+                return node;
+            }
+            // The key leaves this edge partway along; split it there
+            Node lower = child.relabeled(child.label.substring(common));
+            Node split = new Node(child.label.substring(0, common), new Node[]{lower}, null, k);
+            replacement = update(split, key, depth + common, suggestion, k);
+        }
+        return node.withChild(i, compact(replacement), false, k);
+    }
+
+    // Keeps the trie compressed: drops nodes left empty and merges a lone child into its parent edge
+    private static Node compact(Node node) {
+        if (node.terminal != null || node.children.length > 1) {
+            return node;
+        }
+        if (node.children.length == 0) {
+            return null;
+        }
+        Node child = node.children[0];
+        return child.relabeled(node.label + child.label);
+    }
+
+    private static final class Node {
+        final String label;
+        // First character of each child's label, ascending, for binary search
+        final char[] firstChars;
+        final Node[] children;
+        final Suggestion terminal;
+        final Suggestion[] top;
+        final List<String> texts;
+
+        Node(String label, Node[] children, Suggestion terminal, int k) {
+            this.label = label;
+            this.children = children;
+            this.terminal = terminal;
+            this.firstChars = new char[children.length];
+            for (int i = 0; i < children.length; i++) {
+                firstChars[i] = children[i].label.charAt(0);
+            }
+            this.top = top(children, terminal, k);
+            this.texts = texts(top);
+        }
+
+        private Node(String label, Node source) {
+            this.label = label;
+            this.firstChars = source.firstChars;
+            this.children = source.children;
+            this.terminal = source.terminal;
+            this.top = source.top;
+            this.texts = source.texts;
+        }
+
+        // Same subtree under a different edge label, so the precomputed completions carry over
+        Node relabeled(String label) {
+            return new Node(label, this);
+        }
+
+        // Replaces (or inserts, or with a null child removes) the child at index i
+        Node withChild(int i, Node child, boolean insert, int k) {
+            Node[] updated;
+            if (insert) {
+                updated = new Node[children.length + 1];
+                System.arraycopy(children, 0, updated, 0, i);
+                updated[i] = child;
+                System.arraycopy(children, i, updated, i + 1, children.length - i);
+            } else if (child == null) {
+                updated = new Node[children.length - 1];
+                System.arraycopy(children, 0, updated, 0, i);
+                System.arraycopy(children, i + 1, updated, i, children.length - i - 1);
+            } else {
+                updated = children.clone();
+                updated[i] = child;
+            }
+            return new Node(label, updated, terminal, k);
+        }
+
+        // Children's lists are already best first, so merging their heads yields the best k without a sort
+        private static Suggestion[] top(Node[] children, Suggestion terminal, int k) {
+            if (children.length == 0) {
+                return terminal == null ? new Suggestion[0] : new Suggestion[]{terminal};
+            }
+            int available = terminal == null ? 0 : 1;
+            for (Node child : children) {
+                available += child.top.length;
+            }
+            Suggestion[] top = new Suggestion[Math.min(k, available)];
+            int[] heads = new int[children.length];
+            boolean terminalTaken = terminal == null;
+            for (int n = 0; n < top.length; n++) {
+                Suggestion best = terminalTaken ? null : terminal;
+                int bestChild = -1;
+                for (int c = 0; c < children.length; c++) {
+                    Suggestion[] candidates = children[c].top;
+                    if (heads[c] < candidates.length
+                            && (best == null || BEST_FIRST.compare(candidates[heads[c]], best) < 0)) {
+                        best = candidates[heads[c]];
+                        bestChild = c;
+                    }
+                }
+                if (bestChild < 0) {
+                    terminalTaken = true;
+                } else {
+                    heads[bestChild]++;
+                }
+                top[n] = best;
+            }
+            return top;
+        }
+
+        private static List<String> texts(Suggestion[] top) {
+            String[] texts = new String[top.length];
+            for (int i = 0; i < top.length; i++) {
+                texts[i] = top[i].text();
+            }
+            return List.of(texts);
+        }
+    }
+}
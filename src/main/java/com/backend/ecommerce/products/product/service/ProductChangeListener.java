@@ -0,0 +1,14 @@
+package com.backend.ecommerce.products.product.service;
+
+import com.backend.ecommerce.products.product.payload.ProductView;
+
+/**
+ * Notified by {@link ProductService} once a product write has committed, for in-memory structures
+ * derived from the catalog. Called on the committing thread; implementations should be quick.
+ */
+public interface ProductChangeListener {
+
+    void productSaved(ProductView product);
+
+    void productDeleted(Long productId);
+}
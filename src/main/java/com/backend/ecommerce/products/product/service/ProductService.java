@@ -1,16 +1,40 @@
 package com.backend.ecommerce.products.product.service;
 
+import com.backend.ecommerce.common.cache.ExpiringCache;
+import com.backend.ecommerce.common.pagination.CursorPage;
+import com.backend.ecommerce.common.pagination.KeysetCursor;
+import com.backend.ecommerce.products.category.model.Category;
 import com.backend.ecommerce.products.category.service.CategoryService;
 import com.backend.ecommerce.products.product.dao.ProductDAO;
 import com.backend.ecommerce.products.product.model.Product;
+import com.backend.ecommerce.products.product.model.ProductNotFoundException;
 import com.backend.ecommerce.products.product.payload.ProductDTO;
+import com.backend.ecommerce.products.product.payload.ProductSort;
+import com.backend.ecommerce.products.product.payload.ProductView;
 import com.backend.ecommerce.users.model.LocalUser;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.transaction.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class ProductService {
@@ -18,14 +42,36 @@ public class ProductService {
     private final CategoryService categoryService; // Add CategoryService for category validation
     private static final Logger logger = LoggerFactory.getLogger(ProductService.class);
 
-    public ProductService(ProductDAO productDAO, CategoryService categoryService) {
+    // Read-through caches for single products and category pages, evicted by the write paths below
+    private final ExpiringCache<Long, ProductView> productCache;
+    private final ExpiringCache<CategoryPageKey, CursorPage<ProductView>> categoryPageCache;
+
+    // Bumped after every committed product write: catalogVersion for any change, categoryVersions per category.
+    // Response caches key their entries on these.
+    private final AtomicLong catalogVersion = new AtomicLong();
+    private final ConcurrentHashMap<Long, AtomicLong> categoryVersions = new ConcurrentHashMap<>();
+
+    private final List<ProductChangeListener> changeListeners;
+
+    public ProductService(ProductDAO productDAO, CategoryService categoryService,
+                          @Value("${catalog.cache.products.maxSize}") int productCacheSize,
+                          @Value("${catalog.cache.products.expiryInSeconds}") long productCacheExpiry,
+                          @Value("${catalog.cache.categoryPages.maxSize}") int categoryPageCacheSize,
+                          @Value("${catalog.cache.categoryPages.expiryInSeconds}") long categoryPageCacheExpiry,
+                          MeterRegistry meterRegistry, List<ProductChangeListener> changeListeners) {
         this.productDAO = productDAO;
         this.categoryService = categoryService;
+        this.changeListeners = changeListeners;
+        this.productCache = new ExpiringCache<>(productCacheSize, Duration.ofSeconds(productCacheExpiry));
+        this.productCache.bindTo(meterRegistry, "products");
+        this.categoryPageCache = new ExpiringCache<>(categoryPageCacheSize, Duration.ofSeconds(categoryPageCacheExpiry));
+        this.categoryPageCache.bindTo(meterRegistry, "category-pages");
     }
 
     public Product createProduct(ProductDTO productDTO, LocalUser user) {
         // Validate category ID
-        if (productDTO.getCategoryId() == null || categoryService.getCategoryById(productDTO.getCategoryId()) == null) {
+        Category category = productDTO.getCategoryId() == null ? null : categoryService.getCategoryById(productDTO.getCategoryId());
+        if (category == null) {
             logger.error("Invalid category ID: {}", productDTO.getCategoryId());
             throw new IllegalArgumentException("Invalid category ID");
         }
@@ -36,16 +82,17 @@ public class ProductService {
         product.setPrice(productDTO.getPrice());
         product.setImageUrl(productDTO.getImageUrl());
         product.setUser(user); // Associate product with the user
-        product.setCategory(categoryService.getCategoryById(productDTO.getCategoryId())); // Set category
+        product.setCategory(category); // Set category
 
         Product savedProduct = productDAO.save(product);
+        afterCommit(savedProduct.getId(), productDTO.getCategoryId(), ProductView.of(savedProduct));
         logger.info("Product created successfully: {}", savedProduct.getId());
         return savedProduct;
     }
 
-    public List<Product> getAllProducts() {
-        logger.info("Fetching all products");
-        return productDAO.findAll();
+    // One page of the catalog; cursor is null for the first page and must come from a page with the same sort
+    public CursorPage<ProductView> getAllProducts(ProductSort sort, String cursor, int limit) {
+        return getPage(null, sort, cursor, limit);
     }
 
     @Transactional
@@ -60,22 +107,177 @@ public class ProductService {
         product.setPrice(productDetails.getPrice());
 
         Product updatedProduct = productDAO.save(product);
+        afterCommit(updatedProduct.getId(), updatedProduct.getCategory().getId(), ProductView.of(updatedProduct));
         logger.info("Product updated successfully: {}", updatedProduct.getId());
         return updatedProduct;
     }
 
     public void deleteProduct(Long productId) {
-        if (!productDAO.existsById(productId)) {
+        Optional<ProductView> existing = productDAO.findViewById(productId);
+        if (existing.isEmpty()) {
             logger.error("Attempted to delete non-existent product: {}", productId);
             throw new RuntimeException("Product not found");
         }
 
         productDAO.deleteById(productId);
+        afterCommit(productId, existing.get().getCategory().getId(), null);
         logger.info("Product deleted successfully: {}", productId);
     }
 
-    // Fetch products by category
-    public List<Product> getProductsByCategory(Long categoryId) {
-        return productDAO.findByCategoryId(categoryId);
+    public long getCatalogVersion() {
+        return catalogVersion.get();
+    }
+
+    public long getCategoryVersion(Long categoryId) {
+        AtomicLong version = categoryVersions.get(categoryId);
+        return version == null ? 0 : version.get();
+    }
+
+    // Single product, served from the cache when possible
+    public Optional<ProductView> getProduct(Long productId) {
+        return Optional.ofNullable(productCache.getOrLoad(productId, id -> productDAO.findViewById(id).orElse(null)));
+    }
+
+    // Products in the order given, from the cache where possible and one query for the rest; unknown ids are skipped
+    public List<ProductView> getProducts(List<Long> productIds) {
+        Map<Long, ProductView> found = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long productId : productIds) {
+            ProductView product = productCache.get(productId);
+            if (product != null) {
+                found.put(productId, product);
+            } else {
+                missing.add(productId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            for (ProductView product : productDAO.findViewsByIdIn(missing)) {
+                found.put(product.getId(), product);
+            }
+        }
+        List<ProductView> products = new ArrayList<>(productIds.size());
+        for (Long productId : productIds) {
+            ProductView product = found.get(productId);
+            if (product != null) {
+                products.add(product);
+            }
+        }
+        return products;
+    }
+
+    /**
+     * Current price of every distinct product, in one narrow query. Never served from the product cache: an
+     * entry there may predate a price change committed on another instance, and orders must charge the price
+     * in the database. Throws ProductNotFoundException listing every id that doesn't exist.
+     */
+    public Map<Long, Double> getPrices(Collection<Long> productIds) {
+        Set<Long> distinct = new LinkedHashSet<>(productIds);
+        Map<Long, Double> prices = new HashMap<>();
+        for (ProductDAO.ProductPrice price : productDAO.findPricesByIdIn(distinct)) {
+            prices.put(price.getId(), price.getPrice());
+        }
+        if (prices.size() < distinct.size()) {
+            List<Long> missing = new ArrayList<>(distinct);
+            missing.removeIf(prices::containsKey);
+            throw new ProductNotFoundException(missing);
+        }
+        return prices;
+    }
+
+    // Fetch products by category, a page at a time
+    public CursorPage<ProductView> getProductsByCategory(Long categoryId, ProductSort sort, String cursor, int limit) {
+        return categoryPageCache.getOrLoad(new CategoryPageKey(categoryId, sort, cursor, limit),
+                key -> getPage(categoryId, sort, cursor, limit));
+    }
+
+    // Evict once the write is visible to other transactions, otherwise a concurrent miss could reload and cache
+    // the old row right after the eviction. Listeners are told at the same point; saved is null for a delete.
+    private void afterCommit(Long productId, Long categoryId, ProductView saved) {
+        Runnable evict = () -> {
+            productCache.invalidate(productId);
+            categoryPageCache.invalidateIf((key, page) -> Objects.equals(key.categoryId(), categoryId));
+            categoryVersions.computeIfAbsent(categoryId, id -> new AtomicLong()).incrementAndGet();
+            catalogVersion.incrementAndGet();
+            notifyListeners(productId, saved);
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict.run();
+                }
+            });
+        } else {
+            evict.run();
+        }
+    }
+
+    private void notifyListeners(Long productId, ProductView saved) {
+        for (ProductChangeListener listener : changeListeners) {
+            try {
+                if (saved == null) {
+                    listener.productDeleted(productId);
+                } else {
+                    listener.productSaved(saved);
+                }
+            } catch (RuntimeException ex) {
+                // The write has committed; a derived structure falling behind must not fail it
+                logger.error("Product change listener {} failed for product {}",
+                        listener.getClass().getSimpleName(), productId, ex);
+            }
+        }
+    }
+
+    private CursorPage<ProductView> getPage(Long categoryId, ProductSort sort, String cursor, int limit) {
+        KeysetCursor after = cursor == null ? null : KeysetCursor.decode(cursor, sort.key());
+        long afterId = after == null ? 0 : after.getId();
+        // One extra row tells whether there is a next page without a count query
+        Pageable pageable = PageRequest.of(0, limit + 1);
+        List<ProductView> products = switch (sort) {
+            case ID -> categoryId == null
+                    ? productDAO.findPageById(afterId, pageable)
+                    : productDAO.findCategoryPageById(categoryId, afterId, pageable);
+            case PRICE -> {
+                double afterPrice = after == null ? -Double.MAX_VALUE : parsePrice(after.getValue());
+                yield categoryId == null
+                        ? productDAO.findPageByPrice(afterPrice, afterId, pageable)
+                        : productDAO.findCategoryPageByPrice(categoryId, afterPrice, afterId, pageable);
+            }
+            case NAME -> {
+                String afterName = after == null ? "" : after.getValue();
+                if (afterName == null) {
+                    throw new IllegalArgumentException("Invalid cursor");
+                }
+                yield categoryId == null
+                        ? productDAO.findPageByName(afterName, afterId, pageable)
+                        : productDAO.findCategoryPageByName(categoryId, afterName, afterId, pageable);
+            }
+        };
+
+        if (products.size() <= limit) {
+            return new CursorPage<>(List.copyOf(products), null);
+        }
+        List<ProductView> page = List.copyOf(products.subList(0, limit));
+        ProductView last = page.get(limit - 1);
+        String value = switch (sort) {
+            case ID -> null;
+            case PRICE -> Double.toString(last.getPrice());
+            case NAME -> last.getName();
+        };
+        return new CursorPage<>(page, new KeysetCursor(sort.key(), last.getId(), value).encode());
+    }
+
+    private static double parsePrice(String value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    private record CategoryPageKey(Long categoryId, ProductSort sort, String cursor, int limit) {
     }
 }
@@ -1,8 +1,10 @@
 package com.backend.ecommerce.users.api.controller.auth;
 
+import com.auth0.jwt.exceptions.JWTVerificationException;
 import com.backend.ecommerce.users.api.model.*;
-import com.backend.ecommerce.users.exception.EmailFailureException;
+import com.backend.ecommerce.users.api.security.LoginThrottle;
 import com.backend.ecommerce.users.exception.EmailNotFoundException;
+import com.backend.ecommerce.users.exception.PasswordHashingRejectedException;
 import com.backend.ecommerce.users.exception.UserAlreadyExistsException;
 import com.backend.ecommerce.users.exception.UserNotVerifiedException;
 import com.backend.ecommerce.users.service.JWTService;
@@ -12,6 +14,8 @@ import jakarta.validation.Valid;
 import org.hibernate.LazyInitializationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -25,10 +29,12 @@ public class AuthenticationController {
     private static final Logger logger = LoggerFactory.getLogger(AuthenticationController.class);
     private final UserService userService;
     private final JWTService jwtService;
+    private final LoginThrottle loginThrottle;
 
-    public AuthenticationController(UserService userService, JWTService jwtService) {
+    public AuthenticationController(UserService userService, JWTService jwtService, LoginThrottle loginThrottle) {
         this.userService = userService;
         this.jwtService = jwtService;
+        this.loginThrottle = loginThrottle;
     }
 
     @PostMapping("/register")
@@ -50,12 +56,19 @@ public class AuthenticationController {
             response.put("status", "CONFLICT");
             return new ResponseEntity<>(response, HttpStatus.CONFLICT);
 
-        } catch (EmailFailureException ex) {
-            logger.error("Failed to send confirmation email for user: {}", registrationBody.getEmail(), ex);
+        } catch (DataIntegrityViolationException ex) {
+            logger.warn("User registration failed - data rejected by the database: {}", registrationBody.getEmail(), ex);
 
-            response.put("message", "Failed to send confirmation email!");
-            response.put("status", "INTERNAL_SERVER_ERROR");
-            return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+            response.put("message", "Invalid registration data.");
+            response.put("status", "BAD_REQUEST");
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+
+        } catch (PasswordHashingRejectedException ex) {
+            logger.warn("Registration rejected, password hashing is saturated: {}", registrationBody.getEmail());
+
+            response.put("message", "Service is busy, please try again shortly.");
+            response.put("status", "SERVICE_UNAVAILABLE");
+            return new ResponseEntity<>(response, HttpStatus.SERVICE_UNAVAILABLE);
 
         } catch (Exception ex) {
             logger.error("An unexpected error occurred during registration: {}", ex.getMessage(), ex);
@@ -66,20 +79,38 @@ public class AuthenticationController {
         }
     }
     @PostMapping("/login")
-    public ResponseEntity<Map<String, Object>> loginUser(@Valid @RequestBody LoginBody loginBody) {
+    public ResponseEntity<Map<String, Object>> loginUser(@Valid @RequestBody LoginBody loginBody, HttpServletRequest request) {
         Map<String, Object> response = new HashMap<>();
-        String jwt;
+        AuthTokens tokens;
+
+        // Reject throttled callers before any database lookup or password hash. The remote address is the
+        // client's once server.forward-headers-strategy has resolved X-Forwarded-For from trusted proxies.
+        String clientIp = request.getRemoteAddr();
+        long retryAfterMillis = loginThrottle.retryAfterMillis(loginBody.getUsername(), clientIp);
+        if (retryAfterMillis > 0) {
+            logger.warn("Login throttled for user: {} from {}", loginBody.getUsername(), clientIp);
+            response.put("success", false);
+            response.put("message", "Too many failed login attempts, please try again later.");
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf((retryAfterMillis + 999) / 1000))
+                    .body(response);
+        }
 
         try {
-            jwt = userService.loginUser(loginBody);
-            if (jwt != null) {
+            tokens = userService.loginUser(loginBody);
+            if (tokens != null) {
                 logger.info("User logged in successfully: {}", loginBody.getUsername());
-                response.put("jwt", jwt);
+                loginThrottle.recordSuccess(loginBody.getUsername(), clientIp);
+                response.put("jwt", tokens.getAccessToken());
+                if (tokens.getRefreshToken() != null) {
+                    response.put("refreshToken", tokens.getRefreshToken());
+                }
                 response.put("message", "User logged in successfully!");
                 response.put("success", true);
                 return ResponseEntity.ok(response);
             } else {
                 logger.warn("Invalid login credentials for user: {}", loginBody.getUsername());
+                loginThrottle.recordFailure(loginBody.getUsername(), clientIp);
                 response.put("success", false);
                 response.put("message", "Invalid login credentials.");
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
@@ -95,11 +126,11 @@ public class AuthenticationController {
             response.put("success", false);
             response.put("message", "Email is not verified, can't login.");
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body(response);
-        } catch (EmailFailureException ex) {
-            logger.error("Failed to send verification email for user: {}", loginBody.getUsername(), ex);
+        } catch (PasswordHashingRejectedException ex) {
+            logger.warn("Login rejected, password hashing is saturated: {}", loginBody.getUsername());
             response.put("success", false);
-            response.put("message", "Failed to send verification email.");
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            response.put("message", "Service is busy, please try again shortly.");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
         } catch (Exception ex) {
             logger.error("An error occurred during login: {}", ex.getMessage(), ex);
             response.put("success", false);
@@ -108,6 +139,30 @@ public class AuthenticationController {
         }
     }
 
+    @PostMapping("/refresh")
+    public ResponseEntity<Map<String, Object>> refreshToken(@RequestBody Map<String, String> payload) {
+        String refreshToken = payload.get("refreshToken");
+        Map<String, Object> response = new HashMap<>();
+
+        if (refreshToken == null || refreshToken.isEmpty()) {
+            response.put("success", false);
+            response.put("message", "Refresh token cannot be null or empty.");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        }
+
+        String jwt = userService.refreshAccessToken(refreshToken);
+        if (jwt != null) {
+            response.put("jwt", jwt);
+            response.put("success", true);
+            response.put("message", "Token refreshed successfully.");
+            return ResponseEntity.ok(response);
+        } else {
+            response.put("success", false);
+            response.put("message", "Invalid or expired refresh token.");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+        }
+    }
+
     @PostMapping("/verify")
     public ResponseEntity<Map<String, Object>> verifyEmail(@RequestBody Map<String, String> payload) {
         String token = payload.get("token");
@@ -131,20 +186,27 @@ public class AuthenticationController {
     }
 
     @PostMapping("/logout")
-    public ResponseEntity<Map<String, Object>> logout(HttpServletRequest request) {
+    public ResponseEntity<Map<String, Object>> logout(HttpServletRequest request,
+                                                      @RequestBody(required = false) Map<String, String> payload) {
         String tokenHeader = request.getHeader("Authorization");
         Map<String, Object> response = new HashMap<>();
 
         if (tokenHeader != null && tokenHeader.startsWith("Bearer ")) {
             String token = tokenHeader.substring(7);
-            String username = jwtService.getUsername(token);
-
-            // Log the logout request
-            logger.info("Logout request received for user: {}", username);
 
-            // Option 1: Invalidate the token server-side (if applicable)
-            jwtService.invalidateToken(token);
+            // Option 1: Invalidate the token server-side (if applicable), an expired token can still log out
+            String username = jwtService.invalidateToken(token);
             logger.info("Token invalidated successfully for user: {}", username);
+            String refreshToken = payload == null ? null : payload.get("refreshToken");
+            if (refreshToken != null && !refreshToken.isEmpty()) {
+                try {
+                    jwtService.invalidateRefreshToken(refreshToken);
+                    logger.info("Refresh token invalidated for user: {}", username);
+                } catch (JWTVerificationException ex) {
+                    // Invalid or expired already, so there is nothing left to revoke
+                    logger.warn("Ignoring invalid refresh token on logout for user: {}", username);
+                }
+            }
 
             // Option 2: Handle token removal client-side (e.g., removing token from local storage)
             response.put("success", true);
@@ -176,11 +238,6 @@ public class AuthenticationController {
             response.put("success", false);
             response.put("message", "Email address not found.");
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
-        } catch (EmailFailureException ex) {
-            logger.error("Failed to send password reset email to: {}", email, ex);
-            response.put("success", false);
-            response.put("message", "Failed to send password reset email.");
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
         }
     }
     @PostMapping("/reset")
@@ -205,6 +262,11 @@ public class AuthenticationController {
             response.put("success", false);
             response.put("message", "Invalid token or password confirmation failed.");
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        } catch (PasswordHashingRejectedException ex) {
+            logger.warn("Password reset rejected, password hashing is saturated: {}", body.getToken());
+            response.put("success", false);
+            response.put("message", "Service is busy, please try again shortly.");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
         } catch (Exception ex) {
             logger.error("Failed to reset password for token: {}", body.getToken(), ex);
             response.put("success", false);
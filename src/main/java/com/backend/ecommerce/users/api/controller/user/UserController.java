@@ -1,15 +1,21 @@
 package com.backend.ecommerce.users.api.controller.user;
 
+import com.backend.ecommerce.common.web.ConditionalRequests;
 import com.backend.ecommerce.users.api.controller.auth.AuthenticationController;
 import com.backend.ecommerce.users.model.Address;
 import com.backend.ecommerce.users.model.LocalUser;
+import com.backend.ecommerce.users.model.UserPrincipal;
 import com.backend.ecommerce.users.payload.AddressDTO;
 import com.backend.ecommerce.users.payload.UserProfileDTO;
 import com.backend.ecommerce.users.service.AddressService;
+import com.backend.ecommerce.users.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -25,36 +31,58 @@ public class UserController {
 
     private static final Logger logger = LoggerFactory.getLogger(AuthenticationController.class);
     private final AddressService addressService;
+    private final UserService userService;
+    private final ConditionalRequests conditionalRequests;
 
-    public UserController(AddressService addressService) {
+    @Value("${http.cacheControl.profile}")
+    private String cacheControl;
+
+    public UserController(AddressService addressService, UserService userService,
+                          ConditionalRequests conditionalRequests) {
         this.addressService = addressService;
+        this.userService = userService;
+        this.conditionalRequests = conditionalRequests;
     }
 
     @GetMapping("/me")
     @Transactional
-    public ResponseEntity<?> getLoggedInUserProfile(@AuthenticationPrincipal LocalUser user) {
-        if (user == null) {
+    public ResponseEntity<?> getLoggedInUserProfile(@AuthenticationPrincipal UserPrincipal principal,
+                                                    HttpServletRequest request, HttpServletResponse response) {
+        if (principal == null) {
             logger.warn("Unauthorized access attempt: No authenticated user found.");
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "User not authenticated"));
         }
 
+        String etag = conditionalRequests.etag(principal.getId(), userService.getProfileVersion(principal));
+        if (conditionalRequests.checkNotModified(request, response, etag, cacheControl)) {
+            return null;
+        }
+
+        // The profile needs the full user and its addresses, which the principal doesn't carry
+        LocalUser user = userService.getUserProfile(principal).orElse(null);
+        if (user == null) {
+            logger.warn("Authenticated user {} no longer exists.", principal.getUsername());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "User not authenticated"));
+        }
+
         UserProfileDTO userProfileDTO = new UserProfileDTO(
                 user.getUsername(),
                 user.getFirstName(),
                 user.getLastName(),
                 user.getEmail(),
                 user.getPhoneNumber(),
-                user.getAddresses()  // Addresses will be initialized within the session
+                user.getAddresses()  // Fetched with the user through the profile entity graph
         );
 
         // Log the user's profile access
         logger.info("User profile accessed: {}", user.getUsername());
+        conditionalRequests.applyHeaders(response, etag, cacheControl);
 
         return ResponseEntity.ok(userProfileDTO);
     }
 
     @GetMapping("/address")
-    public ResponseEntity<?> getAddresses(@AuthenticationPrincipal LocalUser user) {
+    public ResponseEntity<?> getAddresses(@AuthenticationPrincipal UserPrincipal user) {
         if (user == null) {
             logger.warn("Unauthorized access attempt to address API: No authenticated user found.");
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
@@ -69,7 +97,7 @@ public class UserController {
     }
 
     @PostMapping("/address")
-    public ResponseEntity<?> createAddress(@AuthenticationPrincipal LocalUser user,
+    public ResponseEntity<?> createAddress(@AuthenticationPrincipal UserPrincipal user,
                                            @Valid @RequestBody AddressDTO addressDTO) {
         if (user == null) {
             logger.warn("Unauthorized access attempt to create an address: No authenticated user found.");
@@ -82,9 +110,9 @@ public class UserController {
         address.setCity(addressDTO.getCity());
         address.setCountry(addressDTO.getCountry());
         address.setPostalCode(addressDTO.getPostalCode());
-        address.setUser(user);
+        address.setUser(userService.getUserReference(user));
 
-        Address savedAddress = addressService.createAddress(address);
+        Address savedAddress = addressService.createAddress(address, user);
 
         // Log successful address creation
         logger.info("User '{}' created a new address at '{}', '{}', '{}'",
@@ -95,7 +123,7 @@ public class UserController {
     }
 
     @PutMapping("/address/{addressId}")
-    public ResponseEntity<?> updateAddress(@AuthenticationPrincipal LocalUser user,
+    public ResponseEntity<?> updateAddress(@AuthenticationPrincipal UserPrincipal user,
                                            @PathVariable Long addressId,
                                            @Valid @RequestBody AddressDTO addressDTO) {
         if (user == null) {
@@ -124,7 +152,7 @@ public class UserController {
     }
 
     @DeleteMapping("/address/{addressId}")
-    public ResponseEntity<?> deleteAddress(@AuthenticationPrincipal LocalUser user,
+    public ResponseEntity<?> deleteAddress(@AuthenticationPrincipal UserPrincipal user,
                                            @PathVariable Long addressId) {
         if (user == null) {
             logger.warn("Unauthorized access attempt to delete address with ID '{}'. No authenticated user found.", addressId);
@@ -0,0 +1,20 @@
+package com.backend.ecommerce.users.api.model;
+
+public class AuthTokens {
+    private final String accessToken;
+    private final String refreshToken;
+
+    public AuthTokens(String accessToken, String refreshToken) {
+        this.accessToken = accessToken;
+        this.refreshToken = refreshToken;
+    }
+
+    public String getAccessToken() {
+        return accessToken;
+    }
+
+    // Only issued in stateless mode, null otherwise
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+}
@@ -1,9 +1,11 @@
 package com.backend.ecommerce.users.api.security;
 
-import com.auth0.jwt.exceptions.JWTDecodeException;
+import com.auth0.jwt.exceptions.JWTVerificationException;
 import com.backend.ecommerce.users.model.LocalUser;
+import com.backend.ecommerce.users.model.UserPrincipal;
 import com.backend.ecommerce.users.model.dao.LocalUserDAO;
 import com.backend.ecommerce.users.service.JWTService;
+import com.backend.ecommerce.users.service.PrincipalCache;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -23,10 +25,12 @@ public class JWTRequestFilter extends OncePerRequestFilter {
 
     private JWTService jwtService;
     private LocalUserDAO localUserDAO;
+    private PrincipalCache principalCache;
 
-    public JWTRequestFilter(JWTService jwtService, LocalUserDAO localUserDAO) {
+    public JWTRequestFilter(JWTService jwtService, LocalUserDAO localUserDAO, PrincipalCache principalCache) {
         this.jwtService = jwtService;
         this.localUserDAO = localUserDAO;
+        this.principalCache = principalCache;
     }
 
     @Override
@@ -38,22 +42,42 @@ public class JWTRequestFilter extends OncePerRequestFilter {
             // Check if the token is invalidated
             if (!jwtService.isTokenInvalidated(token)) {
                 try {
-                    String username = jwtService.getUsername(token);
-                    Optional<LocalUser> opUser = localUserDAO.findByUsernameIgnoreCase(username);
-                    if (opUser.isPresent()) {
-                        LocalUser user = opUser.get();
+                    UserPrincipal user = null;
+                    if (jwtService.isStatelessEnabled()) {
+                        // Everything we need is in the token, no database access
+                        user = jwtService.getAuthenticatedUser(token);
+                    }
+                    if (user == null) {
+                        user = resolveUser(jwtService.getUsername(token));
+                    }
+                    if (user != null) {
                         if (user.isEmailVerified()) {
                             UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(user, null, new ArrayList());
                             authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                             SecurityContextHolder.getContext().setAuthentication(authentication);
                         }
                     }
-                } catch (JWTDecodeException ex) {
-                    logger.error("JWT Decode Exception: ", ex);
+                } catch (JWTVerificationException ex) {
+                    logger.error("JWT Verification Exception: ", ex);
                 }
             }
         }
         filterChain.doFilter(request, response);
     }
 
+    private LocalUser resolveUser(String username) {
+        if (username == null) {
+            return null;
+        }
+        LocalUser user = principalCache.get(username);
+        if (user == null) {
+            Optional<LocalUser> opUser = localUserDAO.findByUsernameIgnoreCase(username);
+            if (opUser.isPresent()) {
+                user = opUser.get();
+                principalCache.put(user);
+            }
+        }
+        return user;
+    }
+
 }
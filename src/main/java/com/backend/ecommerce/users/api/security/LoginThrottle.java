@@ -0,0 +1,209 @@
+package com.backend.ecommerce.users.api.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Brute-force throttle for /auth/login, consulted before any database lookup or password hash.
+ * Failed attempts are tracked per (username, client IP) pair, per username and per client IP in fixed-size
+ * sketches, so memory stays bounded no matter how many distinct keys an attacker cycles through. The pair
+ * key throttles one address early without locking the owner out from another; the username key has a
+ * higher threshold and catches guessing spread over many addresses.
+ */
+@Component
+public class LoginThrottle {
+
+    private final Sketch pairs;
+    private final Sketch accounts;
+    private final Sketch clients;
+    private final Counter throttled;
+
+    public LoginThrottle(@Value("${auth.loginThrottle.width}") int width,
+                         @Value("${auth.loginThrottle.depth}") int depth,
+                         @Value("${auth.loginThrottle.pair.freeAttempts}") int pairFreeAttempts,
+                         @Value("${auth.loginThrottle.username.freeAttempts}") int usernameFreeAttempts,
+                         @Value("${auth.loginThrottle.ip.freeAttempts}") int ipFreeAttempts,
+                         @Value("${auth.loginThrottle.baseDelayMillis}") long baseDelayMillis,
+                         @Value("${auth.loginThrottle.maxDelayMillis}") long maxDelayMillis,
+                         @Value("${auth.loginThrottle.decayMillis}") long decayMillis,
+                         MeterRegistry meterRegistry) {
+        this.pairs = new Sketch(width, depth, pairFreeAttempts, baseDelayMillis, maxDelayMillis, decayMillis);
+        this.accounts = new Sketch(width, depth, usernameFreeAttempts, baseDelayMillis, maxDelayMillis, decayMillis);
+        this.clients = new Sketch(width, depth, ipFreeAttempts, baseDelayMillis, maxDelayMillis, decayMillis);
+        this.throttled = Counter.builder("auth.login.throttled").register(meterRegistry);
+    }
+
+    // Milliseconds the caller has to wait before trying again, 0 if the attempt may proceed
+    public long retryAfterMillis(String username, String clientIp) {
+        long now = System.currentTimeMillis();
+        String account = accountKey(username);
+        long wait = Math.max(pairs.retryAfter(pairKey(account, clientIp), now),
+                Math.max(accounts.retryAfter(account, now), clients.retryAfter(clientIp, now)));
+        if (wait > 0) {
+            throttled.increment();
+        }
+        return wait;
+    }
+
+    public void recordFailure(String username, String clientIp) {
+        long now = System.currentTimeMillis();
+        String account = accountKey(username);
+        pairs.recordFailure(pairKey(account, clientIp), now);
+        accounts.recordFailure(account, now);
+        clients.recordFailure(clientIp, now);
+    }
+
+    // Only the pair is cleared. The IP side is left to decay, otherwise logging into one's own account would reset
+    // the budget for guessing others, and so is the username side, so the owner can't reset a distributed attack.
+    public void recordSuccess(String username, String clientIp) {
+        pairs.clear(pairKey(accountKey(username), clientIp), System.currentTimeMillis());
+    }
+
+    private static String accountKey(String username) {
+        return username == null ? "" : username.toLowerCase(Locale.ROOT);
+    }
+
+    private static String pairKey(String account, String clientIp) {
+        return account + '\u0000' + clientIp;
+    }
+
+    /**
+     * Count-min sketch where every cell packs a failure score and the earliest time the next attempt is
+     * allowed. After {@code freeAttempts} failures the delay starts at {@code baseDelay} and doubles per
+     * further failure up to {@code maxDelay}; the score drops by one per {@code decay} of inactivity.
+     * Failures merge cells upwards with CAS (conservative update), so there are no locks, and a key reads the
+     * minimum over its cells so collisions can only make the estimate stricter, never looser.
+     */
+    static final class Sketch {
+        private static final int TIME_BITS = 42;
+        private static final long TIME_MASK = (1L << TIME_BITS) - 1;
+        private static final long MAX_SCORE = 1023;
+
+        private final AtomicLongArray cells;
+        private final int mask;
+        private final int depth;
+        private final int freeAttempts;
+        private final long baseDelay;
+        private final long maxDelay;
+        private final long decay;
+        // Times are stored relative to this so they fit in the low 42 bits of a cell
+        private final long epoch = System.currentTimeMillis();
+        // Random seeds so outsiders can't craft keys that collide with a victim's cells
+        private final long seed1;
+        private final long seed2;
+
+        Sketch(int width, int depth, int freeAttempts, long baseDelay, long maxDelay, long decay) {
+            int size = Integer.highestOneBit(Math.max(2, width - 1)) << 1;
+            this.cells = new AtomicLongArray(size * depth);
+            this.mask = size - 1;
+            this.depth = depth;
+            this.freeAttempts = freeAttempts;
+            this.baseDelay = baseDelay;
+            this.maxDelay = maxDelay;
+            this.decay = decay;
+            SecureRandom random = new SecureRandom();
+            this.seed1 = random.nextLong();
+            this.seed2 = random.nextLong() | 1L;
+        }
+
+        long retryAfter(String key, long now) {
+            long h1 = hash(key, seed1);
+            long h2 = hash(key, seed2);
+            long allowedAt = TIME_MASK;
+            for (int row = 0; row < depth; row++) {
+                allowedAt = Math.min(allowedAt, cells.get(index(h1, h2, row)) & TIME_MASK);
+            }
+            return Math.max(0, epoch + allowedAt - now);
+        }
+
+        void recordFailure(String key, long now) {
+            long h1 = hash(key, seed1);
+            long h2 = hash(key, seed2);
+            long time = now - epoch;
+            long newScore = Math.min(MAX_SCORE, score(h1, h2, time) + 1);
+            long delay = newScore <= freeAttempts
+                    ? 0
+                    : Math.min(maxDelay, baseDelay << Math.min(40, newScore - freeAttempts - 1));
+            long allowedAt = time + delay;
+            for (int row = 0; row < depth; row++) {
+                int index = index(h1, h2, row);
+                long current;
+                long merged;
+                do {
+                    current = cells.get(index);
+                    merged = (Math.max(decayedScore(current, time), newScore) << TIME_BITS)
+                            | Math.max(current & TIME_MASK, allowedAt);
+                } while (merged != current && !cells.compareAndSet(index, current, merged));
+            }
+        }
+
+        // Failure score of the key, decayed to now
+        long score(String key, long now) {
+            return score(hash(key, seed1), hash(key, seed2), now - epoch);
+        }
+
+        // Takes the key's estimated score back out of its cells instead of zeroing them, so keys sharing a cell
+        // keep whatever they added on top. The delay stays on cells still past the free attempts after that.
+        void clear(String key, long now) {
+            long h1 = hash(key, seed1);
+            long h2 = hash(key, seed2);
+            long time = now - epoch;
+            long score = score(h1, h2, time);
+            for (int row = 0; row < depth; row++) {
+                int index = index(h1, h2, row);
+                long current;
+                long cleared;
+                do {
+                    current = cells.get(index);
+                    long remaining = Math.max(0, decayedScore(current, time) - score);
+                    if (remaining == 0) {
+                        cleared = 0L;
+                    } else if (remaining > freeAttempts) {
+                        cleared = (remaining << TIME_BITS) | (current & TIME_MASK);
+                    } else {
+                        cleared = (remaining << TIME_BITS) | Math.min(current & TIME_MASK, time);
+                    }
+                } while (cleared != current && !cells.compareAndSet(index, current, cleared));
+            }
+        }
+
+        private long score(long h1, long h2, long time) {
+            long score = MAX_SCORE;
+            for (int row = 0; row < depth; row++) {
+                score = Math.min(score, decayedScore(cells.get(index(h1, h2, row)), time));
+            }
+            return score;
+        }
+
+        private long decayedScore(long cell, long time) {
+            long score = cell >>> TIME_BITS;
+            long idle = time - (cell & TIME_MASK);
+            return idle <= 0 ? score : Math.max(0, score - idle / decay);
+        }
+
+        private int index(long h1, long h2, int row) {
+            return row * (mask + 1) + (int) ((h1 + row * h2) & mask);
+        }
+
+        // FNV-1a over the characters, finished with the murmur3 64-bit mixer
+        private static long hash(String key, long seed) {
+            long h = seed ^ 0xcbf29ce484222325L;
+            for (int i = 0; i < key.length(); i++) {
+                h ^= key.charAt(i);
+                h *= 0x100000001b3L;
+            }
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb3fe1a85ec53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
@@ -22,7 +22,7 @@ public class WebSecurityConfig {
         http.cors().disable();
         http.addFilterBefore(jwtRequestFilter, AuthorizationFilter.class);
         http.authorizeHttpRequests()
-                .requestMatchers( "/auth/register", "/auth/login", "/auth/logout", "/auth/verify", "/auth/me", "/auth/forgot",
+                .requestMatchers( "/auth/register", "/auth/login", "/auth/logout", "/auth/refresh", "/auth/verify", "/auth/me", "/auth/forgot",
                         "/auth/reset", "/user/**").permitAll()
                 .anyRequest().authenticated();
         return http.build();
@@ -1,4 +0,0 @@
-package com.backend.ecommerce.users.exception;
-
-public class EmailFailureException extends Exception {
-}
@@ -0,0 +1,9 @@
+package com.backend.ecommerce.users.exception;
+
+// Thrown when the password hashing pool is saturated and the request should be retried later
+public class PasswordHashingRejectedException extends RuntimeException {
+
+    public PasswordHashingRejectedException(String message) {
+        super(message);
+    }
+}
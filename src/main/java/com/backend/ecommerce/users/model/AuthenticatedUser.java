@@ -0,0 +1,32 @@
+package com.backend.ecommerce.users.model;
+
+/**
+ * Principal rebuilt from JWT claims alone, without touching the database.
+ */
+public class AuthenticatedUser implements UserPrincipal {
+
+    private final Long id;
+    private final String username;
+    private final boolean emailVerified;
+
+    public AuthenticatedUser(Long id, String username, boolean emailVerified) {
+        this.id = id;
+        this.username = username;
+        this.emailVerified = emailVerified;
+    }
+
+    @Override
+    public Long getId() {
+        return id;
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+
+    @Override
+    public boolean isEmailVerified() {
+        return emailVerified;
+    }
+}
@@ -0,0 +1,8 @@
+package com.backend.ecommerce.users.model;
+
+public enum EmailStatus {
+    PENDING,
+    SENDING,
+    SENT,
+    FAILED
+}
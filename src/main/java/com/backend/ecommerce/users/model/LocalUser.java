@@ -6,6 +6,7 @@ import jakarta.persistence.*;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.security.core.GrantedAuthority;
@@ -15,7 +16,11 @@ import org.springframework.security.core.userdetails.UserDetails;
 @Setter
 @Entity
 @Table(name = "local_user")
-public class LocalUser implements UserDetails {
+// Authentication only needs the user row itself; the profile view also pulls addresses in the same query
+@NamedEntityGraph(name = LocalUser.PROFILE_GRAPH, attributeNodes = @NamedAttributeNode("addresses"))
+public class LocalUser implements UserDetails, UserPrincipal {
+    public static final String PROFILE_GRAPH = "LocalUser.profile";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "id", nullable = false)
@@ -45,7 +50,7 @@ public class LocalUser implements UserDetails {
     private String phoneNumber;
 
     @JsonIgnore
-    @OneToMany(fetch = FetchType.EAGER, mappedBy = "user")
+    @OneToMany(fetch = FetchType.LAZY, mappedBy = "user")
     private List<Address> addresses;
 
     @JsonIgnore
@@ -56,6 +61,32 @@ public class LocalUser implements UserDetails {
     @Column(name = "email_verified", nullable = false)
     private Boolean emailVerified = false;
 
+    // Embedded in refresh tokens and bumped by a password reset, so refresh tokens issued before it stop working
+    @JsonIgnore
+    @Column(name = "token_version", nullable = false)
+    private long tokenVersion;
+
+    // Lower-cased copies of username and email so case-insensitive lookups are plain equality on an index.
+    // Nullable only until rows from before these columns get backfilled.
+    @JsonIgnore
+    @Column(name = "username_normalized", unique = true)
+    private String usernameNormalized;
+
+    @JsonIgnore
+    @Column(name = "email_normalized", unique = true, length = 320)
+    private String emailNormalized;
+
+    public static String normalize(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    @PrePersist
+    @PreUpdate
+    public void updateNormalizedFields() {
+        usernameNormalized = normalize(username);
+        emailNormalized = normalize(email);
+    }
+
     public String getPhoneNumber() {
         return phoneNumber;
     }
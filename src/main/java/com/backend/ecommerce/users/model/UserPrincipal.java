@@ -0,0 +1,14 @@
+package com.backend.ecommerce.users.model;
+
+/**
+ * What an authenticated request knows about its user. Implemented by the {@link LocalUser} entity and by
+ * {@link AuthenticatedUser}, the claims-only principal used in stateless mode.
+ */
+public interface UserPrincipal {
+
+    Long getId();
+
+    String getUsername();
+
+    boolean isEmailVerified();
+}
@@ -9,17 +9,29 @@ import java.sql.Timestamp;
 @Getter
 @Setter
 @Entity
-@Table(name = "verification_token")
+@Table(name = "verification_token", indexes = {
+        @Index(name = "idx_verification_token_created", columnList = "created_timestamp")
+})
 public class VerificationToken {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "id", nullable = false)
     private Long id;
 
-    @Lob
-    @Column(name = "token", nullable = false, unique = true)
+    // Raw token, only held in memory until the email is queued; lookups go through tokenHash
+    @Transient
     private String token;
 
+    // Schemas from before token_hash stored the raw token here. New rows write an empty string to satisfy the
+    // old NOT NULL, and the backfill blanks old rows once their hash is filled in.
+    @Lob
+    @Column(name = "token", nullable = false)
+    private String legacyToken = "";
+
+    // SHA-256 hex of the token. Nullable only until rows from before this column get backfilled.
+    @Column(name = "token_hash", length = 64, unique = true)
+    private String tokenHash;
+
     @Column(name = "created_timestamp", nullable = false)
     private Timestamp createdTimestamp;
 
@@ -43,6 +55,22 @@ public class VerificationToken {
         this.token = token;
     }
 
+    public String getLegacyToken() {
+        return legacyToken;
+    }
+
+    public void setLegacyToken(String legacyToken) {
+        this.legacyToken = legacyToken;
+    }
+
+    public String getTokenHash() {
+        return tokenHash;
+    }
+
+    public void setTokenHash(String tokenHash) {
+        this.tokenHash = tokenHash;
+    }
+
     public Timestamp getCreatedTimestamp() {
         return createdTimestamp;
     }
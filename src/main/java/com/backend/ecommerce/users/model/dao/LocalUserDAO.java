@@ -1,12 +1,83 @@
 package com.backend.ecommerce.users.model.dao;
 
 import com.backend.ecommerce.users.model.LocalUser;
-import org.springframework.data.repository.ListCrudRepository;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import java.util.List;
 import java.util.Optional;
 
-public interface LocalUserDAO extends ListCrudRepository<LocalUser, Long> {
+public interface LocalUserDAO extends JpaRepository<LocalUser, Long> {
 
-    Optional<LocalUser> findByUsernameIgnoreCase(String username);
+    // Derived IgnoreCase queries compile to upper(column) = upper(?), which can't use an index. These go through
+    // the lower-cased columns instead, and only on a miss check the rows the backfill couldn't normalize.
+    default Optional<LocalUser> findByUsernameIgnoreCase(String username) {
+        String normalized = LocalUser.normalize(username);
+        return findByUsernameNormalized(normalized).or(() -> findUnnormalizedByUsername(normalized));
+    }
 
-    Optional<LocalUser> findByEmailIgnoreCase(String email);
+    default Optional<LocalUser> findByEmailIgnoreCase(String email) {
+        String normalized = LocalUser.normalize(email);
+        return findByEmailNormalized(normalized).or(() -> findUnnormalizedByEmail(normalized));
+    }
+
+    // Registration only needs to know whether a row exists, not load it
+    default boolean existsByUsernameIgnoreCase(String username) {
+        String normalized = LocalUser.normalize(username);
+        return existsByUsernameNormalized(normalized) || existsUnnormalizedByUsername(normalized);
+    }
+
+    default boolean existsByEmailIgnoreCase(String email) {
+        String normalized = LocalUser.normalize(email);
+        return existsByEmailNormalized(normalized) || existsUnnormalizedByEmail(normalized);
+    }
+
+    boolean existsByPhoneNumber(String phoneNumber);
+
+    Optional<LocalUser> findByUsernameNormalized(String usernameNormalized);
+
+    Optional<LocalUser> findByEmailNormalized(String emailNormalized);
+
+    boolean existsByUsernameNormalized(String usernameNormalized);
+
+    boolean existsByEmailNormalized(String emailNormalized);
+
+    // Old-style lookups restricted to rows whose normalized column is still null, i.e. the few the backfill had
+    // to skip; the null check keeps them on the normalized column's index
+    @Query("select u from LocalUser u where u.usernameNormalized is null and lower(u.username) = :username")
+    Optional<LocalUser> findUnnormalizedByUsername(String username);
+
+    @Query("select u from LocalUser u where u.emailNormalized is null and lower(u.email) = :email")
+    Optional<LocalUser> findUnnormalizedByEmail(String email);
+
+    @Query("select count(u) > 0 from LocalUser u where u.usernameNormalized is null and lower(u.username) = :username")
+    boolean existsUnnormalizedByUsername(String username);
+
+    @Query("select count(u) > 0 from LocalUser u where u.emailNormalized is null and lower(u.email) = :email")
+    boolean existsUnnormalizedByEmail(String email);
+
+    // Rows written before the normalized columns existed, a page at a time after the given id for the backfill
+    @Query("select u from LocalUser u where u.id > :afterId " +
+            "and (u.usernameNormalized is null or u.emailNormalized is null) order by u.id")
+    List<LocalUser> findUnnormalizedAfter(Long afterId, Pageable pageable);
+
+    // User together with its addresses, for the profile endpoint
+    @EntityGraph(LocalUser.PROFILE_GRAPH)
+    Optional<LocalUser> findWithAddressesById(Long id);
+
+    // Unique keys of users after the given id, a page at a time, for rebuilding the registration filter
+    @Query("select u.id as id, u.username as username, u.email as email, u.phoneNumber as phoneNumber " +
+            "from LocalUser u where u.id > :afterId order by u.id")
+    List<UniqueKeys> findUniqueKeysAfter(Long afterId, Pageable pageable);
+
+    interface UniqueKeys {
+        Long getId();
+
+        String getUsername();
+
+        String getEmail();
+
+        String getPhoneNumber();
+    }
 }
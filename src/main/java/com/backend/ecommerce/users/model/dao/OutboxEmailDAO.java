@@ -0,0 +1,35 @@
+package com.backend.ecommerce.users.model.dao;
+
+import com.backend.ecommerce.users.model.EmailStatus;
+import com.backend.ecommerce.users.model.OutboxEmail;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+public interface OutboxEmailDAO extends JpaRepository<OutboxEmail, Long> {
+
+    // Due emails plus ones whose claim went stale (dispatcher died mid-send). SKIP LOCKED (-2) lets several
+    // dispatchers claim disjoint batches without waiting on each other.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select e from OutboxEmail e " +
+            "where (e.status = :pending and e.nextAttemptAt <= :now) " +
+            "or (e.status = :sending and e.claimedAt < :staleBefore) " +
+            "order by e.id")
+    List<OutboxEmail> findClaimable(EmailStatus pending, EmailStatus sending, Timestamp now,
+                                    Timestamp staleBefore, Pageable pageable);
+
+    // Delivered and abandoned emails past their retention, a bounded batch per statement like the token purge
+    @Modifying
+    @Query(value = "DELETE FROM email_outbox WHERE status IN ('SENT', 'FAILED') AND created_at < :createdBefore " +
+            "LIMIT :limit", nativeQuery = true)
+    int deleteFinishedBefore(Timestamp createdBefore, int limit);
+}
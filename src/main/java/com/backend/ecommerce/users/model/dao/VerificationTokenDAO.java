@@ -2,15 +2,44 @@ package com.backend.ecommerce.users.model.dao;
 
 import com.backend.ecommerce.users.model.LocalUser;
 import com.backend.ecommerce.users.model.VerificationToken;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.ListCrudRepository;
 
+import java.sql.Timestamp;
+import java.util.List;
 import java.util.Optional;
 
 public interface VerificationTokenDAO extends ListCrudRepository<VerificationToken, Long> {
 
-    // Find a VerificationToken by its token value
-    Optional<VerificationToken> findByToken(String token);
+    // Find a VerificationToken by the SHA-256 hex of its token value
+    Optional<VerificationToken> findByTokenHash(String tokenHash);
+
+    // Rows written before token_hash existed, fetched a page at a time for the backfill
+    List<VerificationToken> findTop500ByTokenHashIsNullOrderById();
+
+    // Most recently issued token of a user
+    Optional<VerificationToken> findFirstByUserOrderByIdDesc(LocalUser user);
 
     // Delete all tokens associated with a specific user
     void deleteByUser(LocalUser user);
+
+    // Raw tokens left on rows hashed before the column stopped being written
+    @Modifying
+    @Query(value = "UPDATE verification_token SET token = '' WHERE token_hash IS NOT NULL AND token <> '' LIMIT :limit",
+            nativeQuery = true)
+    int clearLegacyTokens(int limit);
+
+    // Both purges delete a bounded batch per statement so they never hold long locks on the table
+    @Modifying
+    @Query(value = "DELETE FROM verification_token WHERE created_timestamp < :expiredBefore LIMIT :limit",
+            nativeQuery = true)
+    int deleteExpired(Timestamp expiredBefore, int limit);
+
+    // Leftovers of users that are already verified
+    @Modifying
+    @Query(value = "DELETE FROM verification_token " +
+            "WHERE user_id IN (SELECT id FROM local_user WHERE email_verified = true) LIMIT :limit",
+            nativeQuery = true)
+    int deleteOrphaned(int limit);
 }
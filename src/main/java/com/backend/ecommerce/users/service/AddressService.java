@@ -1,7 +1,7 @@
 package com.backend.ecommerce.users.service;
 
 import com.backend.ecommerce.users.model.Address;
-import com.backend.ecommerce.users.model.LocalUser;
+import com.backend.ecommerce.users.model.UserPrincipal;
 import com.backend.ecommerce.users.model.dao.AddressDAO;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -14,17 +14,22 @@ import java.util.Optional;
 public class AddressService {
 
     private final AddressDAO addressDAO;
+    private final PrincipalCache principalCache;
 
-    public AddressService(AddressDAO addressDAO) {
+    public AddressService(AddressDAO addressDAO, PrincipalCache principalCache) {
         this.addressDAO = addressDAO;
+        this.principalCache = principalCache;
     }
 
     public List<Address> getAddressesByUserId(Long userId) {
         return addressDAO.findByUserId(userId);
     }
 
-    public Address createAddress(Address address) {
-        return addressDAO.save(address);
+    // The address's user is usually an uninitialized reference, so the cache entry is dropped by the caller's username
+    public Address createAddress(Address address, UserPrincipal user) {
+        Address savedAddress = addressDAO.save(address);
+        principalCache.invalidate(user);
+        return savedAddress;
     }
 
     public Optional<Address> getAddressById(Long addressId) {
@@ -32,7 +37,7 @@ public class AddressService {
     }
 
     @Transactional
-    public Address updateAddress(Long addressId, Address updatedAddress, LocalUser user) {
+    public Address updateAddress(Long addressId, Address updatedAddress, UserPrincipal user) {
         Optional<Address> existingAddressOpt = addressDAO.findById(addressId);
         if (existingAddressOpt.isPresent()) {
             Address existingAddress = existingAddressOpt.get();
@@ -41,17 +46,20 @@ public class AddressService {
                 existingAddress.setCity(updatedAddress.getCity());
                 existingAddress.setCountry(updatedAddress.getCountry());
                 existingAddress.setPostalCode(updatedAddress.getPostalCode());
-                return addressDAO.save(existingAddress);
+                Address savedAddress = addressDAO.save(existingAddress);
+                principalCache.invalidate(user);
+                return savedAddress;
             }
         }
         return null;
     }
 
     @Transactional
-    public boolean deleteAddress(Long addressId, LocalUser user) {
+    public boolean deleteAddress(Long addressId, UserPrincipal user) {
         Optional<Address> existingAddressOpt = addressDAO.findById(addressId);
         if (existingAddressOpt.isPresent() && existingAddressOpt.get().getUser().getId().equals(user.getId())) {
             addressDAO.deleteById(addressId);
+            principalCache.invalidate(user);
             return true;
         }
         return false;
@@ -61,8 +69,10 @@ public class AddressService {
         return addressDAO.findById(addressId);
     }
 
-    public Address save(Address existingAddress) {
-        return addressDAO.save(existingAddress);
+    public Address save(Address existingAddress, UserPrincipal user) {
+        Address savedAddress = addressDAO.save(existingAddress);
+        principalCache.invalidate(user);
+        return savedAddress;
     }
 }
 
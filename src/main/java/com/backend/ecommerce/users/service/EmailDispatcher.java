@@ -0,0 +1,153 @@
+package com.backend.ecommerce.users.service;
+
+import com.backend.ecommerce.users.model.EmailStatus;
+import com.backend.ecommerce.users.model.OutboxEmail;
+import com.backend.ecommerce.users.model.dao.OutboxEmailDAO;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Delivers queued emails in the background: claims a batch from the outbox, sends it outside of any
+ * transaction over pooled SMTP sessions and records the outcome per message, retrying failures with
+ * exponential backoff. Bodies carry single-use tokens, so they are blanked once a message is sent or given
+ * up on, and finished rows are purged after a short retention.
+ */
+@Component
+public class EmailDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailDispatcher.class);
+
+    @Value("${spring.mail.username}")
+    private String fromAddress;
+    @Value("${email.outbox.batchSize}")
+    private int batchSize;
+    @Value("${email.outbox.maxAttempts}")
+    private int maxAttempts;
+    @Value("${email.outbox.backoffMillis}")
+    private long backoffMillis;
+    @Value("${email.outbox.claimTimeoutMillis}")
+    private long claimTimeoutMillis;
+    @Value("${email.outbox.retentionMillis}")
+    private long retentionMillis;
+    @Value("${email.outbox.purgeBatchSize}")
+    private int purgeBatchSize;
+
+    private final OutboxEmailDAO outboxEmailDAO;
+    private final JavaMailSender javaMailSender;
+    private final SmtpConnectionPool connectionPool;
+    private final TransactionTemplate transactionTemplate;
+
+    public EmailDispatcher(OutboxEmailDAO outboxEmailDAO, JavaMailSender javaMailSender,
+                           SmtpConnectionPool connectionPool, TransactionTemplate transactionTemplate) {
+        this.outboxEmailDAO = outboxEmailDAO;
+        this.javaMailSender = javaMailSender;
+        this.connectionPool = connectionPool;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Scheduled(fixedDelayString = "${email.outbox.pollIntervalMillis}")
+    public void dispatch() {
+        List<OutboxEmail> batch;
+        do {
+            batch = claimBatch();
+            if (!batch.isEmpty()) {
+                deliver(batch);
+                outboxEmailDAO.saveAll(batch);
+            }
+        } while (batch.size() == batchSize);
+    }
+
+    @Scheduled(fixedDelayString = "${email.outbox.purgeIntervalMillis}")
+    public void purge() {
+        Timestamp createdBefore = new Timestamp(System.currentTimeMillis() - retentionMillis);
+        int total = 0;
+        int deleted;
+        do {
+            deleted = transactionTemplate.execute(status ->
+                    outboxEmailDAO.deleteFinishedBefore(createdBefore, purgeBatchSize));
+            total += deleted;
+        } while (deleted == purgeBatchSize);
+        if (total > 0) {
+            logger.info("Purged {} sent or failed outbox emails", total);
+        }
+    }
+
+    private List<OutboxEmail> claimBatch() {
+        return transactionTemplate.execute(status -> {
+            Timestamp now = new Timestamp(System.currentTimeMillis());
+            Timestamp staleBefore = new Timestamp(now.getTime() - claimTimeoutMillis);
+            List<OutboxEmail> claimed = outboxEmailDAO.findClaimable(EmailStatus.PENDING, EmailStatus.SENDING,
+                    now, staleBefore, PageRequest.of(0, batchSize));
+            for (OutboxEmail email : claimed) {
+                email.setStatus(EmailStatus.SENDING);
+                email.setClaimedAt(now);
+            }
+            return claimed;
+        });
+    }
+
+    private void deliver(List<OutboxEmail> batch) {
+        List<OutboxEmail> sending = new ArrayList<>(batch.size());
+        List<MimeMessage> messages = new ArrayList<>(batch.size());
+        for (OutboxEmail email : batch) {
+            email.setAttempts(email.getAttempts() + 1);
+            try {
+                messages.add(toMessage(email));
+                sending.add(email);
+            } catch (MessagingException ex) {
+                scheduleRetry(email, ex);
+            }
+        }
+        Exception[] failures = connectionPool.send(messages);
+        Timestamp sentAt = new Timestamp(System.currentTimeMillis());
+        for (int i = 0; i < sending.size(); i++) {
+            OutboxEmail email = sending.get(i);
+            if (failures[i] == null) {
+                email.setStatus(EmailStatus.SENT);
+                email.setSentAt(sentAt);
+                email.setLastError(null);
+                email.setBody("");
+            } else {
+                scheduleRetry(email, failures[i]);
+            }
+        }
+    }
+
+    private MimeMessage toMessage(OutboxEmail email) throws MessagingException {
+        MimeMessage message = javaMailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, "UTF-8");
+        helper.setFrom(fromAddress);
+        helper.setTo(email.getRecipient());
+        helper.setSubject(email.getSubject());
+        helper.setText(email.getBody());
+        return message;
+    }
+
+    private void scheduleRetry(OutboxEmail email, Exception ex) {
+        String error = String.valueOf(ex.getMessage());
+        email.setLastError(error.length() > 1000 ? error.substring(0, 1000) : error);
+        if (email.getAttempts() >= maxAttempts) {
+            email.setStatus(EmailStatus.FAILED);
+            email.setBody("");
+            logger.error("Giving up on email {} to {} after {} attempts", email.getId(), email.getRecipient(), email.getAttempts(), ex);
+            return;
+        }
+        long delay = backoffMillis << Math.min(20, email.getAttempts() - 1);
+        email.setStatus(EmailStatus.PENDING);
+        email.setNextAttemptAt(new Timestamp(System.currentTimeMillis() + delay));
+        logger.warn("Failed to send email {} to {}, retrying in {} ms", email.getId(), email.getRecipient(), delay);
+    }
+}
@@ -1,57 +1,36 @@
 package com.backend.ecommerce.users.service;
 
-import com.backend.ecommerce.users.exception.EmailFailureException;
 import com.backend.ecommerce.users.model.LocalUser;
+import com.backend.ecommerce.users.model.OutboxEmail;
 import com.backend.ecommerce.users.model.VerificationToken;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.MailException;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
+import com.backend.ecommerce.users.model.dao.OutboxEmailDAO;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+// Emails are only queued here, within the caller's transaction; EmailDispatcher delivers them
 @SuppressWarnings("ALL")
 @Service
 public class EmailService {
 
-    @Value("${spring.mail.username}")
-    private String fromAddress;
+    private final OutboxEmailDAO outboxEmailDAO;
 
-    @Value("${app.frontend.url}")
-    private String url;
-
-    private JavaMailSender javaMailSender;
-
-    public EmailService(JavaMailSender javaMailSender) {
-        this.javaMailSender = javaMailSender;
-    }
-
-    private SimpleMailMessage makeMailMessage(){
-        SimpleMailMessage simpleMailMessage = new SimpleMailMessage();
-        simpleMailMessage.setFrom(fromAddress);
-        return simpleMailMessage;
+    public EmailService(OutboxEmailDAO outboxEmailDAO) {
+        this.outboxEmailDAO = outboxEmailDAO;
     }
 
-    public void sendVerificationEmail(VerificationToken verificationToken) throws EmailFailureException {
-        SimpleMailMessage message = makeMailMessage();
-        message.setTo(verificationToken.getUser().getEmail());
-        message.setSubject("Verify Your Email to Activate Your Account");
-        message.setText("Your verification token is: " + verificationToken.getToken());
-        try {
-            javaMailSender.send(message);
-        } catch (MailException ex) {
-            throw new EmailFailureException();
-        }
+    @Transactional
+    public void queueVerificationEmail(VerificationToken verificationToken) {
+        outboxEmailDAO.save(new OutboxEmail(
+                verificationToken.getUser().getEmail(),
+                "Verify Your Email to Activate Your Account",
+                "Your verification token is: " + verificationToken.getToken()));
     }
 
-    public void sendPasswordResetEmail(LocalUser user, String token) throws EmailFailureException {
-        SimpleMailMessage message = makeMailMessage();
-        message.setTo(user.getEmail());
-        message.setSubject("Reset Your Password");
-        message.setText("Your password reset token is: " + token);
-        try {
-            javaMailSender.send(message);
-        } catch (MailException ex) {
-            throw new EmailFailureException();
-        }
+    @Transactional
+    public void queuePasswordResetEmail(LocalUser user, String token) {
+        outboxEmailDAO.save(new OutboxEmail(
+                user.getEmail(),
+                "Reset Your Password",
+                "Your password reset token is: " + token));
     }
 }
@@ -1,26 +1,183 @@
 package com.backend.ecommerce.users.service;
 
+import com.backend.ecommerce.users.exception.PasswordHashingRejectedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.security.crypto.bcrypt.BCrypt;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 @Service
-public class EncryptionService {
+public class EncryptionService implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(EncryptionService.class);
+    private static final int MAX_CALIBRATED_ROUNDS = 16;
+    private static final String CALIBRATION_PASSWORD = "calibration-Passw0rd";
 
+    // Lower bound for the cost factor, calibration only ever goes above it
     @Value("${encryption.salt.rounds}")
     private int saltRounds;
+    @Value("${encryption.calibration.enabled}")
+    private boolean calibrationEnabled;
+    @Value("${encryption.calibration.targetMillis}")
+    private long calibrationTargetMillis;
+    private volatile int currentRounds;
+
+    // BCrypt runs on its own bounded pool so a login burst can't pin every request thread. Load is shed by the
+    // bounded queue; the timeout only stops a caller from waiting, since a running hash can't be interrupted.
+    private final ThreadPoolExecutor hashingExecutor;
+    private final int queueCapacity;
+    private final long timeoutMillis;
+    private final Timer hashTimer;
+    private final Counter rejections;
+
+    public EncryptionService(@Value("${encryption.executor.threads}") int threads,
+                             @Value("${encryption.executor.queueCapacity}") int queueCapacity,
+                             @Value("${encryption.executor.timeoutMillis}") long timeoutMillis,
+                             MeterRegistry meterRegistry) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.hashingExecutor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("bcrypt-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.queueCapacity = queueCapacity;
+        this.timeoutMillis = timeoutMillis;
+        this.hashTimer = Timer.builder("auth.hashing.latency")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.rejections = Counter.builder("auth.hashing.rejected").register(meterRegistry);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("auth.hashing.queue.depth", hashingExecutor, executor -> executor.getQueue().size())
+                .register(registry);
+        Gauge.builder("auth.hashing.active", hashingExecutor, ThreadPoolExecutor::getActiveCount)
+                .register(registry);
+        Gauge.builder("auth.hashing.cost", this, EncryptionService::getCurrentRounds)
+                .register(registry);
+    }
+
+    // Picks the highest cost factor whose hash time stays within the configured budget on this hardware
+    @PostConstruct
+    public void calibrate() {
+        int rounds = saltRounds;
+        if (calibrationEnabled) {
+            // Best of two runs so JIT warm-up doesn't skew the baseline
+            long elapsed = Math.min(measureHash(rounds), measureHash(rounds));
+            // Each extra round doubles the work
+            while (rounds < MAX_CALIBRATED_ROUNDS && elapsed * 2 <= calibrationTargetMillis) {
+                rounds++;
+                elapsed = measureHash(rounds);
+            }
+            logger.info("BCrypt cost calibrated to {} ({} ms per hash, budget {} ms)", rounds, elapsed, calibrationTargetMillis);
+            warnIfTimeoutTooShort(elapsed);
+        }
+        currentRounds = rounds;
+    }
+
+    // A caller at the back of a full queue waits for every hash ahead of it, then its own
+    private void warnIfTimeoutTooShort(long hashMillis) {
+        int poolSize = hashingExecutor.getMaximumPoolSize();
+        long worstCaseMillis = ((queueCapacity + poolSize - 1) / poolSize + 1) * hashMillis;
+        if (timeoutMillis > 0 && timeoutMillis < worstCaseMillis) {
+            logger.warn("encryption.executor.timeoutMillis ({} ms) is below the worst-case queue wait plus hash time"
+                    + " ({} ms); callers behind a full queue will get 503s", timeoutMillis, worstCaseMillis);
+        }
+    }
+
+    public int getCurrentRounds() {
+        return currentRounds;
+    }
+
+    // True when the stored hash is weaker than this node's cost. A node that calibrated lower never downgrades
+    // hashes written by a faster one, so mixed hardware doesn't rehash the same user back and forth.
+    public boolean needsRehash(String hashedPassword) {
+        if (hashedPassword == null || hashedPassword.length() < 7 || hashedPassword.charAt(0) != '$') {
+            return false;
+        }
+        try {
+            // Format is $2a$10$..., the cost sits between the second and third '$'
+            int start = hashedPassword.indexOf('$', 1) + 1;
+            int end = hashedPassword.indexOf('$', start);
+            return Integer.parseInt(hashedPassword.substring(start, end)) < currentRounds;
+        } catch (RuntimeException ex) {
+            return false;
+        }
+    }
+
+    private long measureHash(int rounds) {
+        long start = System.nanoTime();
+        BCrypt.hashpw(CALIBRATION_PASSWORD, BCrypt.gensalt(rounds));
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
 
     public String encryptPassword(String password) {
         if (password == null || password.isEmpty()) {
             throw new IllegalArgumentException("Password cannot be null or empty");
         }
-        return BCrypt.hashpw(password, BCrypt.gensalt(saltRounds));
+        int rounds = currentRounds;
+        return runHashing(() -> BCrypt.hashpw(password, BCrypt.gensalt(rounds)));
     }
 
     public boolean verifyPassword(String password, String hashedPassword) {
         if (password == null || hashedPassword == null) {
             throw new IllegalArgumentException("Password and hashed password cannot be null");
         }
-        return BCrypt.checkpw(password, hashedPassword);
+        return runHashing(() -> BCrypt.checkpw(password, hashedPassword));
+    }
+
+    private <T> T runHashing(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = hashingExecutor.submit(() -> hashTimer.recordCallable(task));
+        } catch (RejectedExecutionException ex) {
+            rejections.increment();
+            throw new PasswordHashingRejectedException("Password hashing queue is full");
+        }
+        try {
+            return timeoutMillis > 0 ? future.get(timeoutMillis, TimeUnit.MILLISECONDS) : future.get();
+        } catch (TimeoutException ex) {
+            abandon(future);
+            rejections.increment();
+            throw new PasswordHashingRejectedException("Password hashing timed out");
+        } catch (InterruptedException ex) {
+            abandon(future);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingRejectedException("Interrupted while waiting for password hashing");
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", ex.getCause());
+        }
+    }
+
+    // BCrypt ignores interrupts, so only a hash that hasn't started yet can be skipped; it also gives up its queue slot
+    private void abandon(Future<?> future) {
+        if (future.cancel(false) && future instanceof Runnable queued) {
+            hashingExecutor.remove(queued);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hashingExecutor.shutdown();
     }
 }
@@ -1,15 +1,23 @@
 package com.backend.ecommerce.users.service;
 
 import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTCreator;
+import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.Claim;
 import com.auth0.jwt.interfaces.DecodedJWT;
+import com.backend.ecommerce.common.cache.ExpiringCache;
+import com.backend.ecommerce.users.model.AuthenticatedUser;
 import com.backend.ecommerce.users.model.LocalUser;
+import com.backend.ecommerce.users.service.revocation.TokenRevocationStore;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import java.time.Duration;
 import java.util.Date;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.UUID;
 
 @Service
 public class JWTService {
@@ -20,17 +28,75 @@ public class JWTService {
     private String issuer;
     @Value("${jwt.expiryInSeconds}")
     private int expiryInSeconds;
+    // Stateless mode: short-lived access tokens carry the principal claims, refresh tokens renew them
+    @Value("${jwt.stateless.enabled}")
+    private boolean statelessEnabled;
+    @Value("${jwt.stateless.accessExpiryInSeconds}")
+    private int accessExpiryInSeconds;
+    @Value("${jwt.stateless.refreshExpiryInSeconds}")
+    private int refreshExpiryInSeconds;
+    @Value("${jwt.verifiedCache.enabled}")
+    private boolean verifiedCacheEnabled;
+    @Value("${jwt.verifiedCache.maxSize}")
+    private int verifiedCacheMaxSize;
     private Algorithm algorithm;
+    private JWTVerifier accessTokenVerifier;
+    private JWTVerifier passwordResetVerifier;
+    private JWTVerifier refreshTokenVerifier;
+    // Logout accepts access tokens that already expired, the session they belong to may still need revoking
+    private JWTVerifier logoutVerifier;
+    // Tokens that already passed verification, keyed by purpose and token digest, expiring at the token's exp
+    private ExpiringCache<String, DecodedJWT> verifiedTokens;
+    private final MeterRegistry meterRegistry;
+    private final TokenRevocationStore revocationStore;
     private static final String USERNAME_KEY = "USERNAME";
+    private static final String USER_ID_KEY = "USER_ID";
+    private static final String EMAIL_VERIFIED_KEY = "EMAIL_VERIFIED";
+    private static final String REFRESH_USER_ID_KEY = "REFRESH_USER_ID";
+    private static final String TOKEN_VERSION_KEY = "TOKEN_VERSION";
+    // Shared by the access and refresh tokens of one login, so logging out with either ends the whole session
+    private static final String SESSION_ID_KEY = "SESSION_ID";
+    private static final String SESSION_REVOCATION_PREFIX = "session:";
     private static final String VERIFICATION_EMAIL_KEY = "VERIFICATION_EMAIL";
     private static final String RESET_PASSWORD_EMAIL_KEY = "RESET_PASSWORD_EMAIL";
 
+    public JWTService(MeterRegistry meterRegistry, TokenRevocationStore revocationStore) {
+        this.meterRegistry = meterRegistry;
+        this.revocationStore = revocationStore;
+    }
+
     @PostConstruct
     public void postConstruct() {
         algorithm = Algorithm.HMAC256(algorithmKey);
+        accessTokenVerifier = JWT.require(algorithm).withIssuer(issuer).withClaimPresence(USERNAME_KEY).build();
+        passwordResetVerifier = JWT.require(algorithm).withIssuer(issuer).withClaimPresence(RESET_PASSWORD_EMAIL_KEY).build();
+        refreshTokenVerifier = JWT.require(algorithm).withIssuer(issuer).withClaimPresence(REFRESH_USER_ID_KEY).build();
+        // Once an access token is older than the refresh expiry, every refresh token of its session has expired too
+        logoutVerifier = JWT.require(algorithm).withIssuer(issuer).withClaimPresence(USERNAME_KEY)
+                .acceptExpiresAt(refreshExpiryInSeconds).build();
+        verifiedTokens = new ExpiringCache<>(verifiedCacheMaxSize, Duration.ofSeconds(expiryInSeconds));
+        verifiedTokens.bindTo(meterRegistry, "verified-tokens");
     }
 
     public String generateJWT(LocalUser user) {
+        return generateJWT(user, null);
+    }
+
+    // Stateless access tokens carry the session id of the login they belong to, if any
+    public String generateJWT(LocalUser user, String sessionId) {
+        if (statelessEnabled) {
+            JWTCreator.Builder token = JWT.create()
+                    .withClaim(USERNAME_KEY, user.getUsername())
+                    .withClaim(USER_ID_KEY, user.getId())
+                    .withClaim(EMAIL_VERIFIED_KEY, user.isEmailVerified());
+            if (sessionId != null) {
+                token.withClaim(SESSION_ID_KEY, sessionId);
+            }
+            return token
+                    .withExpiresAt(new Date(System.currentTimeMillis() + (1000L * accessExpiryInSeconds)))
+                    .withIssuer(issuer)
+                    .sign(algorithm);
+        }
         return JWT.create()
                 .withClaim(USERNAME_KEY, user.getUsername())
                 .withExpiresAt(new Date(System.currentTimeMillis() + (1000 * expiryInSeconds)))
@@ -38,6 +104,24 @@ public class JWTService {
                 .sign(algorithm);
     }
 
+    public String newSessionId() {
+        return UUID.randomUUID().toString();
+    }
+
+    public String generateRefreshJWT(LocalUser user, String sessionId) {
+        return JWT.create()
+                .withClaim(REFRESH_USER_ID_KEY, user.getId())
+                .withClaim(TOKEN_VERSION_KEY, user.getTokenVersion())
+                .withClaim(SESSION_ID_KEY, sessionId)
+                .withExpiresAt(new Date(System.currentTimeMillis() + (1000L * refreshExpiryInSeconds)))
+                .withIssuer(issuer)
+                .sign(algorithm);
+    }
+
+    public boolean isStatelessEnabled() {
+        return statelessEnabled;
+    }
+
     public String generateVerificationJWT(LocalUser user) {
         return JWT.create()
                 .withClaim(VERIFICATION_EMAIL_KEY, user.getEmail())
@@ -55,25 +139,89 @@ public class JWTService {
     }
 
     public String getResetPasswordEmail(String token) {
-        DecodedJWT jwt = JWT.require(algorithm).withIssuer(issuer).build().verify(token);
+        DecodedJWT jwt = verify(passwordResetVerifier, RESET_PASSWORD_EMAIL_KEY, token);
         return jwt.getClaim(RESET_PASSWORD_EMAIL_KEY).asString();
     }
 
     public String getUsername(String token) {
-        DecodedJWT jwt = JWT.require(algorithm).withIssuer(issuer).build().verify(token);
+        DecodedJWT jwt = verify(accessTokenVerifier, USERNAME_KEY, token);
         return jwt.getClaim(USERNAME_KEY).asString();
     }
 
-    private Set<String> invalidatedTokens = new HashSet<>();
+    // Principal built from the token claims only, null for tokens issued without them
+    public AuthenticatedUser getAuthenticatedUser(String token) {
+        DecodedJWT jwt = verify(accessTokenVerifier, USERNAME_KEY, token);
+        Claim userId = jwt.getClaim(USER_ID_KEY);
+        Claim emailVerified = jwt.getClaim(EMAIL_VERIFIED_KEY);
+        if (userId.isMissing() || emailVerified.isMissing()) {
+            return null;
+        }
+        return new AuthenticatedUser(userId.asLong(), jwt.getClaim(USERNAME_KEY).asString(), emailVerified.asBoolean());
+    }
+
+    // Claims of a valid refresh token; revocation and the user's token version are for the caller to check
+    public RefreshClaims getRefreshClaims(String token) {
+        DecodedJWT jwt = verify(refreshTokenVerifier, REFRESH_USER_ID_KEY, token);
+        return new RefreshClaims(jwt.getClaim(REFRESH_USER_ID_KEY).asLong(), jwt.getClaim(TOKEN_VERSION_KEY).asLong(),
+                jwt.getClaim(SESSION_ID_KEY).asString());
+    }
+
+    // Repeat verifications of the same token are answered from the cache, skipping the HMAC check and claim parsing.
+    // Cached entries expire at the token's exp, and revocation is checked on every call, cached or not.
+    private DecodedJWT verify(JWTVerifier verifier, String purpose, String token) {
+        String digest = TokenDigest.sha256Hex(token);
+        if (revocationStore.isRevoked(digest)) {
+            throw new JWTVerificationException("The Token has been revoked.");
+        }
+        if (!verifiedCacheEnabled) {
+            return verifier.verify(token);
+        }
+        String key = purpose + ':' + digest;
+        DecodedJWT jwt = verifiedTokens.get(key);
+        if (jwt == null) {
+            jwt = verifier.verify(token);
+            if (jwt.getExpiresAt() != null) {
+                verifiedTokens.put(key, jwt, jwt.getExpiresAt().getTime());
+            }
+        }
+        return jwt;
+    }
+
+    // Invalidate the JWT token on logout, it is remembered only until it would have expired anyway. A stateless
+    // token also ends its session, so refresh tokens of the same login can't mint new access tokens. The signature
+    // is checked but an expired token is still accepted, returns the username it was issued to.
+    public String invalidateToken(String token) {
+        DecodedJWT jwt = logoutVerifier.verify(token);
+        String digest = TokenDigest.sha256Hex(token);
+        revocationStore.revoke(digest, jwt.getExpiresAt().getTime());
+        if (verifiedCacheEnabled) {
+            verifiedTokens.invalidate(USERNAME_KEY + ':' + digest);
+        }
+        String sessionId = jwt.getClaim(SESSION_ID_KEY).asString();
+        if (sessionId != null) {
+            // No refresh token of the session outlives its login by more than the refresh expiry
+            revocationStore.revoke(SESSION_REVOCATION_PREFIX + sessionId,
+                    System.currentTimeMillis() + 1000L * refreshExpiryInSeconds);
+        }
+        return jwt.getClaim(USERNAME_KEY).asString();
+    }
 
-    // Invalidate the JWT token on logout
-    public void invalidateToken(String token) {
-        invalidatedTokens.add(token);
+    public void invalidateRefreshToken(String token) {
+        DecodedJWT jwt = verify(refreshTokenVerifier, REFRESH_USER_ID_KEY, token);
+        revocationStore.revoke(TokenDigest.sha256Hex(token), jwt.getExpiresAt().getTime());
     }
 
     // Check if the token is invalidated
     public boolean isTokenInvalidated(String token) {
-        return invalidatedTokens.contains(token);
+        return revocationStore.isRevoked(TokenDigest.sha256Hex(token));
+    }
+
+    public boolean isSessionInvalidated(String sessionId) {
+        return sessionId != null && revocationStore.isRevoked(SESSION_REVOCATION_PREFIX + sessionId);
+    }
+
+    // tokenVersion and sessionId are null for refresh tokens issued without them
+    public record RefreshClaims(Long userId, Long tokenVersion, String sessionId) {
     }
 
 }
@@ -0,0 +1,75 @@
+package com.backend.ecommerce.users.service;
+
+import com.backend.ecommerce.common.cache.ExpiringCache;
+import com.backend.ecommerce.common.web.StripedVersions;
+import com.backend.ecommerce.users.model.LocalUser;
+import com.backend.ecommerce.users.model.UserPrincipal;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Authenticated users resolved by {@link com.backend.ecommerce.users.api.security.JWTRequestFilter},
+ * keyed by lower-cased username so repeat requests don't go back to the database.
+ * <p>
+ * The cache is per instance and invalidation only reaches the instance that made the change. Other
+ * instances keep serving the previous state of a changed or deleted user until the entry expires, so
+ * {@code auth.principal.cache.expiryInSeconds} is the upper bound on that staleness.
+ */
+@Component
+public class PrincipalCache {
+
+    private final ExpiringCache<String, LocalUser> cache;
+    // Every invalidation is a change to the user or its addresses, so it also versions the /user/me profile
+    private final StripedVersions profileVersions = new StripedVersions(4096);
+
+    public PrincipalCache(@Value("${auth.principal.cache.maxSize}") int maxSize,
+                          @Value("${auth.principal.cache.expiryInSeconds}") long expiryInSeconds,
+                          MeterRegistry meterRegistry) {
+        this.cache = new ExpiringCache<>(maxSize, Duration.ofSeconds(expiryInSeconds));
+        this.cache.bindTo(meterRegistry, "principals");
+    }
+
+    public LocalUser get(String username) {
+        if (username == null) {
+            return null;
+        }
+        return cache.get(key(username));
+    }
+
+    public void put(LocalUser user) {
+        cache.put(key(user.getUsername()), user);
+    }
+
+    public void invalidate(UserPrincipal user) {
+        if (user != null && user.getUsername() != null) {
+            cache.invalidate(key(user.getUsername()));
+        }
+        if (user != null && user.getId() != null) {
+            profileVersions.bump(user.getId());
+        }
+    }
+
+    public long profileVersion(Long userId) {
+        return profileVersions.get(userId);
+    }
+
+    public long hitCount() {
+        return cache.hitCount();
+    }
+
+    public long missCount() {
+        return cache.missCount();
+    }
+
+    public long evictionCount() {
+        return cache.evictionCount();
+    }
+
+    private static String key(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,138 @@
+package com.backend.ecommerce.users.service;
+
+import com.backend.ecommerce.common.bloom.BloomFilter;
+import com.backend.ecommerce.users.model.LocalUser;
+import com.backend.ecommerce.users.model.dao.LocalUserDAO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Bloom filter over every registered username, email and phone number. A definite "no" lets registration
+ * skip the duplicate pre-check queries; the unique constraints on local_user still have the final word.
+ * Rebuilt from the database periodically, so deleted users and sizing drift don't accumulate. The first
+ * build runs in the background after startup; until it is done every check answers "maybe".
+ */
+@Component
+public class RegistrationFilter implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(RegistrationFilter.class);
+    private static final int PAGE_SIZE = 5000;
+
+    private final LocalUserDAO localUserDAO;
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+
+    // Null until the first build completes; until then every check is a "maybe"
+    private volatile BloomFilter current;
+    // Filter being rebuilt, so registrations during the rebuild land in both
+    private volatile BloomFilter building;
+
+    private final Counter negatives;
+    private final Counter maybes;
+
+    public RegistrationFilter(LocalUserDAO localUserDAO,
+                              @Value("${registration.bloom.expectedInsertions}") long expectedInsertions,
+                              @Value("${registration.bloom.falsePositiveRate}") double falsePositiveRate,
+                              MeterRegistry meterRegistry) {
+        this.localUserDAO = localUserDAO;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+
+        this.negatives = Counter.builder("registration.bloom.checks").tag("result", "negative").register(meterRegistry);
+        this.maybes = Counter.builder("registration.bloom.checks").tag("result", "maybe").register(meterRegistry);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("registration.bloom.bits", this, f -> f.current == null ? 0 : f.current.bitSize())
+                .register(registry);
+        Gauge.builder("registration.bloom.insertions", this, f -> f.current == null ? 0 : f.current.insertionCount())
+                .register(registry);
+        Gauge.builder("registration.bloom.falsePositiveRate", this,
+                f -> f.current == null ? 1 : f.current.expectedFalsePositiveRate()).register(registry);
+    }
+
+    // False only if none of the keys belongs to a registered user
+    public boolean mightExist(String username, String email, String phoneNumber) {
+        BloomFilter filter = current;
+        boolean maybe = filter == null
+                || filter.mightContain(usernameKey(username))
+                || filter.mightContain(emailKey(email))
+                || filter.mightContain(phoneKey(phoneNumber));
+        (maybe ? maybes : negatives).increment();
+        return maybe;
+    }
+
+    public void record(LocalUser user) {
+        add(current, user.getUsername(), user.getEmail(), user.getPhoneNumber());
+        add(building, user.getUsername(), user.getEmail(), user.getPhoneNumber());
+    }
+
+    // Scanning every user takes a while on a large table, so the first build doesn't hold up startup
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildInBackground() {
+        Thread thread = new Thread(this::rebuild, "registration-filter-build");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Scheduled(initialDelayString = "${registration.bloom.rebuildIntervalMillis}",
+            fixedDelayString = "${registration.bloom.rebuildIntervalMillis}")
+    public void rebuild() {
+        long users = localUserDAO.count();
+        // Three keys per user, with headroom for sign-ups until the next rebuild
+        BloomFilter filter = new BloomFilter(Math.max(expectedInsertions, users * 3 * 2), falsePositiveRate);
+        building = filter;
+        try {
+            long afterId = 0;
+            List<LocalUserDAO.UniqueKeys> page;
+            do {
+                page = localUserDAO.findUniqueKeysAfter(afterId, PageRequest.of(0, PAGE_SIZE));
+                for (LocalUserDAO.UniqueKeys keys : page) {
+                    add(filter, keys.getUsername(), keys.getEmail(), keys.getPhoneNumber());
+                    afterId = keys.getId();
+                }
+            } while (page.size() == PAGE_SIZE);
+            current = filter;
+            logger.info("Registration filter rebuilt: {} keys in {} bits", filter.insertionCount(), filter.bitSize());
+        } catch (RuntimeException ex) {
+            // Keep the previous filter; it only misses users registered elsewhere since, which the constraints catch
+            logger.error("Failed to rebuild registration filter", ex);
+        } finally {
+            building = null;
+        }
+    }
+
+    private static void add(BloomFilter filter, String username, String email, String phoneNumber) {
+        if (filter == null) {
+            return;
+        }
+        filter.put(usernameKey(username));
+        filter.put(emailKey(email));
+        filter.put(phoneKey(phoneNumber));
+    }
+
+    private static String usernameKey(String username) {
+        return "u:" + LocalUser.normalize(username);
+    }
+
+    private static String emailKey(String email) {
+        return "e:" + LocalUser.normalize(email);
+    }
+
+    private static String phoneKey(String phoneNumber) {
+        return "p:" + phoneNumber;
+    }
+}
@@ -0,0 +1,221 @@
+package com.backend.ecommerce.users.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps authenticated SMTP sessions open between dispatcher runs so a batch of emails pays for the
+ * connect, STARTTLS and AUTH handshake once instead of once per message.
+ */
+@Component
+public class SmtpConnectionPool implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(SmtpConnectionPool.class);
+
+    private final JavaMailSenderImpl mailSender;
+    private final long maxIdleMillis;
+    private final int maxMessagesPerConnection;
+    private final long borrowTimeoutMillis;
+
+    // Most recently used first, so warm sessions get reused and cold ones age out at the tail
+    private final LinkedBlockingDeque<PooledTransport> idle = new LinkedBlockingDeque<>();
+    private final Semaphore permits;
+
+    private final Counter messagesSent;
+    private final Counter messagesFailed;
+    private final Counter connectionsOpened;
+    private final Counter connectionsReused;
+    private final Timer batchTimer;
+
+    public SmtpConnectionPool(JavaMailSenderImpl mailSender,
+                              @Value("${email.smtp.pool.maxConnections}") int maxConnections,
+                              @Value("${email.smtp.pool.maxIdleMillis}") long maxIdleMillis,
+                              @Value("${email.smtp.pool.maxMessagesPerConnection}") int maxMessagesPerConnection,
+                              @Value("${email.smtp.pool.borrowTimeoutMillis}") long borrowTimeoutMillis,
+                              MeterRegistry meterRegistry) {
+        this.mailSender = mailSender;
+        this.maxIdleMillis = maxIdleMillis;
+        this.maxMessagesPerConnection = maxMessagesPerConnection;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.permits = new Semaphore(maxConnections);
+
+        this.messagesSent = Counter.builder("mail.messages").tag("result", "sent").register(meterRegistry);
+        this.messagesFailed = Counter.builder("mail.messages").tag("result", "failed").register(meterRegistry);
+        this.connectionsOpened = Counter.builder("mail.connections").tag("source", "opened").register(meterRegistry);
+        this.connectionsReused = Counter.builder("mail.connections").tag("source", "reused").register(meterRegistry);
+        this.batchTimer = Timer.builder("mail.batch.duration").register(meterRegistry);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("mail.connections.idle", idle, LinkedBlockingDeque::size).register(registry);
+    }
+
+    /**
+     * Sends the messages over as few sessions as possible. The result is aligned with the input:
+     * {@code null} where the message was accepted, otherwise the exception that rejected it. A rejected
+     * recipient only fails its own message; a broken session is replaced for the rest of the batch.
+     */
+    public Exception[] send(List<MimeMessage> messages) {
+        Exception[] failures = new Exception[messages.size()];
+        if (messages.isEmpty()) {
+            return failures;
+        }
+        long start = System.nanoTime();
+        PooledTransport transport = null;
+        try {
+            for (int i = 0; i < messages.size(); i++) {
+                if (transport != null && transport.sent >= maxMessagesPerConnection) {
+                    release(transport);
+                    transport = null;
+                }
+                if (transport == null) {
+                    try {
+                        transport = borrow();
+                    } catch (MessagingException ex) {
+                        // No session to be had, don't hammer the server once per remaining message
+                        for (int j = i; j < messages.size(); j++) {
+                            failures[j] = ex;
+                            messagesFailed.increment();
+                        }
+                        return failures;
+                    }
+                }
+                MimeMessage message = messages.get(i);
+                try {
+                    message.saveChanges();
+                    transport.transport.sendMessage(message, message.getAllRecipients());
+                    transport.sent++;
+                    messagesSent.increment();
+                } catch (SendFailedException ex) {
+                    // The server refused this message's recipients, the session itself is still fine
+                    failures[i] = ex;
+                    messagesFailed.increment();
+                } catch (MessagingException ex) {
+                    // Anything else may leave the session mid-transaction, so continue on a fresh one
+                    failures[i] = ex;
+                    messagesFailed.increment();
+                    discard(transport);
+                    transport = null;
+                }
+            }
+            return failures;
+        } finally {
+            if (transport != null) {
+                release(transport);
+            }
+            batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Closes sessions the server is likely to have timed out on its side anyway
+    @Scheduled(fixedDelayString = "${email.smtp.pool.maxIdleMillis}")
+    public void evictIdle() {
+        long now = System.currentTimeMillis();
+        Iterator<PooledTransport> it = idle.descendingIterator();
+        while (it.hasNext()) {
+            PooledTransport transport = it.next();
+            if (now - transport.lastUsedAt >= maxIdleMillis && idle.remove(transport)) {
+                close(transport);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        PooledTransport transport;
+        while ((transport = idle.pollFirst()) != null) {
+            close(transport);
+        }
+    }
+
+    private PooledTransport borrow() throws MessagingException {
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new MessagingException("No SMTP connection available within " + borrowTimeoutMillis + " ms");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new MessagingException("Interrupted while waiting for an SMTP connection", ex);
+        }
+        try {
+            PooledTransport transport;
+            long now = System.currentTimeMillis();
+            while ((transport = idle.pollFirst()) != null) {
+                // isConnected() issues a NOOP, which catches sessions the server has dropped
+                if (now - transport.lastUsedAt < maxIdleMillis && transport.transport.isConnected()) {
+                    connectionsReused.increment();
+                    return transport;
+                }
+                close(transport);
+            }
+            return open();
+        } catch (MessagingException | RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+    }
+
+    private PooledTransport open() throws MessagingException {
+        // Same fallback as JavaMailSenderImpl when no protocol was configured
+        String protocol = mailSender.getProtocol() != null ? mailSender.getProtocol() : JavaMailSenderImpl.DEFAULT_PROTOCOL;
+        Transport transport = mailSender.getSession().getTransport(protocol);
+        transport.connect(mailSender.getHost(), mailSender.getPort(), mailSender.getUsername(), mailSender.getPassword());
+        connectionsOpened.increment();
+        return new PooledTransport(transport);
+    }
+
+    private void release(PooledTransport transport) {
+        if (transport.sent >= maxMessagesPerConnection) {
+            close(transport);
+        } else {
+            transport.lastUsedAt = System.currentTimeMillis();
+            idle.offerFirst(transport);
+        }
+        permits.release();
+    }
+
+    private void discard(PooledTransport transport) {
+        close(transport);
+        permits.release();
+    }
+
+    private void close(PooledTransport transport) {
+        try {
+            transport.transport.close();
+        } catch (MessagingException ex) {
+            logger.debug("Error closing SMTP connection", ex);
+        }
+    }
+
+    private static final class PooledTransport {
+        private final Transport transport;
+        private long lastUsedAt = System.currentTimeMillis();
+        // Messages sent since the session was opened, not just in the current batch
+        private int sent;
+
+        private PooledTransport(Transport transport) {
+            this.transport = transport;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.backend.ecommerce.users.service;
+
+import com.backend.ecommerce.users.model.LocalUser;
+import com.backend.ecommerce.users.model.dao.LocalUserDAO;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Fills username_normalized and email_normalized for users created before those columns existed;
+ * new and updated rows get them from {@link LocalUser#updateNormalizedFields()}. Runs during startup,
+ * before the web server takes requests, so lookups on the normalized columns see every row that can
+ * be normalized. Rows that clash with another account are skipped, {@link LocalUserDAO} still finds
+ * them through the old lower(column) lookup.
+ */
+@Component
+public class UserLookupBackfill {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserLookupBackfill.class);
+    private static final int BATCH_SIZE = 500;
+
+    private final LocalUserDAO localUserDAO;
+    private final TransactionTemplate transactionTemplate;
+
+    public UserLookupBackfill(LocalUserDAO localUserDAO, TransactionTemplate transactionTemplate) {
+        this.localUserDAO = localUserDAO;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @PostConstruct
+    public void backfill() {
+        int total = 0;
+        int skipped = 0;
+        long afterId = 0;
+        int fetched;
+        do {
+            List<LocalUser> batch = localUserDAO.findUnnormalizedAfter(afterId, PageRequest.of(0, BATCH_SIZE));
+            fetched = batch.size();
+            if (batch.isEmpty()) {
+                break;
+            }
+            afterId = batch.get(batch.size() - 1).getId();
+            try {
+                transactionTemplate.executeWithoutResult(status -> normalize(batch));
+                total += batch.size();
+            } catch (DataIntegrityViolationException ex) {
+                // Some account in the batch differs from another only in case; redo it row by row to find it
+                for (LocalUser user : batch) {
+                    try {
+                        transactionTemplate.executeWithoutResult(status -> normalize(List.of(user)));
+                        total++;
+                    } catch (DataIntegrityViolationException rowEx) {
+                        skipped++;
+                        logger.warn("Not normalizing user {}, its username or email differs from another account's only"
+                                + " in case and needs to be merged by hand", user.getId());
+                    }
+                }
+            }
+        } while (fetched == BATCH_SIZE);
+        if (total > 0 || skipped > 0) {
+            logger.info("Backfilled normalized username/email for {} users, skipped {}", total, skipped);
+        }
+    }
+
+    private void normalize(List<LocalUser> users) {
+        for (LocalUser user : users) {
+            user.updateNormalizedFields();
+        }
+        localUserDAO.saveAllAndFlush(users);
+    }
+}
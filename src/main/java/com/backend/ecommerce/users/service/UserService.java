@@ -1,22 +1,26 @@
 package com.backend.ecommerce.users.service;
 
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.backend.ecommerce.users.api.model.AuthTokens;
 import com.backend.ecommerce.users.api.model.LoginBody;
 import com.backend.ecommerce.users.api.model.PasswordResetBody;
 import com.backend.ecommerce.users.api.model.RegistrationBody;
-import com.backend.ecommerce.users.exception.EmailFailureException;
 import com.backend.ecommerce.users.exception.EmailNotFoundException;
+import com.backend.ecommerce.users.exception.PasswordHashingRejectedException;
 import com.backend.ecommerce.users.exception.UserAlreadyExistsException;
 import com.backend.ecommerce.users.exception.UserNotVerifiedException;
 import com.backend.ecommerce.users.model.LocalUser;
+import com.backend.ecommerce.users.model.UserPrincipal;
 import com.backend.ecommerce.users.model.VerificationToken;
 import com.backend.ecommerce.users.model.dao.LocalUserDAO;
 import com.backend.ecommerce.users.model.dao.VerificationTokenDAO;
 import jakarta.transaction.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import java.sql.Timestamp;
-import java.util.List;
 import java.util.Optional;
 
 @Service
@@ -29,19 +33,29 @@ public class UserService {
     private final JWTService jwtService;
     private final EmailService emailService;
     private final VerificationTokenDAO verificationTokenDAO;
+    private final PrincipalCache principalCache;
+    private final RegistrationFilter registrationFilter;
+    private final TransactionTemplate transactionTemplate;
 
     public UserService(LocalUserDAO localUserDAO, EncryptionService encryptionService, JWTService jwtService,
-                       EmailService emailService, VerificationTokenDAO verificationTokenDAO) {
+                       EmailService emailService, VerificationTokenDAO verificationTokenDAO,
+                       PrincipalCache principalCache, RegistrationFilter registrationFilter,
+                       TransactionTemplate transactionTemplate) {
         this.localUserDAO = localUserDAO;
         this.encryptionService = encryptionService;
         this.jwtService = jwtService;
         this.emailService = emailService;
         this.verificationTokenDAO = verificationTokenDAO;
+        this.principalCache = principalCache;
+        this.registrationFilter = registrationFilter;
+        this.transactionTemplate = transactionTemplate;
     }
 
-    public LocalUser registerUser(RegistrationBody registrationBody) throws UserAlreadyExistsException, EmailFailureException {
-        if (localUserDAO.findByEmailIgnoreCase(registrationBody.getEmail()).isPresent()
-                || localUserDAO.findByUsernameIgnoreCase(registrationBody.getUsername()).isPresent()) {
+    public LocalUser registerUser(RegistrationBody registrationBody) throws UserAlreadyExistsException {
+        // Most sign-ups are new; only when the filter can't rule out a duplicate is the database asked up front
+        if (registrationFilter.mightExist(registrationBody.getUsername(), registrationBody.getEmail(),
+                registrationBody.getPhoneNumber())
+                && isRegistered(registrationBody)) {
             logger.warn("User registration attempt failed - user already exists: {}", registrationBody.getEmail());
             throw new UserAlreadyExistsException();
         }
@@ -52,48 +66,83 @@ public class UserService {
         user.setLastName(registrationBody.getLastName());
         user.setEmail(registrationBody.getEmail());
         user.setPhoneNumber(registrationBody.getPhoneNumber());
-        user.setPassword(encryptionService.encryptPassword(registrationBody.getPassword()));
-        user.setConfirmPassword(encryptionService.encryptPassword(registrationBody.getConfirmPassword()));
+        String passwordHash = encryptionService.encryptPassword(registrationBody.getPassword());
+        user.setPassword(passwordHash);
+        // Only pay for a second BCrypt round when the confirmation actually differs
+        user.setConfirmPassword(registrationBody.getPassword().equals(registrationBody.getConfirmPassword())
+                ? passwordHash
+                : encryptionService.encryptPassword(registrationBody.getConfirmPassword()));
         VerificationToken verificationToken = createVerificationToken(user);
+        user.getVerificationTokens().add(verificationToken);
 
+        // The user, its token and the outgoing email commit together; delivery happens in the background.
+        // Hashing stays outside the transaction so no connection is held while BCrypt runs.
+        LocalUser savedUser;
         try {
-            emailService.sendVerificationEmail(verificationToken);
-            logger.info("Verification email sent for user: {}", registrationBody.getEmail());
-        } catch (EmailFailureException e) {
-            logger.error("Failed to send verification email for user: {}", registrationBody.getEmail(), e);
-            throw e;
+            savedUser = transactionTemplate.execute(status -> {
+                LocalUser saved = localUserDAO.save(user);
+                emailService.queueVerificationEmail(verificationToken);
+                return saved;
+            });
+        } catch (DataIntegrityViolationException ex) {
+            // A unique username, email or phone number the pre-check didn't see (skipped, or a concurrent sign-up).
+            // Any other violation is not a duplicate and goes to the caller as is.
+            if (!isRegistered(registrationBody)) {
+                throw ex;
+            }
+            logger.warn("User registration attempt failed - unique constraint violated: {}", registrationBody.getEmail());
+            throw new UserAlreadyExistsException();
         }
+        registrationFilter.record(savedUser);
+        logger.info("Verification email queued for user: {}", registrationBody.getEmail());
+        return savedUser;
+    }
 
-        return localUserDAO.save(user);
+    private boolean isRegistered(RegistrationBody registrationBody) {
+        return localUserDAO.existsByEmailIgnoreCase(registrationBody.getEmail())
+                || localUserDAO.existsByUsernameIgnoreCase(registrationBody.getUsername())
+                || localUserDAO.existsByPhoneNumber(registrationBody.getPhoneNumber());
     }
 
     private VerificationToken createVerificationToken(LocalUser user) {
         VerificationToken verificationToken = new VerificationToken();
-        verificationToken.setToken(jwtService.generateVerificationJWT(user));
+        String token = jwtService.generateVerificationJWT(user);
+        verificationToken.setToken(token);
+        verificationToken.setTokenHash(TokenDigest.sha256Hex(token));
         verificationToken.setCreatedTimestamp(new Timestamp(System.currentTimeMillis()));
         verificationToken.setUser(user);
-        user.getVerificationTokens().add(verificationToken);
         return verificationToken;
     }
 
-    public String loginUser(LoginBody loginBody) throws UserNotVerifiedException, EmailFailureException {
+    public AuthTokens loginUser(LoginBody loginBody) throws UserNotVerifiedException {
         Optional<LocalUser> opUser = localUserDAO.findByUsernameIgnoreCase(loginBody.getUsername());
         if (opUser.isPresent()) {
             LocalUser user = opUser.get();
             if (encryptionService.verifyPassword(loginBody.getPassword(), user.getPassword())) {
+                rehashIfNeeded(user, loginBody.getPassword());
                 if (user.isEmailVerified()) {
-                    String jwt = jwtService.generateJWT(user);
+                    String jwt;
+                    String refreshJwt = null;
+                    if (jwtService.isStatelessEnabled()) {
+                        String sessionId = jwtService.newSessionId();
+                        jwt = jwtService.generateJWT(user, sessionId);
+                        refreshJwt = jwtService.generateRefreshJWT(user, sessionId);
+                    } else {
+                        jwt = jwtService.generateJWT(user);
+                    }
                     logger.info("User logged in successfully: {}", loginBody.getUsername());
-                    return jwt;
+                    return new AuthTokens(jwt, refreshJwt);
                 } else {
-                    List<VerificationToken> verificationTokens = user.getVerificationTokens();
-                    boolean resend = verificationTokens.size() == 0 ||
-                            verificationTokens.get(0).getCreatedTimestamp().before(new Timestamp(System.currentTimeMillis() - (60 * 60 * 1000)));
+                    Optional<VerificationToken> latestToken = verificationTokenDAO.findFirstByUserOrderByIdDesc(user);
+                    boolean resend = latestToken.isEmpty() ||
+                            latestToken.get().getCreatedTimestamp().before(new Timestamp(System.currentTimeMillis() - (60 * 60 * 1000)));
                     if (resend) {
                         VerificationToken verificationToken = createVerificationToken(user);
-                        verificationTokenDAO.save(verificationToken);
-                        emailService.sendVerificationEmail(verificationToken);
-                        logger.info("Verification email resent for user: {}", loginBody.getUsername());
+                        transactionTemplate.executeWithoutResult(status -> {
+                            verificationTokenDAO.save(verificationToken);
+                            emailService.queueVerificationEmail(verificationToken);
+                        });
+                        logger.info("Verification email queued again for user: {}", loginBody.getUsername());
                     }
                     throw new UserNotVerifiedException(resend);
                 }
@@ -103,9 +152,75 @@ public class UserService {
         return null;
     }
 
+    // The plain password is only available right after a successful login, so that's where stored hashes get
+    // moved to the calibrated cost. Failing to do so must never fail the login itself.
+    private void rehashIfNeeded(LocalUser user, String password) {
+        if (!encryptionService.needsRehash(user.getPassword())) {
+            return;
+        }
+        try {
+            user.setPassword(encryptionService.encryptPassword(password));
+            localUserDAO.save(user);
+            principalCache.invalidate(user);
+            logger.info("Password hash upgraded to current cost for user: {}", user.getUsername());
+        } catch (PasswordHashingRejectedException ex) {
+            logger.debug("Skipping password rehash for user {}: {}", user.getUsername(), ex.getMessage());
+        }
+    }
+
+    /**
+     * Issues a new access token for a valid refresh token, or null if the token or its user is no longer valid.
+     * Refresh tokens stop working when they or their session were logged out, and when the password was reset
+     * after they were issued.
+     */
+    public String refreshAccessToken(String refreshToken) {
+        JWTService.RefreshClaims claims;
+        try {
+            claims = jwtService.getRefreshClaims(refreshToken);
+        } catch (JWTVerificationException ex) {
+            logger.warn("Invalid refresh token presented: {}", ex.getMessage());
+            return null;
+        }
+        if (jwtService.isTokenInvalidated(refreshToken) || jwtService.isSessionInvalidated(claims.sessionId())) {
+            logger.warn("Revoked refresh token presented for user: {}", claims.userId());
+            return null;
+        }
+        Optional<LocalUser> opUser = localUserDAO.findById(claims.userId());
+        if (opUser.isEmpty() || !opUser.get().isEmailVerified()) {
+            logger.warn("Refresh failed - user not found or not verified: {}", claims.userId());
+            return null;
+        }
+        LocalUser user = opUser.get();
+        if (claims.tokenVersion() == null || claims.tokenVersion() != user.getTokenVersion()) {
+            logger.warn("Refresh failed - token issued before the last password reset for user: {}", user.getUsername());
+            return null;
+        }
+        logger.info("Access token refreshed for user: {}", user.getUsername());
+        return jwtService.generateJWT(user, claims.sessionId());
+    }
+
+    // User with its addresses for the profile view. Always read fresh: the authenticated principal is either
+    // claims-only or a cached, detached entity whose lazy addresses can't be loaded anymore.
+    public Optional<LocalUser> getUserProfile(UserPrincipal principal) {
+        return localUserDAO.findWithAddressesById(principal.getId());
+    }
+
+    // Changes whenever the user or its addresses change, for conditional GETs of the profile
+    public long getProfileVersion(UserPrincipal principal) {
+        return principalCache.profileVersion(principal.getId());
+    }
+
+    // Entity reference for associations (orders, products, addresses) without loading the user row
+    public LocalUser getUserReference(UserPrincipal principal) {
+        if (principal instanceof LocalUser user) {
+            return user;
+        }
+        return localUserDAO.getReferenceById(principal.getId());
+    }
+
     @Transactional
     public boolean verifyUser(String token) {
-        Optional<VerificationToken> opToken = verificationTokenDAO.findByToken(token);
+        Optional<VerificationToken> opToken = verificationTokenDAO.findByTokenHash(TokenDigest.sha256Hex(token));
         if (opToken.isPresent()) {
             VerificationToken verificationToken = opToken.get();
             LocalUser user = verificationToken.getUser();
@@ -113,6 +228,7 @@ public class UserService {
                 user.setEmailVerified(true);
                 localUserDAO.save(user);
                 verificationTokenDAO.deleteByUser(user);
+                principalCache.invalidate(user);
                 logger.info("User verified successfully: {}", user.getEmail());
                 return true;
             }
@@ -121,18 +237,13 @@ public class UserService {
         return false;
     }
 
-    public void forgotPassword(String email) throws EmailNotFoundException, EmailFailureException {
+    public void forgotPassword(String email) throws EmailNotFoundException {
         Optional<LocalUser> opUser = localUserDAO.findByEmailIgnoreCase(email);
         if (opUser.isPresent()) {
             LocalUser user = opUser.get();
             String token = jwtService.generatePasswordResetJWT(user);
-            try {
-                emailService.sendPasswordResetEmail(user, token);
-                logger.info("Password reset email sent successfully to: {}", email);
-            } catch (EmailFailureException e) {
-                logger.error("Failed to send password reset email to: {}", email, e);
-                throw e;
-            }
+            emailService.queuePasswordResetEmail(user, token);
+            logger.info("Password reset email queued for: {}", email);
         } else {
             logger.warn("Email not found for password reset: {}", email);
             throw new EmailNotFoundException();
@@ -151,7 +262,10 @@ public class UserService {
         if (opUser.isPresent()) {
             LocalUser user = opUser.get();
             user.setPassword(encryptionService.encryptPassword(body.getNewPassword()));
+            // Refresh tokens from before the reset may belong to whoever knew the old password
+            user.setTokenVersion(user.getTokenVersion() + 1);
             localUserDAO.save(user);
+            principalCache.invalidate(user);
             logger.info("Password reset successfully for token: {}", body.getToken());
             return true;
         }
@@ -0,0 +1,89 @@
+package com.backend.ecommerce.users.service;
+
+import com.backend.ecommerce.users.model.VerificationToken;
+import com.backend.ecommerce.users.model.dao.VerificationTokenDAO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.function.IntSupplier;
+
+/**
+ * Keeps the verification_token table small and fully hash-indexed: fills token_hash for rows that
+ * predate it and blanks their raw token, and regularly deletes expired tokens and tokens of users that
+ * are already verified.
+ */
+@Component
+public class VerificationTokenMaintenance {
+
+    private static final Logger logger = LoggerFactory.getLogger(VerificationTokenMaintenance.class);
+
+    // Verification tokens are JWTs with the regular expiry, after that they can never be redeemed
+    @Value("${jwt.expiryInSeconds}")
+    private long expiryInSeconds;
+    @Value("${verification.token.purgeBatchSize}")
+    private int purgeBatchSize;
+
+    private final VerificationTokenDAO verificationTokenDAO;
+    private final TransactionTemplate transactionTemplate;
+
+    public VerificationTokenMaintenance(VerificationTokenDAO verificationTokenDAO,
+                                        TransactionTemplate transactionTemplate) {
+        this.verificationTokenDAO = verificationTokenDAO;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillTokenHashes() {
+        int total = 0;
+        List<VerificationToken> batch;
+        do {
+            batch = transactionTemplate.execute(status -> {
+                List<VerificationToken> tokens = verificationTokenDAO.findTop500ByTokenHashIsNullOrderById();
+                for (VerificationToken token : tokens) {
+                    token.setTokenHash(TokenDigest.sha256Hex(token.getLegacyToken()));
+                    token.setLegacyToken("");
+                }
+                return verificationTokenDAO.saveAll(tokens);
+            });
+            total += batch.size();
+        } while (!batch.isEmpty());
+        int cleared = 0;
+        int updated;
+        do {
+            updated = transactionTemplate.execute(status -> verificationTokenDAO.clearLegacyTokens(purgeBatchSize));
+            cleared += updated;
+        } while (updated == purgeBatchSize);
+        if (total > 0 || cleared > 0) {
+            logger.info("Backfilled token hashes for {} verification tokens, cleared {} raw tokens", total, cleared);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${verification.token.purgeIntervalMillis}")
+    public void purge() {
+        Timestamp expiredBefore = new Timestamp(System.currentTimeMillis() - expiryInSeconds * 1000);
+        // Separate statements so each can use its own index instead of an OR that scans the table
+        int expired = deleteInBatches(() -> verificationTokenDAO.deleteExpired(expiredBefore, purgeBatchSize));
+        int orphaned = deleteInBatches(() -> verificationTokenDAO.deleteOrphaned(purgeBatchSize));
+        if (expired > 0 || orphaned > 0) {
+            logger.info("Purged {} expired and {} orphaned verification tokens", expired, orphaned);
+        }
+    }
+
+    private int deleteInBatches(IntSupplier batch) {
+        int total = 0;
+        int deleted;
+        do {
+            deleted = transactionTemplate.execute(status -> batch.getAsInt());
+            total += deleted;
+        } while (deleted == purgeBatchSize);
+        return total;
+    }
+}
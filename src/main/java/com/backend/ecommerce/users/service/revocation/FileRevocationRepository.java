@@ -0,0 +1,91 @@
+package com.backend.ecommerce.users.service.revocation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only file of "tokenId expiresAt" lines, compacted by {@link #purgeExpired(long)}. Meant for a single
+ * node and for tests; sharing revocations across nodes needs a shared-store implementation of the SPI.
+ */
+@Component
+@ConditionalOnProperty(name = "jwt.revocation.store", havingValue = "file")
+public class FileRevocationRepository implements RevocationRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileRevocationRepository.class);
+
+    private final Path file;
+
+    public FileRevocationRepository(@Value("${jwt.revocation.file}") String file) {
+        this.file = Path.of(file);
+    }
+
+    @Override
+    public synchronized void save(String tokenId, long expiresAtMillis) {
+        try {
+            Files.writeString(file, tokenId + " " + expiresAtMillis + System.lineSeparator(), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to persist token revocation", e);
+        }
+    }
+
+    @Override
+    public synchronized Map<String, Long> loadActive(long nowMillis) {
+        Map<String, Long> active = new HashMap<>();
+        for (String line : readLines()) {
+            String[] parts = line.trim().split(" ");
+            if (parts.length != 2) {
+                continue;
+            }
+            try {
+                long expiresAt = Long.parseLong(parts[1]);
+                if (expiresAt > nowMillis) {
+                    active.put(parts[0], expiresAt);
+                }
+            } catch (NumberFormatException e) {
+                logger.warn("Skipping malformed revocation entry: {}", line);
+            }
+        }
+        return active;
+    }
+
+    @Override
+    public synchronized void purgeExpired(long nowMillis) {
+        Map<String, Long> active = loadActive(nowMillis);
+        StringBuilder content = new StringBuilder();
+        active.forEach((tokenId, expiresAt) -> content.append(tokenId).append(' ').append(expiresAt).append(System.lineSeparator()));
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            Path tmp = Files.createTempFile(parent, "revocations", ".tmp");
+            Files.writeString(tmp, content, StandardCharsets.UTF_8);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.error("Failed to compact revocation file {}", file, e);
+        }
+    }
+
+    private List<String> readLines() {
+        if (!Files.exists(file)) {
+            return List.of();
+        }
+        try {
+            return Files.readAllLines(file, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read token revocations", e);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.backend.ecommerce.users.service.revocation;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+@ConditionalOnProperty(name = "jwt.revocation.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryRevocationRepository implements RevocationRepository {
+
+    private final Map<String, Long> revocations = new ConcurrentHashMap<>();
+
+    @Override
+    public void save(String tokenId, long expiresAtMillis) {
+        revocations.put(tokenId, expiresAtMillis);
+    }
+
+    @Override
+    public Map<String, Long> loadActive(long nowMillis) {
+        Map<String, Long> active = new HashMap<>();
+        revocations.forEach((tokenId, expiresAt) -> {
+            if (expiresAt > nowMillis) {
+                active.put(tokenId, expiresAt);
+            }
+        });
+        return active;
+    }
+
+    @Override
+    public void purgeExpired(long nowMillis) {
+        revocations.values().removeIf(expiresAt -> expiresAt <= nowMillis);
+    }
+}
@@ -0,0 +1,17 @@
+package com.backend.ecommerce.users.service.revocation;
+
+import java.util.Map;
+
+/**
+ * Persistence SPI for revoked tokens, so revocations survive restarts and can be shared between nodes.
+ * Token ids are compact digests, never raw tokens.
+ */
+public interface RevocationRepository {
+
+    void save(String tokenId, long expiresAtMillis);
+
+    // All revocations that have not expired yet, token id -> expiry in epoch millis
+    Map<String, Long> loadActive(long nowMillis);
+
+    void purgeExpired(long nowMillis);
+}
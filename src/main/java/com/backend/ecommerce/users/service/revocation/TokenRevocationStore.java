@@ -0,0 +1,67 @@
+package com.backend.ecommerce.users.service.revocation;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread-safe index of revoked tokens. Each entry is kept only until the token itself expires,
+ * after which the background purge drops it, so the index doesn't grow forever.
+ */
+@Component
+public class TokenRevocationStore implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationStore.class);
+
+    private final RevocationRepository repository;
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+
+    public TokenRevocationStore(RevocationRepository repository) {
+        this.repository = repository;
+    }
+
+    // Called by Spring Boot once the bean is fully constructed
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("auth.tokens.revoked", revoked, Map::size).register(registry);
+    }
+
+    @PostConstruct
+    public void load() {
+        revoked.putAll(repository.loadActive(System.currentTimeMillis()));
+        logger.info("Loaded {} active token revocations", revoked.size());
+    }
+
+    public void revoke(String tokenId, long expiresAtMillis) {
+        if (expiresAtMillis <= System.currentTimeMillis()) {
+            // The token can't be used anymore anyway
+            return;
+        }
+        revoked.put(tokenId, expiresAtMillis);
+        repository.save(tokenId, expiresAtMillis);
+    }
+
+    public boolean isRevoked(String tokenId) {
+        Long expiresAt = revoked.get(tokenId);
+        return expiresAt != null && expiresAt > System.currentTimeMillis();
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.purgeIntervalMillis}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        int before = revoked.size();
+        revoked.values().removeIf(expiresAt -> expiresAt <= now);
+        repository.purgeExpired(now);
+        // Pick up revocations persisted by other instances since the last run
+        revoked.putAll(repository.loadActive(now));
+        logger.debug("Purged {} expired token revocations", Math.max(0, before - revoked.size()));
+    }
+}
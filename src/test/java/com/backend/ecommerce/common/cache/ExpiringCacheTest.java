@@ -0,0 +1,160 @@
+package com.backend.ecommerce.common.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ExpiringCacheTest {
+
+    @Test
+    void countsHitsAndMisses() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, Duration.ofMinutes(1));
+        cache.put("a", "1");
+
+        assertThat(cache.get("a")).isEqualTo("1");
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.hitCount()).isEqualTo(1);
+        assertThat(cache.missCount()).isEqualTo(1);
+    }
+
+    @Test
+    void entriesExpireAfterTheirTtl() throws InterruptedException {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, Duration.ofMillis(50));
+        cache.put("a", "1");
+        // A per-entry expiry later than the TTL is capped by it
+        cache.put("b", "2", System.currentTimeMillis() + 60_000);
+
+        Thread.sleep(80);
+
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.evictionCount()).isEqualTo(2);
+    }
+
+    @Test
+    void staysWithinItsSizeBound() {
+        ExpiringCache<Integer, Integer> cache = new ExpiringCache<>(100, Duration.ofMinutes(1));
+        for (int i = 0; i < 1000; i++) {
+            cache.put(i, i);
+        }
+
+        assertThat(cache.size()).isLessThanOrEqualTo(100);
+        assertThat(cache.evictionCount()).isGreaterThanOrEqualTo(900);
+    }
+
+    @Test
+    void invalidatesByKeyAndByPredicate() {
+        ExpiringCache<Integer, String> cache = new ExpiringCache<>(10, Duration.ofMinutes(1));
+        cache.put(1, "odd");
+        cache.put(2, "even");
+        cache.put(3, "odd");
+
+        cache.invalidate(2);
+        assertThat(cache.get(2)).isNull();
+
+        cache.invalidateIf((key, value) -> value.equals("odd"));
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void getOrLoadCachesLoadedValuesButNotNulls() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, Duration.ofMinutes(1));
+        AtomicInteger loads = new AtomicInteger();
+
+        assertThat(cache.getOrLoad("a", key -> {
+            loads.incrementAndGet();
+            return "1";
+        })).isEqualTo("1");
+        assertThat(cache.getOrLoad("a", key -> "2")).isEqualTo("1");
+
+        assertThat(cache.getOrLoad("missing", key -> {
+            loads.incrementAndGet();
+            return null;
+        })).isNull();
+        cache.getOrLoad("missing", key -> {
+            loads.incrementAndGet();
+            return null;
+        });
+        assertThat(loads.get()).isEqualTo(3);
+    }
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, Duration.ofMinutes(1));
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        int callers = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            results.add(executor.submit(() -> cache.getOrLoad("a", key -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                await(release);
+                return "1";
+            })));
+            loading.await();
+            for (int i = 1; i < callers; i++) {
+                results.add(executor.submit(() -> cache.getOrLoad("a", key -> {
+                    loads.incrementAndGet();
+                    return "other";
+                })));
+            }
+            // Let the waiters reach the in-flight load before it completes
+            while (cache.coalescedLoadCount() < callers - 1) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("1");
+            }
+            assertThat(loads.get()).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void loadRacingAnInvalidationIsNotCached() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, Duration.ofMinutes(1));
+
+        String loaded = cache.getOrLoad("a", key -> {
+            cache.invalidate("a");
+            return "stale";
+        });
+
+        assertThat(loaded).isEqualTo("stale");
+        assertThat(cache.get("a")).isNull();
+    }
+
+    @Test
+    void loaderFailuresPropagateAndAreNotCached() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, Duration.ofMinutes(1));
+
+        assertThatThrownBy(() -> cache.getOrLoad("a", key -> {
+            throw new IllegalStateException("down");
+        })).isInstanceOf(IllegalStateException.class).hasMessage("down");
+        assertThat(cache.getOrLoad("a", key -> "1")).isEqualTo("1");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
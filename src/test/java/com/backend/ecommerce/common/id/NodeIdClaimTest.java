@@ -0,0 +1,96 @@
+package com.backend.ecommerce.common.id;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+class NodeIdClaimTest {
+
+    @Autowired
+    private NodeIdLeaseDAO nodeIdLeaseDAO;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    void secondInstanceOnTheSameNodeIdFails() {
+        claim(0).claim();
+
+        assertThatThrownBy(() -> claim(0).claim())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Node id 0 is in use");
+    }
+
+    @Test
+    void instancesOnDifferentNodeIdsStartTogether() {
+        claim(0).claim();
+        claim(1).claim();
+
+        assertThat(nodeIdLeaseDAO.findAll()).extracting(NodeIdLease::getNodeId).containsExactlyInAnyOrder(0, 1);
+    }
+
+    @Test
+    void heartbeatRenewsTheOwnLease() {
+        NodeIdClaim first = claim(0);
+        first.claim();
+        expire(0);
+
+        first.heartbeat();
+
+        assertThatThrownBy(() -> claim(0).claim()).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void expiredLeaseIsTakenOver() {
+        NodeIdClaim crashed = claim(0);
+        crashed.claim();
+        expire(0);
+        NodeIdClaim restarted = claim(0);
+
+        restarted.claim();
+
+        String owner = nodeIdLeaseDAO.findById(0).orElseThrow().getOwner();
+        // The old instance coming back doesn't take it back
+        crashed.heartbeat();
+        assertThat(nodeIdLeaseDAO.findById(0).orElseThrow().getOwner()).isEqualTo(owner);
+    }
+
+    @Test
+    void releaseLetsAReplacementStartStraightAway() {
+        NodeIdClaim stopped = claim(0);
+        stopped.claim();
+        NodeIdClaim running = claim(1);
+        running.claim();
+
+        stopped.release();
+        running.release();
+        claim(0).claim();
+
+        assertThat(nodeIdLeaseDAO.findAll()).extracting(NodeIdLease::getNodeId).containsExactly(0);
+    }
+
+    private NodeIdClaim claim(int nodeId) {
+        return new NodeIdClaim(nodeIdLeaseDAO, transactionTemplate, nodeId, 30);
+    }
+
+    private void expire(int nodeId) {
+        NodeIdLease lease = nodeIdLeaseDAO.findById(nodeId).orElseThrow();
+        lease.setHeartbeatAt(new Timestamp(System.currentTimeMillis() - 60_000));
+        nodeIdLeaseDAO.save(lease);
+    }
+}
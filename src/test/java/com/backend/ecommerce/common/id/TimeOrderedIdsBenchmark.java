@@ -0,0 +1,43 @@
+package com.backend.ecommerce.common.id;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Id generation throughput from one thread and from eight threads sharing a generator, the contended case
+ * being one CAS loop on a single AtomicLong. Sustained rates above 128 ids per millisecond run ahead of the
+ * clock by design, so this measures the generator, not a rate it could keep up for long.
+ * <p>
+ * {@code ./mvnw -Pbenchmark verify -Dbenchmark=TimeOrderedIdsBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TimeOrderedIdsBenchmark {
+
+    private final TimeOrderedIds ids = new TimeOrderedIds(1);
+
+    @Benchmark
+    public long next() {
+        return ids.next();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long nextContended() {
+        return ids.next();
+    }
+}
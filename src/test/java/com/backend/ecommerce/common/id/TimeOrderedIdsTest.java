@@ -0,0 +1,104 @@
+package com.backend.ecommerce.common.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TimeOrderedIdsTest {
+
+    @Test
+    void idsStrictlyIncreaseThroughBursts() {
+        TimeOrderedIds ids = new TimeOrderedIds(3);
+        long previous = ids.next();
+        // Far more than 128 per millisecond, so the sequence has to borrow from later milliseconds
+        for (int i = 0; i < 100_000; i++) {
+            long id = ids.next();
+            assertThat(id).isGreaterThan(previous);
+            previous = id;
+        }
+    }
+
+    @Test
+    void concurrentCallersGetDistinctIdsInOrder() throws Exception {
+        TimeOrderedIds ids = new TimeOrderedIds(1);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<long[]> drawn = new ArrayList<>();
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    long[] mine = new long[50_000];
+                    for (int i = 0; i < mine.length; i++) {
+                        mine[i] = ids.next();
+                    }
+                    return mine;
+                }));
+            }
+            for (Future<long[]> future : futures) {
+                drawn.add(future.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Set<Long> unique = new HashSet<>();
+        for (long[] mine : drawn) {
+            for (int i = 0; i < mine.length; i++) {
+                assertThat(unique.add(mine[i])).isTrue();
+                if (i > 0) {
+                    assertThat(mine[i]).isGreaterThan(mine[i - 1]);
+                }
+            }
+        }
+        assertThat(unique).hasSize(threads * 50_000);
+    }
+
+    @Test
+    void nodesNeverCollide() {
+        TimeOrderedIds first = new TimeOrderedIds(0);
+        TimeOrderedIds second = new TimeOrderedIds(TimeOrderedIds.MAX_NODE_ID);
+        Set<Long> unique = new HashSet<>();
+        for (int i = 0; i < 10_000; i++) {
+            unique.add(first.next());
+            unique.add(second.next());
+        }
+
+        assertThat(unique).hasSize(20_000);
+    }
+
+    @Test
+    void idsCarryTheNodeAndStayExactInJavaScript() {
+        long id = new TimeOrderedIds(21).next();
+
+        assertThat((id >>> TimeOrderedIds.SEQUENCE_BITS) & TimeOrderedIds.MAX_NODE_ID).isEqualTo(21);
+        assertThat(id).isLessThan(1L << 53);
+    }
+
+    @Test
+    void timestampIsRecoverable() {
+        Instant before = Instant.now();
+
+        Instant issued = TimeOrderedIds.timestampOf(new TimeOrderedIds(0).next());
+
+        assertThat(Duration.between(before, issued).abs()).isLessThan(Duration.ofSeconds(1));
+    }
+
+    @Test
+    void rejectsNodeIdsOutOfRange() {
+        assertThatThrownBy(() -> new TimeOrderedIds(-1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TimeOrderedIds(TimeOrderedIds.MAX_NODE_ID + 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,61 @@
+package com.backend.ecommerce.common.pagination;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KeysetCursorTest {
+
+    @Test
+    void roundTripsSortIdAndValue() {
+        KeysetCursor cursor = KeysetCursor.decode(new KeysetCursor("price", 42, "19.99").encode(), "price");
+
+        assertThat(cursor.getSort()).isEqualTo("price");
+        assertThat(cursor.getId()).isEqualTo(42);
+        assertThat(cursor.getValue()).isEqualTo("19.99");
+    }
+
+    @Test
+    void roundTripsWithoutAValue() {
+        KeysetCursor cursor = KeysetCursor.decode(new KeysetCursor("id", 7, null).encode(), "id");
+
+        assertThat(cursor.getId()).isEqualTo(7);
+        assertThat(cursor.getValue()).isNull();
+    }
+
+    @Test
+    void valueMayContainSeparatorsAndNonAscii() {
+        String name = "Café: espresso / 2:1";
+
+        String encoded = new KeysetCursor("name", 3, name).encode();
+
+        assertThat(encoded).matches("[A-Za-z0-9_-]+");
+        assertThat(KeysetCursor.decode(encoded, "name").getValue()).isEqualTo(name);
+    }
+
+    @Test
+    void rejectsACursorIssuedForAnotherSort() {
+        String encoded = new KeysetCursor("price", 42, "19.99").encode();
+
+        assertThatThrownBy(() -> KeysetCursor.decode(encoded, "name"))
+                .isInstanceOf(IllegalArgumentException.class).hasMessage("Invalid cursor");
+    }
+
+    @Test
+    void rejectsMalformedCursors() {
+        assertThatThrownBy(() -> KeysetCursor.decode("not base64!", "id"))
+                .isInstanceOf(IllegalArgumentException.class).hasMessage("Invalid cursor");
+        assertThatThrownBy(() -> KeysetCursor.decode(encode("id"), "id"))
+                .isInstanceOf(IllegalArgumentException.class).hasMessage("Invalid cursor");
+        assertThatThrownBy(() -> KeysetCursor.decode(encode("id:abc"), "id"))
+                .isInstanceOf(IllegalArgumentException.class).hasMessage("Invalid cursor");
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,105 @@
+package com.backend.ecommerce.common.web;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConditionalRequestsTest {
+
+    private final ConditionalRequests conditionalRequests = new ConditionalRequests(300);
+
+    @Test
+    void tagsDependOnEveryVersion() {
+        assertThat(conditionalRequests.etag(1, 2)).isEqualTo(conditionalRequests.etag(1, 2))
+                .isNotEqualTo(conditionalRequests.etag(1, 3))
+                .startsWith("\"").endsWith("\"");
+    }
+
+    @Test
+    void tagsRollOverWithTheWindow() throws InterruptedException {
+        ConditionalRequests windowed = new ConditionalRequests(1);
+        String etag = windowed.etag(1);
+
+        Thread.sleep(1100);
+
+        assertThat(windowed.etag(1)).isNotEqualTo(etag);
+        assertThat(ConditionalRequests.matchingTag(etag, windowed.etag(1))).isNull();
+    }
+
+    @Test
+    void withoutAWindowTagsOnlyChangeWithTheVersion() throws InterruptedException {
+        ConditionalRequests unwindowed = new ConditionalRequests(0);
+        String etag = unwindowed.etag(1);
+
+        Thread.sleep(10);
+
+        assertThat(unwindowed.etag(1)).isEqualTo(etag);
+    }
+
+    @Test
+    void parsesTagLists() {
+        String etag = conditionalRequests.etag(7);
+
+        assertThat(ConditionalRequests.matchingTag(null, etag)).isNull();
+        assertThat(ConditionalRequests.matchingTag("\"other\"", etag)).isNull();
+        assertThat(ConditionalRequests.matchingTag("\"other\",  " + etag + " ,\"more\"", etag)).isEqualTo(etag);
+    }
+
+    @Test
+    void weakTagsMatchTheirStrongTag() {
+        String etag = conditionalRequests.etag(7);
+
+        assertThat(ConditionalRequests.matchingTag("W/" + etag, etag)).isEqualTo(etag);
+    }
+
+    @Test
+    void gzipTagsMatchAndAreEchoedBack() {
+        String etag = conditionalRequests.etag(7);
+        String gzipTag = gzip(etag);
+
+        assertThat(ConditionalRequests.matchingTag(gzipTag, etag)).isEqualTo(gzipTag);
+        assertThat(ConditionalRequests.matchingTag("W/" + gzipTag, etag)).isEqualTo(gzipTag);
+        assertThat(ConditionalRequests.matchingTag(gzip(conditionalRequests.etag(8)), etag)).isNull();
+    }
+
+    @Test
+    void wildcardMatchesTheCurrentTag() {
+        String etag = conditionalRequests.etag(7);
+
+        assertThat(ConditionalRequests.matchingTag("*", etag)).isEqualTo(etag);
+    }
+
+    @Test
+    void notModifiedEchoesTheMatchedVariantWithVary() {
+        String etag = conditionalRequests.etag(7);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, gzip(etag));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertThat(conditionalRequests.checkNotModified(request, response, etag, "public, max-age=60")).isTrue();
+
+        assertThat(response.getStatus()).isEqualTo(304);
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo(gzip(etag));
+        assertThat(response.getHeader(HttpHeaders.VARY)).isEqualTo(HttpHeaders.ACCEPT_ENCODING);
+        assertThat(response.getHeader(HttpHeaders.CACHE_CONTROL)).isEqualTo("public, max-age=60");
+    }
+
+    @Test
+    void modifiedLeavesTheResponseAlone() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, conditionalRequests.etag(6));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertThat(conditionalRequests.checkNotModified(request, response, conditionalRequests.etag(7), null)).isFalse();
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getHeaderNames()).isEmpty();
+    }
+
+    private static String gzip(String etag) {
+        return etag.substring(0, etag.length() - 1) + ConditionalRequests.GZIP_SUFFIX + '"';
+    }
+}
@@ -0,0 +1,70 @@
+package com.backend.ecommerce.common.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SerializedResponseCacheTest {
+
+    @Test
+    void servesTheCachedBodyForTheSameVersion() throws Exception {
+        SerializedResponseCache cache = new SerializedResponseCache(new ObjectMapper(), 10, 600, 1024, 300,
+                new SimpleMeterRegistry());
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("products", 1, () -> List.of(loads.incrementAndGet()));
+        SerializedResponseCache.EncodedResponse encoded = cache.get("products", 1, () -> List.of(loads.incrementAndGet()));
+
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(write(cache, encoded, null).getContentAsString()).isEqualTo("[1]");
+    }
+
+    @Test
+    void entriesExpireWithTheEtagWindow() throws InterruptedException {
+        SerializedResponseCache cache = new SerializedResponseCache(new ObjectMapper(), 10, 600, 1024, 1,
+                new SimpleMeterRegistry());
+        AtomicInteger loads = new AtomicInteger();
+        cache.get("products", 1, () -> List.of(loads.incrementAndGet()));
+
+        Thread.sleep(1100);
+        cache.get("products", 1, () -> List.of(loads.incrementAndGet()));
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void largeBodiesAreGzippedForClientsThatAcceptIt() throws Exception {
+        SerializedResponseCache cache = new SerializedResponseCache(new ObjectMapper(), 10, 600, 16, 300,
+                new SimpleMeterRegistry());
+        SerializedResponseCache.EncodedResponse encoded = cache.get("products", 1, () -> "x".repeat(100));
+
+        MockHttpServletResponse gzipped = write(cache, encoded, "gzip, deflate");
+        MockHttpServletResponse identity = write(cache, encoded, null);
+
+        assertThat(gzipped.getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(gzipped.getHeader(HttpHeaders.ETAG)).isEqualTo("\"e.1" + ConditionalRequests.GZIP_SUFFIX + "\"");
+        assertThat(identity.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(identity.getContentAsString()).hasSize(102);
+    }
+
+    private static MockHttpServletResponse write(SerializedResponseCache cache,
+                                                 SerializedResponseCache.EncodedResponse encoded,
+                                                 String acceptEncoding) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        if (acceptEncoding != null) {
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        response.setHeader(HttpHeaders.ETAG, "\"e.1\"");
+        cache.write(request, response, encoded);
+        return response;
+    }
+}
@@ -0,0 +1,96 @@
+package com.backend.ecommerce.common.web;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StripedVersionsTest {
+
+    @Test
+    void bumpAdvancesTheKeysVersion() {
+        StripedVersions versions = new StripedVersions(4096);
+        long before = versions.get(42);
+
+        versions.bump(42);
+        versions.bump(42);
+
+        assertThat(versions.get(42)).isEqualTo(before + 2);
+    }
+
+    @Test
+    void mostOtherKeysAreUnaffected() {
+        StripedVersions versions = new StripedVersions(4096);
+
+        versions.bump(1);
+
+        int changed = 0;
+        for (long key = 2; key < 10_002; key++) {
+            if (versions.get(key) != 0) {
+                changed++;
+            }
+        }
+        // Only keys sharing key 1's stripe move, about one in 4096
+        assertThat(changed).isLessThan(20);
+    }
+
+    @Test
+    void sequentialIdsSpreadOverTheStripes() {
+        StripedVersions versions = new StripedVersions(1024);
+        for (long key = 1; key <= 1024; key++) {
+            versions.bump(key);
+        }
+
+        int alone = 0;
+        for (long key = 1; key <= 1024; key++) {
+            if (versions.get(key) == 1) {
+                alone++;
+            }
+        }
+        // A random spread leaves about 1024 / e keys alone in their stripe; clustering ids would leave far fewer
+        assertThat(alone).isGreaterThan(300);
+    }
+
+    @Test
+    void aSingleStripeStillAlwaysMoves() {
+        StripedVersions versions = new StripedVersions(1);
+        Set<Long> seen = new HashSet<>();
+        for (long key = 0; key < 100; key++) {
+            long before = versions.get(key);
+            versions.bump(key);
+            seen.add(versions.get(key) - before);
+        }
+
+        assertThat(seen).containsExactly(1L);
+    }
+
+    @Test
+    void concurrentBumpsAreNotLost() throws Exception {
+        StripedVersions versions = new StripedVersions(16);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        versions.bump(7);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(versions.get(7)).isEqualTo(80_000);
+    }
+}
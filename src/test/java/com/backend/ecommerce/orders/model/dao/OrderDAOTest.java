@@ -0,0 +1,117 @@
+package com.backend.ecommerce.orders.model.dao;
+
+import com.backend.ecommerce.orders.model.OrderStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+class OrderDAOTest {
+
+    private static final Date EARLIEST = new Date(0);
+    private static final Date LATEST = new Date(253402214400000L);
+    private static final long DAY = 86_400_000L;
+    private static final long START = 1_717_200_000_000L;
+
+    @Autowired
+    private OrderDAO orderDAO;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long alice;
+    private long bob;
+
+    @BeforeEach
+    void setUp() {
+        alice = insertUser("alice", "0700000001");
+        bob = insertUser("bob", "0700000002");
+        // Twelve orders over six days, two per day, so pages have to break date ties on id
+        for (int i = 0; i < 12; i++) {
+            insertOrder(100 + i, alice, START + (i / 2) * DAY, i % 3 == 0 ? OrderStatus.SHIPPED : OrderStatus.PENDING);
+        }
+        insertOrder(500, bob, START, OrderStatus.SHIPPED);
+    }
+
+    @Test
+    void historyPagesVisitEveryOrderOnceNewestFirst() {
+        List<OrderDAO.OrderRow> seen = new ArrayList<>();
+        Date beforeDate = LATEST;
+        long beforeId = Long.MAX_VALUE;
+        List<OrderDAO.OrderRow> page;
+        do {
+            page = orderDAO.findHistoryPage(alice, EARLIEST, LATEST, beforeDate, beforeId, PageRequest.of(0, 5));
+            seen.addAll(page);
+            if (!page.isEmpty()) {
+                OrderDAO.OrderRow last = page.get(page.size() - 1);
+                beforeDate = last.getOrderDate();
+                beforeId = last.getId();
+            }
+        } while (page.size() == 5);
+
+        assertThat(seen).extracting(OrderDAO.OrderRow::getId)
+                .containsExactly(111L, 110L, 109L, 108L, 107L, 106L, 105L, 104L, 103L, 102L, 101L, 100L);
+    }
+
+    @Test
+    void historyIsLimitedToTheUserAndDateRange() {
+        List<OrderDAO.OrderRow> rows = orderDAO.findHistoryPage(alice, new Date(START + DAY), new Date(START + 2 * DAY),
+                LATEST, Long.MAX_VALUE, PageRequest.of(0, 20));
+
+        assertThat(rows).extracting(OrderDAO.OrderRow::getId).containsExactly(105L, 104L, 103L, 102L);
+    }
+
+    @Test
+    void statusFilterPagesFromACursor() {
+        List<OrderDAO.OrderRow> first = orderDAO.findHistoryPageByStatus(alice, OrderStatus.SHIPPED, EARLIEST, LATEST,
+                LATEST, Long.MAX_VALUE, PageRequest.of(0, 2));
+        OrderDAO.OrderRow last = first.get(first.size() - 1);
+        List<OrderDAO.OrderRow> second = orderDAO.findHistoryPageByStatus(alice, OrderStatus.SHIPPED, EARLIEST, LATEST,
+                last.getOrderDate(), last.getId(), PageRequest.of(0, 2));
+
+        assertThat(first).extracting(OrderDAO.OrderRow::getId).containsExactly(109L, 106L);
+        assertThat(second).extracting(OrderDAO.OrderRow::getId).containsExactly(103L, 100L);
+        assertThat(second).allSatisfy(row -> assertThat(row.getStatus()).isEqualTo(OrderStatus.SHIPPED));
+    }
+
+    @Test
+    void itemTotalsAreGroupedPerOrder() {
+        insertItem(1, 100, 2, 5.0);
+        insertItem(2, 100, 1, 7.5);
+        insertItem(3, 101, 4, 2.0);
+
+        List<OrderDAO.ItemTotals> totals = orderDAO.findItemTotals(List.of(100L, 101L, 102L));
+
+        assertThat(totals).hasSize(2);
+        OrderDAO.ItemTotals first = totals.stream().filter(t -> t.getOrderId() == 100L).findFirst().orElseThrow();
+        assertThat(first.getItemCount()).isEqualTo(2);
+        assertThat(first.getUnits()).isEqualTo(3);
+        assertThat(first.getItemsTotal()).isEqualTo(17.5);
+    }
+
+    private long insertUser(String username, String phoneNumber) {
+        jdbcTemplate.update("INSERT INTO local_user (username, email, password, confirm_password, first_name, last_name, "
+                + "phone_number, email_verified, token_version) VALUES (?, ?, 'x', 'x', 'First', 'Last', ?, true, 0)",
+                username, username + "@example.com", phoneNumber);
+        return jdbcTemplate.queryForObject("SELECT id FROM local_user WHERE username = ?", Long.class, username);
+    }
+
+    private void insertOrder(long id, long userId, long orderDate, OrderStatus status) {
+        jdbcTemplate.update("INSERT INTO orders (id, user_id, order_date, total_amount, status) VALUES (?, ?, ?, 0, ?)",
+                id, userId, new Timestamp(orderDate), status.name());
+    }
+
+    private void insertItem(long id, long orderId, int quantity, double price) {
+        jdbcTemplate.update("INSERT INTO order_items (id, order_id, product_id, quantity, price) VALUES (?, ?, 1, ?, ?)",
+                id, orderId, quantity, price);
+    }
+}
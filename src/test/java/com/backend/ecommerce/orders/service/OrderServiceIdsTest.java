@@ -0,0 +1,145 @@
+package com.backend.ecommerce.orders.service;
+
+import com.backend.ecommerce.common.id.TimeOrderedIds;
+import com.backend.ecommerce.orders.model.Order;
+import com.backend.ecommerce.orders.model.OrderItem;
+import com.backend.ecommerce.users.model.LocalUser;
+import com.backend.ecommerce.users.model.dao.LocalUserDAO;
+import com.paypal.base.rest.APIContext;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Orders and their lines get time-ordered ids before the INSERT, on the node id the instance starts with by
+ * default; checks those ids stay unique and ordered under concurrent checkouts, and that the lines go to the
+ * database as one batch.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:orderids;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "encryption.salt.rounds=4",
+        "encryption.calibration.enabled=false",
+        "email.outbox.pollIntervalMillis=3600000"
+})
+class OrderServiceIdsTest {
+
+    private static final int THREADS = 8;
+    private static final int ORDERS_PER_THREAD = 50;
+    private static final int LINES = 20;
+
+    // Building the real one calls out to PayPal
+    @MockBean
+    private APIContext apiContext;
+
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private LocalUserDAO localUserDAO;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private LocalUser user;
+    private final List<Long> productIds = new ArrayList<>();
+    private final List<Integer> quantities = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM order_items");
+        jdbcTemplate.update("DELETE FROM orders");
+        if (localUserDAO.findByUsernameIgnoreCase("buyer").isEmpty()) {
+            jdbcTemplate.update("INSERT INTO local_user (username, email, password, confirm_password, first_name, "
+                    + "last_name, phone_number, email_verified, token_version) VALUES ('buyer', 'buyer@example.com', "
+                    + "'x', 'x', 'First', 'Last', '0700000001', true, 0)");
+            jdbcTemplate.update("INSERT INTO categories (name) VALUES ('Books')");
+            long seller = jdbcTemplate.queryForObject("SELECT id FROM local_user", Long.class);
+            long category = jdbcTemplate.queryForObject("SELECT id FROM categories", Long.class);
+            for (int i = 0; i < LINES; i++) {
+                jdbcTemplate.update("INSERT INTO products (name, price, category_id, user_id) VALUES (?, ?, ?, ?)",
+                        "Product " + i, 1.0 + i, category, seller);
+            }
+        }
+        user = localUserDAO.findByUsernameIgnoreCase("buyer").orElseThrow();
+        productIds.addAll(jdbcTemplate.queryForList("SELECT id FROM products ORDER BY id", Long.class));
+        for (int i = 0; i < LINES; i++) {
+            quantities.add(1 + i % 3);
+        }
+    }
+
+    @Test
+    void concurrentOrdersGetUniqueOrderedIds() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<List<Long>>> results = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                Callable<List<Long>> checkouts = () -> {
+                    List<Long> ids = new ArrayList<>();
+                    for (int i = 0; i < ORDERS_PER_THREAD; i++) {
+                        Order order = orderService.createOrder(productIds, quantities, user);
+                        ids.add(order.getId());
+                        order.getItems().forEach(item -> ids.add(item.getId()));
+                    }
+                    return ids;
+                };
+                results.add(executor.submit(checkouts));
+            }
+            Set<Long> all = new HashSet<>();
+            for (Future<List<Long>> result : results) {
+                List<Long> ids = result.get();
+                // Each thread builds its orders one after another, so everything it was handed increases
+                assertThat(ids).isSorted().doesNotHaveDuplicates();
+                all.addAll(ids);
+            }
+            assertThat(all).hasSize(THREADS * ORDERS_PER_THREAD * (LINES + 1));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM orders", Long.class))
+                .isEqualTo(THREADS * ORDERS_PER_THREAD);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT id) FROM order_items", Long.class))
+                .isEqualTo(THREADS * ORDERS_PER_THREAD * LINES);
+        List<Long> stored = jdbcTemplate.queryForList("SELECT id FROM orders ORDER BY id", Long.class);
+        assertThat(stored).allSatisfy(id -> assertThat(id).isLessThan(1L << 53));
+    }
+
+    @Test
+    void orderLinesAreInsertedInOneBatch() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Order order = orderService.createOrder(productIds, quantities, user);
+
+        // The price lookup, the order row, then every line in a single batched statement
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(LINES + 1);
+        List<Long> lineIds = new ArrayList<>(order.getItems().stream().map(OrderItem::getId).toList());
+        assertThat(lineIds).isSorted();
+        assertThat(Collections.min(lineIds)).isGreaterThan(order.getId());
+        assertThat(TimeOrderedIds.timestampOf(order.getId())).isBeforeOrEqualTo(Instant.now());
+    }
+}
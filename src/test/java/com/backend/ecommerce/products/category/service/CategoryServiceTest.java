@@ -0,0 +1,102 @@
+package com.backend.ecommerce.products.category.service;
+
+import com.backend.ecommerce.products.category.dao.CategoryDAO;
+import com.backend.ecommerce.products.category.model.Category;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CategoryServiceTest {
+
+    private final CategoryDAO categoryDAO = mock(CategoryDAO.class);
+    private CategoryService categoryService;
+
+    @BeforeEach
+    void setUp() {
+        when(categoryDAO.findAll()).thenReturn(List.of(category(2L, "Books"), category(1L, "Games")));
+        when(categoryDAO.findById(any())).thenReturn(Optional.empty());
+        when(categoryDAO.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        categoryService = new CategoryService(categoryDAO, 100, 60, new SimpleMeterRegistry());
+        categoryService.reload();
+    }
+
+    @Test
+    void reloadSortsByIdAndBumpsTheVersionOnlyOnChange() {
+        long version = categoryService.getVersion();
+        categoryService.reload();
+        assertThat(categoryService.getVersion()).isEqualTo(version);
+
+        when(categoryDAO.findAll()).thenReturn(List.of(category(1L, "Games"), category(3L, "Music")));
+        categoryService.reload();
+
+        assertThat(categoryService.getVersion()).isGreaterThan(version);
+        assertThat(categoryService.getAllCategories()).extracting(Category::getName).containsExactly("Games", "Music");
+        assertThat(categoryService.getCategoryById(2L)).isNull();
+    }
+
+    @Test
+    void createAndUpdateSwapInANewSnapshot() {
+        List<Category> before = categoryService.getAllCategories();
+        long version = categoryService.getVersion();
+
+        categoryService.createCategory(category(3L, "Music"));
+        categoryService.createCategory(category(1L, "Video Games"));
+
+        assertThat(before).extracting(Category::getName).containsExactly("Games", "Books");
+        assertThat(categoryService.getAllCategories()).extracting(Category::getName)
+                .containsExactly("Video Games", "Books", "Music");
+        assertThat(categoryService.getVersion()).isEqualTo(version + 2);
+    }
+
+    @Test
+    void snapshotHoldsDetachedCopies() {
+        Category saved = categoryService.createCategory(category(3L, "Music"));
+        saved.setName("Changed after save");
+
+        assertThat(categoryService.getCategoryById(3L).getName()).isEqualTo("Music");
+        assertThat(categoryService.getCategoryById(3L)).isNotSameAs(saved);
+    }
+
+    @Test
+    void unknownIdsAreLoadedOnceFromTheDatabase() {
+        Category remote = category(5L, "Garden");
+        when(categoryDAO.findById(5L)).thenReturn(Optional.of(remote));
+
+        assertThat(categoryService.getCategoryById(5L).getName()).isEqualTo("Garden");
+        assertThat(categoryService.getCategoryById(5L)).isNotSameAs(remote);
+        categoryService.getCategoryById(5L);
+
+        verify(categoryDAO, times(1)).findById(5L);
+    }
+
+    @Test
+    void missesAreCachedUntilTheNextReloadOrSave() {
+        assertThat(categoryService.getCategoryById(9L)).isNull();
+        assertThat(categoryService.getCategoryById(9L)).isNull();
+        verify(categoryDAO, times(1)).findById(9L);
+
+        categoryService.reload();
+        assertThat(categoryService.getCategoryById(9L)).isNull();
+        verify(categoryDAO, times(2)).findById(9L);
+
+        categoryService.createCategory(category(9L, "Toys"));
+        assertThat(categoryService.getCategoryById(9L).getName()).isEqualTo("Toys");
+    }
+
+    private static Category category(Long id, String name) {
+        Category category = new Category();
+        category.setId(id);
+        category.setName(name);
+        return category;
+    }
+}
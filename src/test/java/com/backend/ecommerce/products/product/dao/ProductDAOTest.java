@@ -0,0 +1,113 @@
+package com.backend.ecommerce.products.product.dao;
+
+import com.backend.ecommerce.products.product.payload.ProductView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+class ProductDAOTest {
+
+    private static final int PAGE_SIZE = 3;
+
+    @Autowired
+    private ProductDAO productDAO;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long books;
+    private long games;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO local_user (username, email, password, confirm_password, first_name, last_name, "
+                + "phone_number, email_verified, token_version) VALUES ('seller', 'seller@example.com', 'x', 'x', "
+                + "'First', 'Last', '0700000001', true, 0)");
+        long seller = jdbcTemplate.queryForObject("SELECT id FROM local_user", Long.class);
+        books = insertCategory("Books");
+        games = insertCategory("Games");
+        // Repeated prices and names, so pages have to break ties on id
+        String[] names = {"Atlas", "Chess", "Atlas", "Bingo", "Chess", "Domino", "Atlas", "Bingo", "Euchre", "Atlas"};
+        double[] prices = {5, 10, 5, 7.5, 10, 5, 20, 7.5, 5, 10};
+        for (int i = 0; i < names.length; i++) {
+            jdbcTemplate.update("INSERT INTO products (name, price, category_id, user_id) VALUES (?, ?, ?, ?)",
+                    names[i], prices[i], i % 2 == 0 ? books : games, seller);
+        }
+    }
+
+    @Test
+    void pagesByIdVisitEveryProductOnce() {
+        List<ProductView> seen = new ArrayList<>();
+        List<ProductView> page = productDAO.findPageById(0L, PageRequest.of(0, PAGE_SIZE));
+        while (!page.isEmpty()) {
+            seen.addAll(page);
+            page = productDAO.findPageById(last(page).getId(), PageRequest.of(0, PAGE_SIZE));
+        }
+
+        assertThat(seen).hasSize(10).isSortedAccordingTo(Comparator.comparing(ProductView::getId));
+    }
+
+    @Test
+    void pagesByPriceBreakTiesOnId() {
+        List<ProductView> seen = new ArrayList<>();
+        List<ProductView> page = productDAO.findPageByPrice(-1.0, 0L, PageRequest.of(0, PAGE_SIZE));
+        while (!page.isEmpty()) {
+            seen.addAll(page);
+            ProductView last = last(page);
+            page = productDAO.findPageByPrice(last.getPrice(), last.getId(), PageRequest.of(0, PAGE_SIZE));
+        }
+
+        assertThat(seen).hasSize(10).extracting(ProductView::getId).doesNotHaveDuplicates();
+        assertThat(seen).isSortedAccordingTo(Comparator.comparing(ProductView::getPrice)
+                .thenComparing(ProductView::getId));
+    }
+
+    @Test
+    void pagesByNameBreakTiesOnId() {
+        List<ProductView> seen = new ArrayList<>();
+        List<ProductView> page = productDAO.findPageByName("", 0L, PageRequest.of(0, PAGE_SIZE));
+        while (!page.isEmpty()) {
+            seen.addAll(page);
+            ProductView last = last(page);
+            page = productDAO.findPageByName(last.getName(), last.getId(), PageRequest.of(0, PAGE_SIZE));
+        }
+
+        assertThat(seen).hasSize(10).extracting(ProductView::getId).doesNotHaveDuplicates();
+        assertThat(seen).isSortedAccordingTo(Comparator.comparing(ProductView::getName)
+                .thenComparing(ProductView::getId));
+    }
+
+    @Test
+    void categoryPagesStayWithinTheCategory() {
+        List<ProductView> seen = new ArrayList<>();
+        List<ProductView> page = productDAO.findCategoryPageByPrice(games, -1.0, 0L, PageRequest.of(0, PAGE_SIZE));
+        while (!page.isEmpty()) {
+            seen.addAll(page);
+            ProductView last = last(page);
+            page = productDAO.findCategoryPageByPrice(games, last.getPrice(), last.getId(),
+                    PageRequest.of(0, PAGE_SIZE));
+        }
+
+        assertThat(seen).hasSize(5).allSatisfy(view -> assertThat(view.getCategory().getName()).isEqualTo("Games"));
+        assertThat(seen).isSortedAccordingTo(Comparator.comparing(ProductView::getPrice)
+                .thenComparing(ProductView::getId));
+    }
+
+    private long insertCategory(String name) {
+        jdbcTemplate.update("INSERT INTO categories (name) VALUES (?)", name);
+        return jdbcTemplate.queryForObject("SELECT id FROM categories WHERE name = ?", Long.class, name);
+    }
+
+    private static ProductView last(List<ProductView> page) {
+        return page.get(page.size() - 1);
+    }
+}
@@ -0,0 +1,140 @@
+package com.backend.ecommerce.products.product.dao;
+
+import com.backend.ecommerce.orders.model.Order;
+import com.backend.ecommerce.orders.model.OrderItem;
+import com.backend.ecommerce.products.category.model.Category;
+import com.backend.ecommerce.products.product.model.Product;
+import com.backend.ecommerce.products.product.payload.ProductView;
+import com.backend.ecommerce.users.model.Address;
+import com.backend.ecommerce.users.model.LocalUser;
+import com.backend.ecommerce.users.model.VerificationToken;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One catalog page read as {@link ProductView} projections versus as Product entities with their
+ * category join-fetched, each in a fresh session as a request would. Runs on in-memory H2; add
+ * {@code -prof gc} to see the allocation per page next to the time.
+ * <p>
+ * {@code ./mvnw -Pbenchmark verify -Dbenchmark=ProductPageBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductPageBenchmark {
+
+    @Param({"20", "100"})
+    public int pageSize;
+
+    @Param({"100000"})
+    public int products;
+
+    private SessionFactory sessionFactory;
+    private long next;
+
+    @Setup
+    public void setUp() {
+        sessionFactory = new Configuration()
+                .setProperty("hibernate.connection.url", "jdbc:h2:mem:pages;MODE=MySQL;DB_CLOSE_DELAY=-1")
+                .setProperty("hibernate.connection.username", "sa")
+                .setProperty("hibernate.hbm2ddl.auto", "create-drop")
+                // Same column names as the application's schema
+                .setPhysicalNamingStrategy(new CamelCaseToUnderscoresNamingStrategy())
+                .addAnnotatedClass(LocalUser.class)
+                .addAnnotatedClass(Address.class)
+                .addAnnotatedClass(VerificationToken.class)
+                .addAnnotatedClass(Category.class)
+                .addAnnotatedClass(Product.class)
+                .addAnnotatedClass(Order.class)
+                .addAnnotatedClass(OrderItem.class)
+                .buildSessionFactory();
+        try (Session session = sessionFactory.openSession()) {
+            session.doWork(connection -> {
+                connection.setAutoCommit(false);
+                connection.createStatement().execute("INSERT INTO local_user (id, username, email, password, "
+                        + "confirm_password, first_name, last_name, phone_number, email_verified, token_version) "
+                        + "VALUES (1, 'seller', 'seller@example.com', 'x', 'x', 'First', 'Last', '0700000001', true, 0)");
+                try (PreparedStatement category = connection.prepareStatement(
+                        "INSERT INTO categories (id, name) VALUES (?, ?)")) {
+                    for (int i = 1; i <= 20; i++) {
+                        category.setLong(1, i);
+                        category.setString(2, "Category " + i);
+                        category.addBatch();
+                    }
+                    category.executeBatch();
+                }
+                try (PreparedStatement product = connection.prepareStatement("INSERT INTO products "
+                        + "(id, name, price, description, image_url, category_id, user_id) VALUES (?, ?, ?, ?, ?, ?, 1)")) {
+                    for (int i = 1; i <= products; i++) {
+                        product.setLong(1, i);
+                        product.setString(2, "Product " + i);
+                        product.setDouble(3, 1 + i % 500);
+                        product.setString(4, "Description of product " + i);
+                        product.setString(5, "https://example.com/images/" + i + ".jpg");
+                        product.setLong(6, 1 + i % 20);
+                        product.addBatch();
+                        if (i % 1000 == 0) {
+                            product.executeBatch();
+                        }
+                    }
+                    product.executeBatch();
+                }
+                connection.commit();
+            });
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public List<ProductView> projection() {
+        try (Session session = sessionFactory.openSession()) {
+            return session.createQuery(ProductDAO.VIEW + "where p.id > :afterId order by p.id", ProductView.class)
+                    .setParameter("afterId", nextCursor())
+                    .setMaxResults(pageSize)
+                    .getResultList();
+        }
+    }
+
+    @Benchmark
+    public List<Product> entities() {
+        try (Session session = sessionFactory.openSession()) {
+            return session.createQuery("select p from Product p join fetch p.category where p.id > :afterId order by p.id",
+                            Product.class)
+                    .setParameter("afterId", nextCursor())
+                    .setMaxResults(pageSize)
+                    .getResultList();
+        }
+    }
+
+    // Spread reads over the table so they aren't all served from the same pages
+    private long nextCursor() {
+        long afterId = next;
+        next = (afterId + 7919) % (products - pageSize);
+        return afterId;
+    }
+}
@@ -0,0 +1,110 @@
+package com.backend.ecommerce.products.product.facet;
+
+import com.backend.ecommerce.common.pagination.CursorPage;
+import com.backend.ecommerce.products.category.dao.CategoryDAO;
+import com.backend.ecommerce.products.category.model.Category;
+import com.backend.ecommerce.products.category.service.CategoryService;
+import com.backend.ecommerce.products.product.dao.ProductDAO;
+import com.backend.ecommerce.products.product.facet.FacetSnapshot.Row;
+import com.backend.ecommerce.products.product.payload.FacetCounts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Facet counts, a filtered page and a change merge over catalogs from 10k to 10M products spread over
+ * 50 categories. The narrow queries take a price range holding a tenth of the catalog and two
+ * categories. The merge applies 100 queued writes, which costs one pass over every row.
+ * <p>
+ * {@code ./mvnw -Pbenchmark verify -Dbenchmark=CatalogFacetsBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class CatalogFacetsBenchmark {
+
+    private static final int CATEGORIES = 50;
+    private static final double MAX_PRICE = 1000;
+    private static final List<Double> BANDS = List.of(0.0, 10.0, 50.0, 100.0, 500.0);
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    public int products;
+
+    private CatalogFacets facets;
+    private FacetSnapshot snapshot;
+    private Map<Long, Row> changes;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(3);
+        // Prices rise with the row, so rows arrive in (price, id) order as they do from the price index
+        FacetSnapshot.Builder builder = new FacetSnapshot.Builder(products, null);
+        for (int i = 0; i < products; i++) {
+            builder.add(i + 1, 1 + random.nextInt(CATEGORIES), MAX_PRICE * i / products);
+        }
+        snapshot = builder.build();
+
+        List<Category> categories = new ArrayList<>();
+        for (long id = 1; id <= CATEGORIES; id++) {
+            Category category = new Category();
+            category.setId(id);
+            category.setName("Category " + id);
+            categories.add(category);
+        }
+        CategoryDAO categoryDAO = mock(CategoryDAO.class);
+        when(categoryDAO.findAll()).thenReturn(categories);
+        CategoryService categoryService = new CategoryService(categoryDAO, 1000, 60, new SimpleMeterRegistry());
+        categoryService.reload();
+        facets = new CatalogFacets(mock(ProductDAO.class), categoryService, BANDS.size());
+        ReflectionTestUtils.setField(facets, "snapshot", snapshot);
+
+        changes = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            long id = 1 + random.nextInt(products);
+            changes.put(id, new Row(id, 1L + random.nextInt(CATEGORIES), random.nextDouble() * MAX_PRICE));
+        }
+    }
+
+    @Benchmark
+    public FacetCounts countAll() {
+        return facets.count(List.of(), null, null, BANDS);
+    }
+
+    @Benchmark
+    public FacetCounts countNarrow() {
+        return facets.count(List.of(7L, 19L), 400.0, 500.0, BANDS);
+    }
+
+    @Benchmark
+    public CursorPage<Long> filterPage() {
+        return facets.filter(List.of(7L, 19L), 400.0, 500.0, null, 20);
+    }
+
+    @Benchmark
+    public FacetSnapshot merge() {
+        return snapshot.with(changes);
+    }
+}
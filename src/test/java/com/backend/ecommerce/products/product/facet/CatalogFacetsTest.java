@@ -0,0 +1,106 @@
+package com.backend.ecommerce.products.product.facet;
+
+import com.backend.ecommerce.common.pagination.CursorPage;
+import com.backend.ecommerce.products.category.model.Category;
+import com.backend.ecommerce.products.category.service.CategoryService;
+import com.backend.ecommerce.products.product.dao.ProductDAO;
+import com.backend.ecommerce.products.product.payload.FacetCounts;
+import com.backend.ecommerce.products.product.payload.ProductView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CatalogFacetsTest {
+
+    private final ProductDAO productDAO = mock(ProductDAO.class);
+    private final CategoryService categoryService = mock(CategoryService.class);
+    private final CatalogFacets facets = new CatalogFacets(productDAO, categoryService, 5);
+
+    @BeforeEach
+    void setUp() {
+        when(categoryService.getCategoryById(anyLong())).thenAnswer(invocation -> category(invocation.getArgument(0)));
+        // (id, category, price) in price order, as the price index returns them
+        when(productDAO.findFacetRowsAfter(eq(-Double.MAX_VALUE), eq(0L), any())).thenReturn(List.of(
+                facetRow(1, 1, 5), facetRow(2, 2, 8), facetRow(3, 1, 10), facetRow(4, 1, 12),
+                facetRow(5, 2, 15), facetRow(6, 3, 30)));
+        facets.reload();
+    }
+
+    @Test
+    void countsCategoriesBandsAndTotal() {
+        FacetCounts counts = facets.count(List.of(1L), 6.0, 20.0, List.of(0.0, 10.0, 20.0));
+
+        assertThat(counts.getTotal()).isEqualTo(2);
+        assertThat(counts.getCategories())
+                .extracting(FacetCounts.CategoryCount::getId, FacetCounts.CategoryCount::getCount)
+                .containsExactly(tuple(1L, 2), tuple(2L, 2));
+        // Bands count the selected categories over all prices
+        assertThat(counts.getPriceBands()).extracting(FacetCounts.PriceBandCount::getCount).containsExactly(1, 2, 0);
+    }
+
+    @Test
+    void rejectsTooManyOrUnorderedBands() {
+        assertThatThrownBy(() -> facets.count(List.of(), null, null, List.of(1.0, 2.0, 3.0, 4.0, 5.0, 6.0)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> facets.count(List.of(), null, null, List.of(2.0, 1.0)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void filterPagesThroughTheMatchesCheapestFirst() {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<Long> page = facets.filter(List.of(1L, 3L), null, null, cursor, 2);
+            ids.addAll(page.getItems());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertThat(ids).containsExactly(1L, 3L, 4L, 6L);
+    }
+
+    @Test
+    void queuedWritesShowAfterARefresh() {
+        facets.productSaved(new ProductView(7L, "New", 11.0, null, null, 2L, "Two"));
+        facets.productDeleted(5L);
+
+        assertThat(facets.count(List.of(2L), null, null, List.of()).getTotal()).isEqualTo(2);
+        facets.refresh();
+
+        assertThat(facets.filter(List.of(2L), null, null, null, 10).getItems()).containsExactly(2L, 7L);
+    }
+
+    private static Category category(Long id) {
+        Category category = new Category();
+        category.setId(id);
+        category.setName("Category " + id);
+        return category;
+    }
+
+    private static ProductDAO.FacetRow facetRow(long id, long categoryId, double price) {
+        return new ProductDAO.FacetRow() {
+            public Long getId() {
+                return id;
+            }
+
+            public Long getCategoryId() {
+                return categoryId;
+            }
+
+            public Double getPrice() {
+                return price;
+            }
+        };
+    }
+}
@@ -0,0 +1,152 @@
+package com.backend.ecommerce.products.product.facet;
+
+import com.backend.ecommerce.products.product.facet.FacetSnapshot.Row;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FacetSnapshotTest {
+
+    @Test
+    void boundsFindPriceSlices() {
+        FacetSnapshot snapshot = snapshot(List.of(row(1, 1, 5), row(2, 1, 10), row(3, 2, 10), row(4, 2, 20)));
+
+        assertThat(snapshot.lowerBound(10)).isEqualTo(1);
+        assertThat(snapshot.upperBound(10)).isEqualTo(3);
+        assertThat(snapshot.lowerBound(100)).isEqualTo(4);
+        assertThat(snapshot.upperBound(1)).isZero();
+        assertThat(snapshot.after(10, 2)).isEqualTo(2);
+        assertThat(snapshot.after(10, 3)).isEqualTo(3);
+    }
+
+    @Test
+    void countsCategoriesAcrossWordBoundaries() {
+        List<Row> rows = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            rows.add(row(i + 1, i % 3, i));
+        }
+        FacetSnapshot snapshot = snapshot(rows);
+        int ordinal = snapshot.ordinal(1);
+
+        assertThat(snapshot.count(ordinal, 0, 300)).isEqualTo(100);
+        assertThat(snapshot.count(ordinal, 60, 70)).isEqualTo(bruteCount(rows, 1, 60, 70));
+        assertThat(snapshot.count(ordinal, 63, 129)).isEqualTo(bruteCount(rows, 1, 63, 129));
+        assertThat(snapshot.count(ordinal, 64, 128)).isEqualTo(bruteCount(rows, 1, 64, 128));
+        assertThat(snapshot.count(ordinal, 5, 5)).isZero();
+        assertThat(snapshot.ordinal(99)).isEqualTo(-1);
+    }
+
+    @Test
+    void mergeInsertsUpdatesAndDeletesInOneRowOrder() {
+        FacetSnapshot snapshot = snapshot(List.of(row(1, 1, 5), row(2, 1, 10), row(3, 2, 15), row(4, 2, 20)));
+        Map<Long, Row> changes = new HashMap<>();
+        changes.put(5L, row(5, 3, 12));
+        // Moves from the front to the back, and to another category
+        changes.put(1L, row(1, 2, 25));
+        changes.put(3L, new Row(3, null, 0));
+        // Same price as an existing row, so it lands by id
+        changes.put(6L, row(6, 1, 10));
+
+        FacetSnapshot merged = snapshot.with(changes);
+
+        assertThat(merged.size).isEqualTo(5);
+        assertThat(merged.ids).startsWith(2, 6, 5, 4, 1);
+        assertThat(merged.prices).startsWith(10, 10, 12, 20, 25);
+        assertThat(merged.count(merged.ordinal(2), 0, merged.size)).isEqualTo(2);
+        assertThat(merged.count(merged.ordinal(3), 0, merged.size)).isEqualTo(1);
+        // The old snapshot is untouched and the ordinals carry over
+        assertThat(snapshot.size).isEqualTo(4);
+        assertThat(merged.ordinal(1)).isEqualTo(snapshot.ordinal(1));
+    }
+
+    @Test
+    void deletingEveryRowOfACategoryLeavesItCountingZero() {
+        FacetSnapshot snapshot = snapshot(List.of(row(1, 1, 5), row(2, 2, 10)));
+
+        FacetSnapshot merged = snapshot.with(Map.of(2L, new Row(2, null, 0)));
+
+        assertThat(merged.ordinal(2)).isGreaterThanOrEqualTo(0);
+        assertThat(merged.count(merged.ordinal(2), 0, merged.size)).isZero();
+    }
+
+    @Test
+    void deletingAnUnknownProductChangesNothing() {
+        FacetSnapshot snapshot = snapshot(List.of(row(1, 1, 5)));
+
+        FacetSnapshot merged = snapshot.with(Map.of(9L, new Row(9, null, 0)));
+
+        assertThat(merged.size).isEqualTo(1);
+        assertThat(merged.ids).startsWith(1);
+    }
+
+    @Test
+    void repeatedMergesMatchASnapshotBuiltFromScratch() {
+        Random random = new Random(5);
+        Map<Long, Row> model = new HashMap<>();
+        FacetSnapshot snapshot = FacetSnapshot.empty();
+        for (int round = 0; round < 50; round++) {
+            Map<Long, Row> changes = new HashMap<>();
+            for (int i = 0; i < 40; i++) {
+                long id = 1 + random.nextInt(500);
+                Row change = random.nextInt(5) == 0
+                        ? new Row(id, null, 0)
+                        : row(id, random.nextInt(6), random.nextInt(50));
+                changes.put(id, change);
+            }
+            changes.forEach((id, row) -> {
+                if (row.categoryId() == null) {
+                    model.remove(id);
+                } else {
+                    model.put(id, row);
+                }
+            });
+            snapshot = snapshot.with(changes);
+        }
+
+        List<Row> expected = new ArrayList<>(model.values());
+        expected.sort(Row.ORDER);
+        assertThat(snapshot.size).isEqualTo(expected.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertThat(snapshot.ids[i]).isEqualTo(expected.get(i).id());
+            assertThat(snapshot.prices[i]).isEqualTo(expected.get(i).price());
+            assertThat(snapshot.categoryIds[snapshot.categories[i]]).isEqualTo(expected.get(i).categoryId());
+        }
+        for (long category = 0; category < 6; category++) {
+            int from = snapshot.lowerBound(10);
+            int to = snapshot.upperBound(30);
+            assertThat(snapshot.count(snapshot.ordinal(category), from, to))
+                    .isEqualTo(bruteCount(expected, category, from, to));
+        }
+    }
+
+    private static FacetSnapshot snapshot(List<Row> rows) {
+        List<Row> sorted = new ArrayList<>(rows);
+        sorted.sort(Row.ORDER);
+        FacetSnapshot.Builder builder = new FacetSnapshot.Builder(sorted.size(), null);
+        sorted.forEach(builder::add);
+        return builder.build();
+    }
+
+    // Rows of the category among positions [from, to) of the rows in snapshot order
+    private static int bruteCount(List<Row> rows, long categoryId, int from, int to) {
+        List<Row> sorted = new ArrayList<>(rows);
+        sorted.sort(Row.ORDER);
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (sorted.get(i).categoryId() == categoryId) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static Row row(long id, long categoryId, double price) {
+        return new Row(id, categoryId, price);
+    }
+}
@@ -0,0 +1,79 @@
+package com.backend.ecommerce.products.product.search;
+
+import com.backend.ecommerce.products.product.dao.ProductDAO;
+import com.backend.ecommerce.products.product.payload.ProductView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductNameSuggesterTest {
+
+    private final ProductDAO productDAO = mock(ProductDAO.class);
+    private final ProductNameSuggester suggester = new ProductNameSuggester(productDAO, 5);
+
+    @BeforeEach
+    void setUp() {
+        when(productDAO.findUnitsSold()).thenReturn(List.of(sold(2L, 10L)));
+        when(productDAO.findNamesAfter(eq(0L), any())).thenReturn(List.of(
+                name(1L, "Red Shoes"), name(2L, "Red Shirt"), name(3L, "red shoes"), name(4L, "Reddish Mug")));
+        suggester.rebuild();
+    }
+
+    @Test
+    void sameNamesShareASuggestionAndSalesRankFirst() {
+        assertThat(suggester.isReady()).isTrue();
+        assertThat(suggester.suggest("RED", 5)).containsExactly("Red Shirt", "Red Shoes", "Reddish Mug");
+    }
+
+    @Test
+    void trailingSpaceCompletesTheWord() {
+        assertThat(suggester.suggest("red ", 5)).containsExactly("Red Shirt", "Red Shoes");
+        assertThat(suggester.suggest("red", 1)).containsExactly("Red Shirt");
+        assertThat(suggester.suggest("  ", 5)).isEmpty();
+    }
+
+    @Test
+    void renamesAndDeletesApplyImmediately() {
+        suggester.productSaved(new ProductView(4L, "Blue Mug", 5.0, null, null, 1L, "Kitchen"));
+        suggester.productDeleted(2L);
+
+        assertThat(suggester.suggest("red", 5)).containsExactly("Red Shoes");
+        assertThat(suggester.suggest("blue", 5)).containsExactly("Blue Mug");
+        // One of the two "red shoes" products goes; the other keeps the name alive
+        suggester.productDeleted(1L);
+        assertThat(suggester.suggest("red", 5)).containsExactly("Red Shoes");
+        suggester.productDeleted(3L);
+        assertThat(suggester.suggest("red", 5)).isEmpty();
+    }
+
+    private static ProductDAO.ProductName name(Long id, String name) {
+        return new ProductDAO.ProductName() {
+            public Long getId() {
+                return id;
+            }
+
+            public String getName() {
+                return name;
+            }
+        };
+    }
+
+    private static ProductDAO.UnitsSold sold(Long productId, Long units) {
+        return new ProductDAO.UnitsSold() {
+            public Long getProductId() {
+                return productId;
+            }
+
+            public Long getUnits() {
+                return units;
+            }
+        };
+    }
+}
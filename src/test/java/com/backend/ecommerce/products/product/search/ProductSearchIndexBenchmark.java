@@ -0,0 +1,157 @@
+package com.backend.ecommerce.products.product.search;
+
+import com.backend.ecommerce.products.product.dao.ProductDAO;
+import com.backend.ecommerce.products.product.payload.ProductSearchResult;
+import com.backend.ecommerce.products.product.payload.ProductView;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Search latency over a synthetic catalog built through {@link ProductSearchIndex#rebuild()}. Names and
+ * descriptions draw from a Zipf-distributed vocabulary of syllable words, so common terms have long postings
+ * lists and prefixes expand to many terms, as in real product copy. Queries are drawn the same way.
+ * <p>
+ * {@code ./mvnw -Pbenchmark verify -Dbenchmark=ProductSearchIndexBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class ProductSearchIndexBenchmark {
+
+    private static final String[] SYLLABLES = {"ka", "lo", "mi", "ne", "ru", "ta", "vo", "si", "pe", "da",
+            "go", "bu", "fa", "hi", "jo", "ze", "wa", "ti", "ro", "ma"};
+    private static final int QUERIES = 1024;
+
+    @Param({"1000000"})
+    public int products;
+
+    // "rare" draws its term uniformly rather than by popularity, so it shows the cost of a short postings list
+    @Param({"one", "two", "prefix", "filtered", "rare"})
+    public String query;
+
+    // Matches counted exactly before pruning starts; 0 prunes as soon as the window is full
+    @Param({"0", "1000"})
+    public int trackTotalHits;
+
+    private ProductSearchIndex index;
+    private String[] queries;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        String[] vocabulary = vocabulary();
+        double[] cumulative = zipf(vocabulary.length);
+        SplittableRandom random = new SplittableRandom(42);
+        ProductView[] catalog = new ProductView[products];
+        for (int i = 0; i < products; i++) {
+            catalog[i] = new ProductView((long) i + 1, words(vocabulary, cumulative, random, 3),
+                    1 + random.nextInt(500) + 0.99, words(vocabulary, cumulative, random, 12), null,
+                    1 + (long) random.nextInt(50), null);
+        }
+
+        ProductDAO productDAO = mock(ProductDAO.class);
+        when(productDAO.findPageById(anyLong(), any())).thenAnswer(invocation -> {
+            int from = (int) (long) invocation.getArgument(0, Long.class);
+            int size = invocation.getArgument(1, Pageable.class).getPageSize();
+            return Arrays.asList(catalog).subList(Math.min(from, products), Math.min(from + size, products));
+        });
+        index = new ProductSearchIndex(productDAO, trackTotalHits, new SimpleMeterRegistry());
+        index.rebuild();
+
+        queries = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            queries[i] = switch (query) {
+                case "two" -> words(vocabulary, cumulative, random, 2);
+                case "prefix" -> words(vocabulary, cumulative, random, 1) + ' '
+                        + words(vocabulary, cumulative, random, 1).substring(0, 3);
+                case "rare" -> vocabulary[random.nextInt(vocabulary.length)];
+                default -> words(vocabulary, cumulative, random, 1);
+            };
+        }
+    }
+
+    @Benchmark
+    public ProductSearchResult search() {
+        int i = next;
+        next = (i + 1) & (QUERIES - 1);
+        return query.equals("filtered")
+                ? index.search(queries[i], (long) (i % 50) + 1, 50.0, 200.0, 0, 20)
+                : index.search(queries[i], null, null, null, 0, 20);
+    }
+
+    // Two- to four-syllable words: 168,400 terms
+    private static String[] vocabulary() {
+        int n = SYLLABLES.length;
+        String[] words = new String[n * n + n * n * n + n * n * n * n];
+        int w = 0;
+        for (String a : SYLLABLES) {
+            for (String b : SYLLABLES) {
+                words[w++] = a + b;
+                for (String c : SYLLABLES) {
+                    words[w++] = a + b + c;
+                    for (String d : SYLLABLES) {
+                        words[w++] = a + b + c + d;
+                    }
+                }
+            }
+        }
+        // Shuffle so popularity doesn't follow alphabetical order
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = words.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            String swap = words[i];
+            words[i] = words[j];
+            words[j] = swap;
+        }
+        return words;
+    }
+
+    private static double[] zipf(int size) {
+        double[] cumulative = new double[size];
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += 1.0 / (i + 1);
+            cumulative[i] = sum;
+        }
+        for (int i = 0; i < size; i++) {
+            cumulative[i] /= sum;
+        }
+        return cumulative;
+    }
+
+    private static String words(String[] vocabulary, double[] cumulative, SplittableRandom random, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            int rank = Arrays.binarySearch(cumulative, random.nextDouble());
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(vocabulary[rank < 0 ? Math.min(-rank - 1, vocabulary.length - 1) : rank]);
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,181 @@
+package com.backend.ecommerce.products.product.search;
+
+import com.backend.ecommerce.products.product.dao.ProductDAO;
+import com.backend.ecommerce.products.product.payload.ProductSearchResult;
+import com.backend.ecommerce.products.product.payload.ProductView;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductSearchIndexTest {
+
+    private final ProductDAO productDAO = mock(ProductDAO.class);
+    private final ProductSearchIndex index = new ProductSearchIndex(productDAO, 1000, new SimpleMeterRegistry());
+
+    @BeforeEach
+    void setUp() {
+        when(productDAO.findPageById(eq(0L), any())).thenReturn(List.of(
+                product(1, "Wooden chess set", "Hand carved pieces and a folding board", 1, 45.0),
+                product(2, "Travel backgammon", "Compact board for chess lovers on the go", 1, 25.0),
+                product(3, "Chess clock", "Digital clock for tournament play", 2, 30.0),
+                product(4, "Thermos flask", "Keeps coffee hot for twelve hours", 3, 20.0)));
+        index.rebuild();
+    }
+
+    @Test
+    void notReadyUntilTheFirstBuild() {
+        ProductSearchIndex fresh = new ProductSearchIndex(productDAO, 1000, new SimpleMeterRegistry());
+
+        assertThat(fresh.isReady()).isFalse();
+        assertThat(fresh.search("chess", null, null, null, 0, 10).getItems()).isEmpty();
+        assertThat(index.isReady()).isTrue();
+    }
+
+    @Test
+    void firstBuildRunsInTheBackground() {
+        ProductSearchIndex fresh = new ProductSearchIndex(productDAO, 1000, new SimpleMeterRegistry());
+
+        fresh.buildInBackground();
+
+        await().atMost(5, TimeUnit.SECONDS).until(fresh::isReady);
+        assertThat(ids(fresh.search("chess", null, null, null, 0, 10))).containsExactlyInAnyOrder(1L, 2L, 3L);
+    }
+
+    @Test
+    void pruningKeepsTheSameTopHits() {
+        String[] words = {"oak", "pine", "desk", "lamp", "chair", "table", "shelf", "brass", "steel", "glass",
+                "round", "square", "small", "large", "modern", "rustic"};
+        SplittableRandom random = new SplittableRandom(1);
+        List<ProductView> catalog = new ArrayList<>();
+        for (long id = 1; id <= 5000; id++) {
+            catalog.add(product(id, text(words, random, 1 + random.nextInt(3)), text(words, random, random.nextInt(12)),
+                    1 + random.nextInt(4), 1 + random.nextInt(100)));
+        }
+        ProductDAO catalogDAO = mock(ProductDAO.class);
+        when(catalogDAO.findPageById(eq(0L), any())).thenReturn(catalog);
+        ProductSearchIndex exhaustive = new ProductSearchIndex(catalogDAO, Integer.MAX_VALUE, new SimpleMeterRegistry());
+        ProductSearchIndex pruned = new ProductSearchIndex(catalogDAO, 0, new SimpleMeterRegistry());
+        exhaustive.rebuild();
+        pruned.rebuild();
+
+        boolean skipped = false;
+        for (String query : List.of("oak", "desk lamp", "steel ch", "modern", "glass table sq", "r", "large shelf")) {
+            for (Long categoryId : new Long[]{null, 2L}) {
+                ProductSearchResult expected = exhaustive.search(query, categoryId, null, 80.0, 0, 20);
+                ProductSearchResult actual = pruned.search(query, categoryId, null, 80.0, 0, 20);
+
+                assertThat(ids(actual)).as(query).isEqualTo(ids(expected));
+                assertThat(expected.isTotalExact()).isTrue();
+                assertThat(actual.getTotal()).isLessThanOrEqualTo(expected.getTotal());
+                if (actual.isTotalExact()) {
+                    assertThat(actual.getTotal()).isEqualTo(expected.getTotal());
+                }
+                skipped |= !actual.isTotalExact();
+            }
+        }
+        assertThat(skipped).isTrue();
+    }
+
+    @Test
+    void nameMatchesOutrankDescriptionMatches() {
+        ProductSearchResult result = index.search("chess", null, null, null, 0, 10);
+
+        assertThat(ids(result)).containsExactlyInAnyOrder(1L, 2L, 3L);
+        assertThat(ids(result).get(2)).isEqualTo(2L);
+        assertThat(result.getTotal()).isEqualTo(3);
+    }
+
+    @Test
+    void everyTermHasToMatch() {
+        assertThat(ids(index.search("chess clock", null, null, null, 0, 10))).containsExactly(3L);
+        assertThat(ids(index.search("chess coffee", null, null, null, 0, 10))).isEmpty();
+    }
+
+    @Test
+    void lastTermMatchesAsAPrefix() {
+        assertThat(ids(index.search("the", null, null, null, 0, 10))).containsExactly(4L);
+        assertThat(ids(index.search("digital cl", null, null, null, 0, 10))).containsExactly(3L);
+        // Earlier terms must match whole
+        assertThat(ids(index.search("dig clock", null, null, null, 0, 10))).isEmpty();
+    }
+
+    @Test
+    void accentsAndCaseAreIgnored() {
+        assertThat(ids(index.search("CHÉSS Clock", null, null, null, 0, 10))).containsExactly(3L);
+    }
+
+    @Test
+    void filtersByCategoryAndPrice() {
+        assertThat(ids(index.search("chess", 1L, null, null, 0, 10))).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(ids(index.search("chess", null, 26.0, 40.0, 0, 10))).containsExactly(3L);
+    }
+
+    @Test
+    void pagesThroughTheRanking() {
+        List<Long> all = ids(index.search("chess", null, null, null, 0, 10));
+
+        ProductSearchResult second = index.search("chess", null, null, null, 1, 1);
+
+        assertThat(ids(second)).containsExactly(all.get(1));
+        assertThat(second.getTotal()).isEqualTo(3);
+    }
+
+    @Test
+    void updatesReplaceTheOldTerms() {
+        index.productSaved(product(3, "Kitchen timer", "Digital countdown", 2, 12.0));
+
+        assertThat(ids(index.search("chess", null, null, null, 0, 10))).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(ids(index.search("timer", null, null, null, 0, 10))).containsExactly(3L);
+    }
+
+    @Test
+    void deletedProductsDisappear() {
+        index.productDeleted(4L);
+
+        assertThat(ids(index.search("thermos", null, null, null, 0, 10))).isEmpty();
+        assertThat(index.search("", null, null, null, 0, 10).getTotal()).isZero();
+    }
+
+    @Test
+    void rebuildKeepsWritesThatLandWhileItRuns() {
+        when(productDAO.findPageById(eq(0L), any())).thenAnswer(invocation -> {
+            List<ProductView> stale = List.of(product(1, "Wooden chess set", "Hand carved", 1, 45.0));
+            // Committed after the rebuild read its page
+            index.productSaved(product(1, "Marble chess set", "Polished stone", 1, 90.0));
+            return stale;
+        });
+
+        index.rebuild();
+
+        assertThat(ids(index.search("marble", null, null, null, 0, 10))).containsExactly(1L);
+        assertThat(ids(index.search("wooden", null, null, null, 0, 10))).isEmpty();
+    }
+
+    private static String text(String[] words, SplittableRandom random, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            text.append(words[random.nextInt(words.length)]).append(' ');
+        }
+        return text.toString();
+    }
+
+    private static List<Long> ids(ProductSearchResult result) {
+        return result.getItems().stream().map(ProductView::getId).toList();
+    }
+
+    private static ProductView product(long id, String name, String description, long categoryId, double price) {
+        return new ProductView(id, name, price, description, null, categoryId, "Category " + categoryId);
+    }
+}
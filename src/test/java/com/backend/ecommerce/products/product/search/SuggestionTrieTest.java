@@ -0,0 +1,151 @@
+package com.backend.ecommerce.products.product.search;
+
+import com.backend.ecommerce.products.product.search.SuggestionTrie.Suggestion;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SuggestionTrieTest {
+
+    @Test
+    void completesPrefixesBestFirst() {
+        SuggestionTrie trie = SuggestionTrie.build(List.of(
+                suggestion("red shoes", 5),
+                suggestion("red shirt", 9),
+                suggestion("reading lamp", 2),
+                suggestion("blue shoes", 7)), 10);
+
+        assertThat(trie.complete("re")).containsExactly("Red Shirt", "Red Shoes", "Reading Lamp");
+        assertThat(trie.complete("red sh")).containsExactly("Red Shirt", "Red Shoes");
+        // The prefix ends partway along an edge
+        assertThat(trie.complete("read")).containsExactly("Reading Lamp");
+        assertThat(trie.complete("")).hasSize(4).first().isEqualTo("Red Shirt");
+        assertThat(trie.complete("green")).isEmpty();
+        assertThat(trie.complete("red shoesx")).isEmpty();
+    }
+
+    @Test
+    void keepsOnlyTheTopKAndBreaksTiesAlphabetically() {
+        SuggestionTrie trie = SuggestionTrie.build(List.of(
+                suggestion("cab", 1), suggestion("caa", 1), suggestion("cac", 3), suggestion("cad", 1)), 3);
+
+        assertThat(trie.complete("ca")).containsExactly("Cac", "Caa", "Cab");
+    }
+
+    @Test
+    void insertSplitsAnEdgePartway() {
+        SuggestionTrie trie = SuggestionTrie.build(List.of(suggestion("teapot", 1)), 10);
+
+        SuggestionTrie updated = trie.with(suggestion("teacup", 2)).with(suggestion("tea", 3));
+
+        assertThat(updated.complete("tea")).containsExactly("Tea", "Teacup", "Teapot");
+        assertThat(updated.complete("teap")).containsExactly("Teapot");
+        assertThat(updated.complete("teac")).containsExactly("Teacup");
+        // The original trie is untouched
+        assertThat(trie.complete("tea")).containsExactly("Teapot");
+    }
+
+    @Test
+    void insertIntoAnEmptyTrie() {
+        SuggestionTrie trie = SuggestionTrie.empty(5).with(suggestion("lamp", 1));
+
+        assertThat(trie.complete("l")).containsExactly("Lamp");
+        assertThat(SuggestionTrie.empty(5).complete("l")).isEmpty();
+    }
+
+    @Test
+    void reweightingReordersCompletions() {
+        SuggestionTrie trie = SuggestionTrie.build(List.of(suggestion("mug", 1), suggestion("mat", 2)), 10);
+
+        assertThat(trie.with(suggestion("mug", 5)).complete("m")).containsExactly("Mug", "Mat");
+    }
+
+    @Test
+    void deleteRemovesTheKeyAndMergesLoneChildren() {
+        SuggestionTrie trie = SuggestionTrie.build(List.of(
+                suggestion("tea", 3), suggestion("teacup", 2), suggestion("teapot", 1)), 10);
+
+        SuggestionTrie withoutTea = trie.without("tea");
+        SuggestionTrie onlyPot = withoutTea.without("teacup");
+
+        assertThat(withoutTea.complete("tea")).containsExactly("Teacup", "Teapot");
+        assertThat(onlyPot.complete("t")).containsExactly("Teapot");
+        assertThat(onlyPot.complete("teap")).containsExactly("Teapot");
+        assertThat(onlyPot.complete("teac")).isEmpty();
+        assertThat(onlyPot.without("teapot").complete("")).isEmpty();
+    }
+
+    @Test
+    void deletingAMissingKeyChangesNothing() {
+        SuggestionTrie trie = SuggestionTrie.build(List.of(suggestion("teapot", 1)), 10);
+
+        assertThat(trie.without("tea").complete("t")).containsExactly("Teapot");
+        assertThat(trie.without("teapots").complete("t")).containsExactly("Teapot");
+        assertThat(trie.without("coffee").complete("t")).containsExactly("Teapot");
+    }
+
+    @Test
+    void incrementalUpdatesAgreeWithABulkBuild() {
+        Random random = new Random(11);
+        Map<String, Suggestion> model = new HashMap<>();
+        SuggestionTrie trie = SuggestionTrie.empty(5);
+        for (int i = 0; i < 2000; i++) {
+            String key = randomKey(random);
+            if (random.nextInt(4) == 0) {
+                model.remove(key);
+                trie = trie.without(key);
+            } else {
+                Suggestion suggestion = new Suggestion(key, key.toUpperCase(), random.nextInt(20));
+                model.put(key, suggestion);
+                trie = trie.with(suggestion);
+            }
+        }
+
+        SuggestionTrie built = SuggestionTrie.build(model.values(), 5);
+        for (String prefix : List.of("", "a", "b", "ab", "ba", "abc", "cab", "a b", "bb")) {
+            List<String> expected = bruteForce(model, prefix, 5);
+            assertThat(trie.complete(prefix)).as(prefix).isEqualTo(expected);
+            assertThat(built.complete(prefix)).as(prefix).isEqualTo(expected);
+        }
+    }
+
+    private static String randomKey(Random random) {
+        String alphabet = "abc ";
+        StringBuilder key = new StringBuilder();
+        key.append(alphabet.charAt(random.nextInt(3)));
+        int length = random.nextInt(5);
+        for (int i = 0; i < length; i++) {
+            key.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return key.toString();
+    }
+
+    private static List<String> bruteForce(Map<String, Suggestion> model, String prefix, int k) {
+        List<Suggestion> matches = new ArrayList<>();
+        for (Suggestion suggestion : model.values()) {
+            if (suggestion.key().startsWith(prefix)) {
+                matches.add(suggestion);
+            }
+        }
+        matches.sort(Comparator.comparingLong(Suggestion::weight).reversed().thenComparing(Suggestion::key));
+        return matches.stream().limit(k).map(Suggestion::text).toList();
+    }
+
+    private static Suggestion suggestion(String key, long weight) {
+        StringBuilder text = new StringBuilder(key.length());
+        for (String word : key.split(" ")) {
+            if (!text.isEmpty()) {
+                text.append(' ');
+            }
+            text.append(Character.toUpperCase(word.charAt(0))).append(word.substring(1));
+        }
+        return new Suggestion(key, text.toString(), weight);
+    }
+}
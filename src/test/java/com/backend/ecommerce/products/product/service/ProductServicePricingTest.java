@@ -0,0 +1,58 @@
+package com.backend.ecommerce.products.product.service;
+
+import com.backend.ecommerce.products.category.service.CategoryService;
+import com.backend.ecommerce.products.product.dao.ProductDAO;
+import com.backend.ecommerce.products.product.model.ProductNotFoundException;
+import com.backend.ecommerce.products.product.payload.ProductView;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductServicePricingTest {
+
+    private final ProductDAO productDAO = mock(ProductDAO.class);
+    private final ProductService productService = new ProductService(productDAO, mock(CategoryService.class),
+            100, 600, 100, 600, new SimpleMeterRegistry(), List.of());
+
+    @Test
+    void pricesComeFromTheDatabaseEvenWhenTheProductIsCached() {
+        when(productDAO.findViewById(1L)).thenReturn(Optional.of(
+                new ProductView(1L, "Chess", 10.0, "Board game", null, 2L, "Games")));
+        productService.getProduct(1L);
+        // Repriced elsewhere after this instance cached the product
+        when(productDAO.findPricesByIdIn(any())).thenReturn(List.of(price(1L, 12.5)));
+
+        assertThat(productService.getPrices(List.of(1L, 1L))).containsExactly(Map.entry(1L, 12.5));
+    }
+
+    @Test
+    void unknownProductsAreAllReported() {
+        when(productDAO.findPricesByIdIn(any())).thenReturn(List.of(price(1L, 10.0)));
+
+        assertThatThrownBy(() -> productService.getPrices(List.of(1L, 2L, 3L)))
+                .isInstanceOf(ProductNotFoundException.class)
+                .hasMessageContaining("2")
+                .hasMessageContaining("3");
+    }
+
+    private static ProductDAO.ProductPrice price(Long id, Double price) {
+        return new ProductDAO.ProductPrice() {
+            public Long getId() {
+                return id;
+            }
+
+            public Double getPrice() {
+                return price;
+            }
+        };
+    }
+}
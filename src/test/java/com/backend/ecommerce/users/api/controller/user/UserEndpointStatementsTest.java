@@ -0,0 +1,146 @@
+package com.backend.ecommerce.users.api.controller.user;
+
+import com.backend.ecommerce.users.model.Address;
+import com.backend.ecommerce.users.model.LocalUser;
+import com.backend.ecommerce.users.model.dao.AddressDAO;
+import com.backend.ecommerce.users.model.dao.LocalUserDAO;
+import com.backend.ecommerce.users.service.PrincipalCache;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paypal.base.rest.APIContext;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Pins the number of SQL statements behind the login and profile endpoints, so a lazy association that
+ * starts loading per row, or an entity graph that stops being applied, fails here instead of in production.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:statements;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "encryption.salt.rounds=4",
+        "encryption.calibration.enabled=false",
+        "email.outbox.pollIntervalMillis=3600000"
+})
+@AutoConfigureMockMvc
+class UserEndpointStatementsTest {
+
+    // Building the real one calls out to PayPal
+    @MockBean
+    private APIContext apiContext;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private LocalUserDAO localUserDAO;
+    @Autowired
+    private AddressDAO addressDAO;
+    @Autowired
+    private PrincipalCache principalCache;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        if (localUserDAO.findByUsernameIgnoreCase("alice").isEmpty()) {
+            LocalUser user = new LocalUser();
+            user.setUsername("alice");
+            user.setEmail("alice@example.com");
+            user.setPassword(BCrypt.hashpw("Passw0rd!", BCrypt.gensalt(4)));
+            user.setConfirmPassword(user.getPassword());
+            user.setFirstName("Alice");
+            user.setLastName("Smith");
+            user.setPhoneNumber("+255700000001");
+            user.setEmailVerified(true);
+            user = localUserDAO.save(user);
+            for (int i = 0; i < 3; i++) {
+                Address address = new Address();
+                address.setStreet("Street " + i);
+                address.setCity("Dar es Salaam");
+                address.setCountry("Tanzania");
+                address.setPostalCode("1100" + i);
+                address.setUser(user);
+                addressDAO.save(address);
+            }
+        }
+    }
+
+    @Test
+    void loginLoadsTheUserOnce() throws Exception {
+        statistics.clear();
+
+        login();
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void profileLoadsUserAndAddressesTogether() throws Exception {
+        String jwt = login();
+        principalCache.invalidate(localUserDAO.findByUsernameIgnoreCase("alice").orElseThrow());
+        statistics.clear();
+
+        mockMvc.perform(get("/user/me").header("Authorization", "Bearer " + jwt))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.addresses.length()").value(3));
+
+        // Principal for the token, then the user with its addresses in one join
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getCollectionFetchCount()).isZero();
+
+        statistics.clear();
+        mockMvc.perform(get("/user/me").header("Authorization", "Bearer " + jwt))
+                .andExpect(status().isOk());
+
+        // The principal is cached now
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getCollectionFetchCount()).isZero();
+    }
+
+    @Test
+    void addressesAreOneQuery() throws Exception {
+        String jwt = login();
+        mockMvc.perform(get("/user/me").header("Authorization", "Bearer " + jwt));
+        statistics.clear();
+
+        mockMvc.perform(get("/user/address").header("Authorization", "Bearer " + jwt))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.addresses.length()").value(3));
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    private String login() throws Exception {
+        String body = mockMvc.perform(post("/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"alice\",\"password\":\"Passw0rd!\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode response = objectMapper.readTree(body);
+        return response.get("jwt").asText();
+    }
+}
@@ -0,0 +1,120 @@
+package com.backend.ecommerce.users.api.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LoginThrottleTest {
+
+    private final LoginThrottle throttle = new LoginThrottle(1024, 4, 3, 8, 10, 1000, 60_000, 60_000,
+            new SimpleMeterRegistry());
+
+    @Test
+    void freeAttemptsThenDoublingDelays() {
+        for (int i = 0; i < 3; i++) {
+            throttle.recordFailure("alice", "10.0.0.1");
+            assertThat(throttle.retryAfterMillis("alice", "10.0.0.1")).isZero();
+        }
+
+        throttle.recordFailure("alice", "10.0.0.1");
+        long first = throttle.retryAfterMillis("alice", "10.0.0.1");
+        throttle.recordFailure("alice", "10.0.0.1");
+        long second = throttle.retryAfterMillis("alice", "10.0.0.1");
+
+        assertThat(first).isBetween(1L, 1000L);
+        assertThat(second).isBetween(1001L, 2000L);
+    }
+
+    @Test
+    void usernamesAreCaseInsensitive() {
+        for (int i = 0; i < 4; i++) {
+            throttle.recordFailure("Alice", "10.0.0.1");
+        }
+
+        assertThat(throttle.retryAfterMillis("ALICE", "10.0.0.1")).isPositive();
+    }
+
+    @Test
+    void failuresFromOneAddressDontLockTheAccountElsewhere() {
+        for (int i = 0; i < 6; i++) {
+            throttle.recordFailure("alice", "10.0.0.1");
+        }
+
+        assertThat(throttle.retryAfterMillis("alice", "10.0.0.1")).isPositive();
+        assertThat(throttle.retryAfterMillis("alice", "10.0.0.2")).isZero();
+    }
+
+    @Test
+    void oneAddressGuessingManyUsernamesIsThrottled() {
+        for (int i = 0; i < 11; i++) {
+            throttle.recordFailure("user" + i, "10.0.0.1");
+        }
+
+        assertThat(throttle.retryAfterMillis("someone-new", "10.0.0.1")).isPositive();
+        assertThat(throttle.retryAfterMillis("someone-new", "10.0.0.2")).isZero();
+    }
+
+    @Test
+    void successClearsTheAccountButNotTheAddress() {
+        for (int i = 0; i < 4; i++) {
+            throttle.recordFailure("alice", "10.0.0.1");
+        }
+        throttle.recordSuccess("alice", "10.0.0.1");
+        assertThat(throttle.retryAfterMillis("alice", "10.0.0.1")).isZero();
+
+        for (int i = 0; i < 7; i++) {
+            throttle.recordFailure("user" + i, "10.0.0.1");
+        }
+        throttle.recordSuccess("alice", "10.0.0.1");
+        assertThat(throttle.retryAfterMillis("alice", "10.0.0.1")).isPositive();
+    }
+
+    @Test
+    void oneUsernameGuessedFromManyAddressesIsThrottled() {
+        for (int i = 0; i < 9; i++) {
+            throttle.recordFailure("alice", "10.0.1." + i);
+        }
+
+        assertThat(throttle.retryAfterMillis("alice", "10.0.0.99")).isPositive();
+        assertThat(throttle.retryAfterMillis("bob", "10.0.0.99")).isZero();
+    }
+
+    @Test
+    void successDoesntResetTheUsernameBudget() {
+        for (int i = 0; i < 7; i++) {
+            throttle.recordFailure("alice", "10.0.1." + i);
+        }
+        throttle.recordSuccess("alice", "10.0.0.1");
+
+        throttle.recordFailure("alice", "10.0.2.1");
+        throttle.recordFailure("alice", "10.0.2.2");
+
+        assertThat(throttle.retryAfterMillis("alice", "10.0.0.99")).isPositive();
+    }
+
+    @Test
+    void clearingAKeyLeavesCollidingKeysTheirOwnScore() {
+        for (int trial = 0; trial < 200; trial++) {
+            // 4 cells per row, so the two keys share a cell in at least one row about half the time
+            LoginThrottle.Sketch sketch = new LoginThrottle.Sketch(4, 2, 3, 1000, 60_000, 60_000);
+            long now = System.currentTimeMillis();
+            for (int i = 0; i < 6; i++) {
+                sketch.recordFailure("bob", now);
+            }
+            if (sketch.score("alice", now) > 0) {
+                // Every cell of alice is one of bob's, a count-min sketch can't tell them apart
+                continue;
+            }
+            sketch.recordFailure("alice", now);
+            sketch.recordFailure("alice", now);
+
+            sketch.clear("alice", now);
+
+            assertThat(sketch.score("alice", now)).isZero();
+            assertThat(sketch.retryAfter("alice", now)).isZero();
+            assertThat(sketch.score("bob", now)).isGreaterThanOrEqualTo(4);
+            assertThat(sketch.retryAfter("bob", now)).isPositive();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.backend.ecommerce.users.service;
+
+import com.backend.ecommerce.users.model.Address;
+import com.backend.ecommerce.users.model.LocalUser;
+import com.backend.ecommerce.users.model.dao.AddressDAO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AddressServiceTest {
+
+    private final AddressDAO addressDAO = mock(AddressDAO.class);
+    private final PrincipalCache principalCache = new PrincipalCache(100, 600, new SimpleMeterRegistry());
+    private final AddressService addressService = new AddressService(addressDAO, principalCache);
+
+    @Test
+    void addressWritesDropOnlyTheirOwnersCachedPrincipal() {
+        LocalUser alice = user(1L, "Alice");
+        LocalUser bob = user(2L, "bob");
+        principalCache.put(alice);
+        principalCache.put(bob);
+        long profileVersion = principalCache.profileVersion(1L);
+        Address address = new Address();
+        address.setUser(alice);
+        when(addressDAO.save(any())).thenReturn(address);
+
+        addressService.createAddress(address, alice);
+
+        assertThat(principalCache.get("alice")).isNull();
+        assertThat(principalCache.get("bob")).isSameAs(bob);
+        assertThat(principalCache.profileVersion(1L)).isGreaterThan(profileVersion);
+    }
+
+    @Test
+    void deletingSomeoneElsesAddressLeavesTheCacheAlone() {
+        LocalUser alice = user(1L, "alice");
+        LocalUser bob = user(2L, "bob");
+        principalCache.put(alice);
+        Address address = new Address();
+        address.setUser(alice);
+        when(addressDAO.findById(5L)).thenReturn(Optional.of(address));
+
+        assertThat(addressService.deleteAddress(5L, bob)).isFalse();
+        assertThat(principalCache.get("alice")).isSameAs(alice);
+    }
+
+    private static LocalUser user(Long id, String username) {
+        LocalUser user = new LocalUser();
+        user.setId(id);
+        user.setUsername(username);
+        return user;
+    }
+}
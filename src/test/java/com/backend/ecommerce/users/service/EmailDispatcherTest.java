@@ -0,0 +1,131 @@
+package com.backend.ecommerce.users.service;
+
+import com.backend.ecommerce.users.model.EmailStatus;
+import com.backend.ecommerce.users.model.OutboxEmail;
+import com.backend.ecommerce.users.model.dao.OutboxEmailDAO;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.GreenMailUtil;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EmailDispatcherTest {
+
+    @RegisterExtension
+    static final GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private final OutboxEmailDAO outboxEmailDAO = mock(OutboxEmailDAO.class);
+    private SmtpConnectionPool connectionPool;
+
+    @BeforeEach
+    void setUp() {
+        connectionPool = pool(ServerSetupTest.SMTP.getPort());
+    }
+
+    @AfterEach
+    void tearDown() {
+        connectionPool.shutdown();
+    }
+
+    @Test
+    void deliversClaimedEmailsAndBlanksTheirBodies() throws Exception {
+        OutboxEmail first = new OutboxEmail("alice@example.com", "Verify", "Your verification token is: abc");
+        OutboxEmail second = new OutboxEmail("bob@example.com", "Reset", "Your password reset token is: def");
+        claimable(List.of(first, second));
+
+        dispatcher(connectionPool).dispatch();
+
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertThat(received).hasSize(2);
+        assertThat(received[0].getAllRecipients()[0].toString()).isEqualTo("alice@example.com");
+        assertThat(GreenMailUtil.getBody(received[0])).contains("abc");
+        for (OutboxEmail email : List.of(first, second)) {
+            assertThat(email.getStatus()).isEqualTo(EmailStatus.SENT);
+            assertThat(email.getSentAt()).isNotNull();
+            assertThat(email.getAttempts()).isEqualTo(1);
+            assertThat(email.getBody()).isEmpty();
+        }
+    }
+
+    @Test
+    void failedDeliveryIsRetriedWithBackoffThenGivenUp() {
+        SmtpConnectionPool unreachable = pool(ServerSetupTest.SMTP.getPort() + 1000);
+        OutboxEmail email = new OutboxEmail("alice@example.com", "Verify", "Your verification token is: abc");
+        claimable(List.of(email));
+        EmailDispatcher dispatcher = dispatcher(unreachable);
+
+        long before = System.currentTimeMillis();
+        dispatcher.dispatch();
+
+        assertThat(email.getStatus()).isEqualTo(EmailStatus.PENDING);
+        assertThat(email.getNextAttemptAt().getTime()).isGreaterThanOrEqualTo(before + 1000);
+        assertThat(email.getLastError()).isNotBlank();
+        assertThat(email.getBody()).isNotEmpty();
+
+        email.setAttempts(2);
+        claimable(List.of(email));
+        dispatcher.dispatch();
+
+        assertThat(email.getStatus()).isEqualTo(EmailStatus.FAILED);
+        assertThat(email.getBody()).isEmpty();
+        assertThat(greenMail.getReceivedMessages()).isEmpty();
+    }
+
+    @Test
+    void purgeDeletesInBatchesUntilAShortOne() {
+        when(outboxEmailDAO.deleteFinishedBefore(any(), eq(10))).thenReturn(10, 10, 3);
+
+        dispatcher(connectionPool).purge();
+
+        verify(outboxEmailDAO, times(3)).deleteFinishedBefore(any(), anyInt());
+    }
+
+    private void claimable(List<OutboxEmail> batch) {
+        when(outboxEmailDAO.findClaimable(any(), any(), any(), any(), any())).thenReturn(batch, List.of());
+    }
+
+    @SuppressWarnings("unchecked")
+    private EmailDispatcher dispatcher(SmtpConnectionPool pool) {
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                ((TransactionCallback<Object>) invocation.getArgument(0)).doInTransaction(null));
+        EmailDispatcher dispatcher = new EmailDispatcher(outboxEmailDAO, new JavaMailSenderImpl(), pool,
+                transactionTemplate);
+        ReflectionTestUtils.setField(dispatcher, "fromAddress", "shop@example.com");
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 50);
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", 3);
+        ReflectionTestUtils.setField(dispatcher, "backoffMillis", 1000L);
+        ReflectionTestUtils.setField(dispatcher, "claimTimeoutMillis", 300000L);
+        ReflectionTestUtils.setField(dispatcher, "retentionMillis", 86400000L);
+        ReflectionTestUtils.setField(dispatcher, "purgeBatchSize", 10);
+        return dispatcher;
+    }
+
+    private static SmtpConnectionPool pool(int port) {
+        // As configured by Spring Boot's mail auto-configuration
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setProtocol("smtp");
+        mailSender.setHost("localhost");
+        mailSender.setPort(port);
+        return new SmtpConnectionPool(mailSender, 2, 60000, 500, 1000, new SimpleMeterRegistry());
+    }
+}
@@ -0,0 +1,63 @@
+package com.backend.ecommerce.users.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hash and verify latency through the hashing pool for each BCrypt cost factor, to pick
+ * {@code encryption.salt.rounds} and {@code encryption.calibration.targetMillis} for a given machine.
+ * <p>
+ * {@code ./mvnw -Pbenchmark verify -Dbenchmark=EncryptionServiceBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EncryptionServiceBenchmark {
+
+    @Param({"10", "11", "12", "13", "14"})
+    public int cost;
+
+    private EncryptionService encryptionService;
+    private String hashed;
+
+    @Setup
+    public void setUp() {
+        encryptionService = new EncryptionService(1, 64, 0, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(encryptionService, "saltRounds", cost);
+        ReflectionTestUtils.setField(encryptionService, "calibrationEnabled", false);
+        encryptionService.calibrate();
+        hashed = encryptionService.encryptPassword("benchmark-Passw0rd");
+    }
+
+    @TearDown
+    public void tearDown() {
+        encryptionService.shutdown();
+    }
+
+    @Benchmark
+    public String encryptPassword() {
+        return encryptionService.encryptPassword("benchmark-Passw0rd");
+    }
+
+    @Benchmark
+    public boolean verifyPassword() {
+        return encryptionService.verifyPassword("benchmark-Passw0rd", hashed);
+    }
+}
@@ -0,0 +1,51 @@
+package com.backend.ecommerce.users.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EncryptionServiceTest {
+
+    private EncryptionService encryptionService;
+
+    @BeforeEach
+    void setUp() {
+        encryptionService = new EncryptionService(1, 4, 0, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(encryptionService, "saltRounds", 5);
+        ReflectionTestUtils.setField(encryptionService, "calibrationEnabled", false);
+        encryptionService.calibrate();
+    }
+
+    @AfterEach
+    void tearDown() {
+        encryptionService.shutdown();
+    }
+
+    @Test
+    void onlyWeakerHashesNeedRehashing() {
+        assertThat(encryptionService.needsRehash(BCrypt.hashpw("secret", BCrypt.gensalt(4)))).isTrue();
+        assertThat(encryptionService.needsRehash(BCrypt.hashpw("secret", BCrypt.gensalt(5)))).isFalse();
+        // Written by a node that calibrated higher
+        assertThat(encryptionService.needsRehash(BCrypt.hashpw("secret", BCrypt.gensalt(6)))).isFalse();
+    }
+
+    @Test
+    void malformedHashesAreLeftAlone() {
+        assertThat(encryptionService.needsRehash(null)).isFalse();
+        assertThat(encryptionService.needsRehash("plain")).isFalse();
+        assertThat(encryptionService.needsRehash("$2a$xx$abcdef")).isFalse();
+    }
+
+    @Test
+    void hashesVerifyThroughThePool() {
+        String hashed = encryptionService.encryptPassword("secret");
+
+        assertThat(encryptionService.verifyPassword("secret", hashed)).isTrue();
+        assertThat(encryptionService.verifyPassword("wrong", hashed)).isFalse();
+    }
+}
@@ -0,0 +1,72 @@
+package com.backend.ecommerce.users.service;
+
+import com.backend.ecommerce.users.model.LocalUser;
+import com.backend.ecommerce.users.service.revocation.InMemoryRevocationRepository;
+import com.backend.ecommerce.users.service.revocation.TokenRevocationStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Access token verification throughput with the verified-token cache on and off. Requests cycle through a
+ * pool of live tokens, as many concurrent sessions would; a pool larger than the cache shows the miss path.
+ * <p>
+ * {@code ./mvnw -Pbenchmark verify -Dbenchmark=JWTServiceBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JWTServiceBenchmark {
+
+    @Param({"true", "false"})
+    public boolean cacheEnabled;
+
+    @Param({"1000"})
+    public int sessions;
+
+    private JWTService jwtService;
+    private String[] tokens;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        TokenRevocationStore revocationStore = new TokenRevocationStore(new InMemoryRevocationRepository());
+        jwtService = new JWTService(new SimpleMeterRegistry(), revocationStore);
+        ReflectionTestUtils.setField(jwtService, "algorithmKey", "benchmark-secret");
+        ReflectionTestUtils.setField(jwtService, "issuer", "eCommerce");
+        ReflectionTestUtils.setField(jwtService, "expiryInSeconds", 3600);
+        ReflectionTestUtils.setField(jwtService, "verifiedCacheEnabled", cacheEnabled);
+        ReflectionTestUtils.setField(jwtService, "verifiedCacheMaxSize", 50000);
+        jwtService.postConstruct();
+
+        tokens = new String[sessions];
+        for (int i = 0; i < sessions; i++) {
+            LocalUser user = new LocalUser();
+            user.setId((long) i);
+            user.setUsername("user" + i);
+            tokens[i] = jwtService.generateJWT(user);
+        }
+    }
+
+    @Benchmark
+    public String getUsername() {
+        int i = next;
+        next = i + 1 == tokens.length ? 0 : i + 1;
+        return jwtService.getUsername(tokens[i]);
+    }
+}
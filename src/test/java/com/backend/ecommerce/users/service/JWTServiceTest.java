@@ -0,0 +1,106 @@
+package com.backend.ecommerce.users.service;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTCreator;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.backend.ecommerce.users.model.LocalUser;
+import com.backend.ecommerce.users.service.revocation.InMemoryRevocationRepository;
+import com.backend.ecommerce.users.service.revocation.TokenRevocationStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JWTServiceTest {
+
+    private JWTService jwtService;
+    private LocalUser user;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = new JWTService(new SimpleMeterRegistry(),
+                new TokenRevocationStore(new InMemoryRevocationRepository()));
+        ReflectionTestUtils.setField(jwtService, "algorithmKey", "test-secret");
+        ReflectionTestUtils.setField(jwtService, "issuer", "eCommerce");
+        ReflectionTestUtils.setField(jwtService, "expiryInSeconds", 3600);
+        ReflectionTestUtils.setField(jwtService, "statelessEnabled", true);
+        ReflectionTestUtils.setField(jwtService, "accessExpiryInSeconds", 900);
+        ReflectionTestUtils.setField(jwtService, "refreshExpiryInSeconds", 86400);
+        ReflectionTestUtils.setField(jwtService, "verifiedCacheEnabled", true);
+        ReflectionTestUtils.setField(jwtService, "verifiedCacheMaxSize", 100);
+        jwtService.postConstruct();
+
+        user = new LocalUser();
+        user.setId(7L);
+        user.setUsername("alice");
+        user.setEmail("alice@example.com");
+        user.setEmailVerified(true);
+    }
+
+    @Test
+    void cachedTokenIsRejectedOnceRevoked() {
+        String token = jwtService.generateJWT(user, jwtService.newSessionId());
+        assertThat(jwtService.getUsername(token)).isEqualTo("alice");
+
+        jwtService.invalidateToken(token);
+
+        assertThat(jwtService.isTokenInvalidated(token)).isTrue();
+        assertThatThrownBy(() -> jwtService.getUsername(token)).isInstanceOf(JWTVerificationException.class);
+        assertThatThrownBy(() -> jwtService.getAuthenticatedUser(token)).isInstanceOf(JWTVerificationException.class);
+    }
+
+    @Test
+    void cachedTokenIsRejectedOnceExpired() throws InterruptedException {
+        String token = sign(JWT.create().withClaim("USERNAME", "alice"), 1000);
+        assertThat(jwtService.getUsername(token)).isEqualTo("alice");
+
+        // The cache entry expires at the token's exp, so the next call goes back to the verifier
+        Thread.sleep(1100);
+
+        assertThatThrownBy(() -> jwtService.getUsername(token)).isInstanceOf(JWTVerificationException.class);
+    }
+
+    @Test
+    void tokenVerifiedForOnePurposeIsNotAcceptedForAnother() {
+        String refreshToken = jwtService.generateRefreshJWT(user, jwtService.newSessionId());
+        String resetToken = jwtService.generatePasswordResetJWT(user);
+        assertThat(jwtService.getRefreshClaims(refreshToken).userId()).isEqualTo(7L);
+        assertThat(jwtService.getResetPasswordEmail(resetToken)).isEqualTo("alice@example.com");
+
+        assertThatThrownBy(() -> jwtService.getUsername(refreshToken)).isInstanceOf(JWTVerificationException.class);
+        assertThatThrownBy(() -> jwtService.getResetPasswordEmail(refreshToken))
+                .isInstanceOf(JWTVerificationException.class);
+        assertThatThrownBy(() -> jwtService.getRefreshClaims(resetToken)).isInstanceOf(JWTVerificationException.class);
+    }
+
+    @Test
+    void expiredTokenCanStillLogOutItsSession() {
+        String sessionId = jwtService.newSessionId();
+        String token = sign(JWT.create().withClaim("USERNAME", "alice").withClaim("SESSION_ID", sessionId), -1000);
+
+        assertThat(jwtService.invalidateToken(token)).isEqualTo("alice");
+
+        assertThat(jwtService.isSessionInvalidated(sessionId)).isTrue();
+    }
+
+    @Test
+    void logoutStillChecksTheSignature() {
+        String forged = JWT.create().withClaim("USERNAME", "alice").withIssuer("eCommerce")
+                .withExpiresAt(new Date(System.currentTimeMillis() + 60_000))
+                .sign(Algorithm.HMAC256("other-secret"));
+
+        assertThatThrownBy(() -> jwtService.invalidateToken(forged)).isInstanceOf(JWTVerificationException.class);
+    }
+
+    private String sign(JWTCreator.Builder token, long expiresInMillis) {
+        return token.withIssuer("eCommerce")
+                .withExpiresAt(new Date(System.currentTimeMillis() + expiresInMillis))
+                .sign(Algorithm.HMAC256("test-secret"));
+    }
+}
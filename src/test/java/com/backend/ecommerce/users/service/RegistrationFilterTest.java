@@ -0,0 +1,85 @@
+package com.backend.ecommerce.users.service;
+
+import com.backend.ecommerce.users.model.LocalUser;
+import com.backend.ecommerce.users.model.dao.LocalUserDAO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RegistrationFilterTest {
+
+    private final LocalUserDAO localUserDAO = mock(LocalUserDAO.class);
+    private final RegistrationFilter filter = new RegistrationFilter(localUserDAO, 1000, 0.01, new SimpleMeterRegistry());
+
+    @Test
+    void everythingMightExistUntilTheFirstBuild() {
+        assertThat(filter.mightExist("new", "new@example.com", "+1")).isTrue();
+    }
+
+    @Test
+    void answersFromTheBuiltFilter() {
+        when(localUserDAO.count()).thenReturn(1L);
+        when(localUserDAO.findUniqueKeysAfter(eq(0L), any())).thenReturn(List.of(keys(1L, "Alice", "Alice@Example.com", "+1")));
+
+        filter.rebuild();
+
+        assertThat(filter.mightExist("alice", "other@example.com", "+9")).isTrue();
+        assertThat(filter.mightExist("other", "ALICE@example.com", "+9")).isTrue();
+        assertThat(filter.mightExist("other", "other@example.com", "+1")).isTrue();
+        assertThat(filter.mightExist("other", "other@example.com", "+9")).isFalse();
+    }
+
+    @Test
+    void recordedUsersAreSeenWithoutARebuild() {
+        when(localUserDAO.findUniqueKeysAfter(eq(0L), any())).thenReturn(List.of());
+        filter.rebuild();
+        LocalUser user = new LocalUser();
+        user.setUsername("bob");
+        user.setEmail("bob@example.com");
+        user.setPhoneNumber("+2");
+
+        filter.record(user);
+
+        assertThat(filter.mightExist("BOB", "x@example.com", "+9")).isTrue();
+    }
+
+    @Test
+    void failedRebuildKeepsThePreviousFilter() {
+        when(localUserDAO.findUniqueKeysAfter(eq(0L), any()))
+                .thenReturn(List.of(keys(1L, "alice", "alice@example.com", "+1")))
+                .thenThrow(new IllegalStateException("database down"));
+        filter.rebuild();
+
+        filter.rebuild();
+
+        assertThat(filter.mightExist("alice", "x@example.com", "+9")).isTrue();
+        assertThat(filter.mightExist("other", "other@example.com", "+9")).isFalse();
+    }
+
+    private static LocalUserDAO.UniqueKeys keys(Long id, String username, String email, String phoneNumber) {
+        return new LocalUserDAO.UniqueKeys() {
+            public Long getId() {
+                return id;
+            }
+
+            public String getUsername() {
+                return username;
+            }
+
+            public String getEmail() {
+                return email;
+            }
+
+            public String getPhoneNumber() {
+                return phoneNumber;
+            }
+        };
+    }
+}
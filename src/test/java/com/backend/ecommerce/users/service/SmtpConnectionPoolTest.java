@@ -0,0 +1,107 @@
+package com.backend.ecommerce.users.service;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SmtpConnectionPoolTest {
+
+    @RegisterExtension
+    static final GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final JavaMailSenderImpl mailSender = mailSender(ServerSetupTest.SMTP.getPort());
+    private SmtpConnectionPool pool;
+
+    @AfterEach
+    void tearDown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void reusesTheSessionAcrossBatches() throws Exception {
+        pool = new SmtpConnectionPool(mailSender, 2, 60000, 500, 1000, meterRegistry);
+        pool.bindTo(meterRegistry);
+
+        assertThat(pool.send(messages(3))).containsOnlyNulls();
+        assertThat(pool.send(messages(2))).containsOnlyNulls();
+
+        assertThat(greenMail.getReceivedMessages()).hasSize(5);
+        assertThat(connections("opened")).isEqualTo(1);
+        assertThat(connections("reused")).isEqualTo(1);
+        assertThat(meterRegistry.get("mail.connections.idle").gauge().value()).isEqualTo(1);
+        assertThat(meterRegistry.get("mail.messages").tag("result", "sent").counter().count()).isEqualTo(5);
+    }
+
+    @Test
+    void rotatesSessionsAfterTheMessageLimit() throws Exception {
+        pool = new SmtpConnectionPool(mailSender, 2, 60000, 2, 1000, meterRegistry);
+
+        assertThat(pool.send(messages(5))).containsOnlyNulls();
+
+        assertThat(greenMail.getReceivedMessages()).hasSize(5);
+        assertThat(connections("opened")).isEqualTo(3);
+    }
+
+    @Test
+    void evictsSessionsIdleForTooLong() throws Exception {
+        pool = new SmtpConnectionPool(mailSender, 2, 50, 500, 1000, meterRegistry);
+        pool.send(messages(1));
+
+        Thread.sleep(80);
+        pool.evictIdle();
+        pool.send(messages(1));
+
+        assertThat(connections("opened")).isEqualTo(2);
+        assertThat(connections("reused")).isZero();
+    }
+
+    @Test
+    void unreachableServerFailsTheWholeBatch() throws Exception {
+        pool = new SmtpConnectionPool(mailSender(ServerSetupTest.SMTP.getPort() + 1000), 2, 60000, 500, 1000,
+                meterRegistry);
+
+        Exception[] failures = pool.send(messages(3));
+
+        assertThat(failures).hasSize(3).doesNotContainNull();
+        assertThat(meterRegistry.get("mail.messages").tag("result", "failed").counter().count()).isEqualTo(3);
+    }
+
+    private double connections(String source) {
+        return meterRegistry.get("mail.connections").tag("source", source).counter().count();
+    }
+
+    private List<MimeMessage> messages(int count) throws MessagingException {
+        List<MimeMessage> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            MimeMessage message = mailSender.createMimeMessage();
+            message.setFrom(new InternetAddress("shop@example.com"));
+            message.setRecipient(MimeMessage.RecipientType.TO, new InternetAddress("user" + i + "@example.com"));
+            message.setSubject("Message " + i);
+            message.setText("Body " + i);
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    private static JavaMailSenderImpl mailSender(int port) {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(port);
+        return mailSender;
+    }
+}
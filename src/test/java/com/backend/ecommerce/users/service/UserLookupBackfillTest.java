@@ -0,0 +1,72 @@
+package com.backend.ecommerce.users.service;
+
+import com.backend.ecommerce.users.model.LocalUser;
+import com.backend.ecommerce.users.model.dao.LocalUserDAO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import(UserLookupBackfill.class)
+// The backfill commits its own transactions, so the test can't run inside one that gets rolled back
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserLookupBackfillTest {
+
+    @Autowired
+    private UserLookupBackfill backfill;
+    @Autowired
+    private LocalUserDAO localUserDAO;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM local_user");
+    }
+
+    @Test
+    void normalizesLegacyRowsAndSkipsCaseOnlyClashes() {
+        insertLegacyUser("Bob", "Bob@Example.com", "+1");
+        insertLegacyUser("bob", "bob2@example.com", "+2");
+        insertLegacyUser("Carol", "Carol@Example.com", "+3");
+
+        backfill.backfill();
+
+        assertThat(normalizedUsernames()).containsExactly("bob", null, "carol");
+        assertThat(localUserDAO.findByUsernameNormalized("carol")).isPresent();
+    }
+
+    @Test
+    void skippedRowsAreStillFoundCaseInsensitively() {
+        insertLegacyUser("Bob", "bob@example.com", "+1");
+        insertLegacyUser("bob", "Second@Example.com", "+2");
+        backfill.backfill();
+
+        LocalUser skipped = localUserDAO.findByEmailIgnoreCase("SECOND@example.com").orElseThrow();
+
+        assertThat(skipped.getUsername()).isEqualTo("bob");
+        assertThat(skipped.getEmailNormalized()).isNull();
+        assertThat(localUserDAO.existsByEmailIgnoreCase("second@EXAMPLE.com")).isTrue();
+        assertThat(localUserDAO.findByUsernameIgnoreCase("BOB").orElseThrow().getUsername()).isEqualTo("Bob");
+        assertThat(localUserDAO.existsByUsernameIgnoreCase("nobody")).isFalse();
+    }
+
+    private void insertLegacyUser(String username, String email, String phoneNumber) {
+        jdbcTemplate.update("INSERT INTO local_user (username, email, password, confirm_password, first_name, last_name, "
+                + "phone_number, email_verified, token_version) VALUES (?, ?, 'x', 'x', 'First', 'Last', ?, true, 0)",
+                username, email, phoneNumber);
+    }
+
+    private List<String> normalizedUsernames() {
+        return jdbcTemplate.queryForList("SELECT username_normalized FROM local_user ORDER BY id", String.class);
+    }
+}
@@ -0,0 +1,110 @@
+package com.backend.ecommerce.users.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Case-insensitive username lookup as {@code lower(username) = ?} versus equality on the indexed
+ * {@code username_normalized} column, over a local_user table of the given size. Runs on in-memory H2 by
+ * default; pass {@code -p url=... -p user=... -p password=...} to measure against a real MySQL schema copy.
+ * <p>
+ * {@code ./mvnw -Pbenchmark verify -Dbenchmark=UserLookupBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserLookupBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int users;
+
+    @Param({"jdbc:h2:mem:lookup;DB_CLOSE_DELAY=-1"})
+    public String url;
+
+    @Param({"sa"})
+    public String user;
+
+    @Param({""})
+    public String password;
+
+    private Connection connection;
+    private PreparedStatement byLower;
+    private PreparedStatement byNormalized;
+    private int next;
+
+    @Setup
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(url, user, password);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS lookup_user");
+            statement.execute("CREATE TABLE lookup_user (id BIGINT PRIMARY KEY, username VARCHAR(255) NOT NULL UNIQUE, "
+                    + "username_normalized VARCHAR(255) UNIQUE)");
+        }
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO lookup_user (id, username, username_normalized) VALUES (?, ?, ?)")) {
+            for (int i = 0; i < users; i++) {
+                insert.setLong(1, i);
+                insert.setString(2, "User" + i);
+                insert.setString(3, "user" + i);
+                insert.addBatch();
+                if (i % 1000 == 999) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        connection.commit();
+        connection.setAutoCommit(true);
+        byLower = connection.prepareStatement("SELECT id FROM lookup_user WHERE lower(username) = ?");
+        byNormalized = connection.prepareStatement("SELECT id FROM lookup_user WHERE username_normalized = ?");
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE lookup_user");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public long lowerColumn() throws SQLException {
+        return lookup(byLower);
+    }
+
+    @Benchmark
+    public long normalizedColumn() throws SQLException {
+        return lookup(byNormalized);
+    }
+
+    private long lookup(PreparedStatement query) throws SQLException {
+        int i = next;
+        next = i + 7919 < users ? i + 7919 : (i + 7919) % users;
+        query.setString(1, "user" + i);
+        try (ResultSet rs = query.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : -1;
+        }
+    }
+}
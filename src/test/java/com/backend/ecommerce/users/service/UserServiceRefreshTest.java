@@ -0,0 +1,111 @@
+package com.backend.ecommerce.users.service;
+
+import com.backend.ecommerce.users.model.LocalUser;
+import com.backend.ecommerce.users.model.dao.LocalUserDAO;
+import com.backend.ecommerce.users.model.dao.VerificationTokenDAO;
+import com.backend.ecommerce.users.service.revocation.InMemoryRevocationRepository;
+import com.backend.ecommerce.users.service.revocation.TokenRevocationStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserServiceRefreshTest {
+
+    private JWTService jwtService;
+    private UserService userService;
+    private LocalUser user;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = new JWTService(new SimpleMeterRegistry(),
+                new TokenRevocationStore(new InMemoryRevocationRepository()));
+        ReflectionTestUtils.setField(jwtService, "algorithmKey", "test-secret");
+        ReflectionTestUtils.setField(jwtService, "issuer", "eCommerce");
+        ReflectionTestUtils.setField(jwtService, "expiryInSeconds", 3600);
+        ReflectionTestUtils.setField(jwtService, "statelessEnabled", true);
+        ReflectionTestUtils.setField(jwtService, "accessExpiryInSeconds", 900);
+        ReflectionTestUtils.setField(jwtService, "refreshExpiryInSeconds", 86400);
+        ReflectionTestUtils.setField(jwtService, "verifiedCacheEnabled", true);
+        ReflectionTestUtils.setField(jwtService, "verifiedCacheMaxSize", 100);
+        jwtService.postConstruct();
+
+        user = new LocalUser();
+        user.setId(7L);
+        user.setUsername("alice");
+        user.setEmailVerified(true);
+        LocalUserDAO localUserDAO = mock(LocalUserDAO.class);
+        when(localUserDAO.findById(7L)).thenReturn(Optional.of(user));
+
+        userService = new UserService(localUserDAO, mock(EncryptionService.class), jwtService,
+                mock(EmailService.class), mock(VerificationTokenDAO.class), mock(PrincipalCache.class),
+                mock(RegistrationFilter.class), mock(TransactionTemplate.class));
+    }
+
+    @Test
+    void refreshIssuesAccessTokenForTheSameSession() {
+        String sessionId = jwtService.newSessionId();
+        String refreshToken = jwtService.generateRefreshJWT(user, sessionId);
+
+        String accessToken = userService.refreshAccessToken(refreshToken);
+
+        assertThat(accessToken).isNotNull();
+        assertThat(jwtService.getAuthenticatedUser(accessToken).getId()).isEqualTo(7L);
+        // Logging out with the refreshed access token still ends the original session
+        jwtService.invalidateToken(accessToken);
+        assertThat(userService.refreshAccessToken(refreshToken)).isNull();
+    }
+
+    @Test
+    void logoutWithTheAccessTokenRevokesTheSessionsRefreshToken() {
+        String sessionId = jwtService.newSessionId();
+        String accessToken = jwtService.generateJWT(user, sessionId);
+        String refreshToken = jwtService.generateRefreshJWT(user, sessionId);
+
+        jwtService.invalidateToken(accessToken);
+
+        assertThat(userService.refreshAccessToken(refreshToken)).isNull();
+    }
+
+    @Test
+    void revokedRefreshTokenIsRejected() {
+        String refreshToken = jwtService.generateRefreshJWT(user, jwtService.newSessionId());
+
+        jwtService.invalidateRefreshToken(refreshToken);
+
+        assertThat(userService.refreshAccessToken(refreshToken)).isNull();
+    }
+
+    @Test
+    void refreshTokenFromBeforeAPasswordResetIsRejected() {
+        String refreshToken = jwtService.generateRefreshJWT(user, jwtService.newSessionId());
+
+        user.setTokenVersion(user.getTokenVersion() + 1);
+
+        assertThat(userService.refreshAccessToken(refreshToken)).isNull();
+        assertThat(userService.refreshAccessToken(jwtService.generateRefreshJWT(user, jwtService.newSessionId())))
+                .isNotNull();
+    }
+
+    @Test
+    void otherSessionsSurviveALogout() {
+        String loggedOut = jwtService.newSessionId();
+        String refreshToken = jwtService.generateRefreshJWT(user, jwtService.newSessionId());
+
+        jwtService.invalidateToken(jwtService.generateJWT(user, loggedOut));
+
+        assertThat(userService.refreshAccessToken(refreshToken)).isNotNull();
+    }
+
+    @Test
+    void malformedRefreshTokenIsRejected() {
+        assertThat(userService.refreshAccessToken("not-a-token")).isNull();
+    }
+}
@@ -0,0 +1,61 @@
+package com.backend.ecommerce.users.service;
+
+import com.backend.ecommerce.users.api.model.RegistrationBody;
+import com.backend.ecommerce.users.exception.UserAlreadyExistsException;
+import com.backend.ecommerce.users.model.dao.LocalUserDAO;
+import com.backend.ecommerce.users.model.dao.VerificationTokenDAO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserServiceRegistrationTest {
+
+    private final LocalUserDAO localUserDAO = mock(LocalUserDAO.class);
+    private final RegistrationFilter registrationFilter = mock(RegistrationFilter.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private UserService userService;
+    private RegistrationBody body;
+
+    @BeforeEach
+    void setUp() {
+        JWTService jwtService = mock(JWTService.class);
+        when(jwtService.generateVerificationJWT(any())).thenReturn("token");
+        EncryptionService encryptionService = mock(EncryptionService.class);
+        when(encryptionService.encryptPassword(anyString())).thenReturn("hash");
+        userService = new UserService(localUserDAO, encryptionService, jwtService, mock(EmailService.class),
+                mock(VerificationTokenDAO.class), mock(PrincipalCache.class), registrationFilter, transactionTemplate);
+
+        body = new RegistrationBody();
+        body.setUsername("alice");
+        body.setEmail("alice@example.com");
+        body.setPhoneNumber("0700000001");
+        body.setFirstName("Alice");
+        body.setLastName("Smith");
+        body.setPassword("Passw0rd!");
+        body.setConfirmPassword("Passw0rd!");
+        when(registrationFilter.mightExist(anyString(), anyString(), anyString())).thenReturn(false);
+        when(transactionTemplate.execute(any())).thenThrow(new DataIntegrityViolationException("constraint"));
+    }
+
+    @Test
+    void uniqueKeyClashIsReportedAsExistingUser() {
+        when(localUserDAO.existsByPhoneNumber("0700000001")).thenReturn(true);
+
+        assertThatThrownBy(() -> userService.registerUser(body)).isInstanceOf(UserAlreadyExistsException.class);
+        verify(registrationFilter, never()).record(any());
+    }
+
+    @Test
+    void otherIntegrityViolationsAreNotReportedAsDuplicates() {
+        assertThatThrownBy(() -> userService.registerUser(body)).isInstanceOf(DataIntegrityViolationException.class);
+    }
+}
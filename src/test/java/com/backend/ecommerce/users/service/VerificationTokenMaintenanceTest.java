@@ -0,0 +1,106 @@
+package com.backend.ecommerce.users.service;
+
+import com.backend.ecommerce.users.model.VerificationToken;
+import com.backend.ecommerce.users.model.dao.VerificationTokenDAO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@DataJpaTest(properties = {"jwt.expiryInSeconds=3600", "verification.token.purgeBatchSize=2"})
+@Import(VerificationTokenMaintenance.class)
+// Maintenance commits its own transactions, so the test can't run inside one that gets rolled back
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class VerificationTokenMaintenanceTest {
+
+    private static final long HOUR = 3600_000L;
+
+    @Autowired
+    private VerificationTokenMaintenance maintenance;
+    @SpyBean
+    private VerificationTokenDAO verificationTokenDAO;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM verification_token");
+        jdbcTemplate.update("DELETE FROM local_user");
+    }
+
+    @Test
+    void purgesStaleRowsInBoundedBatchesAndKeepsFreshOnes() {
+        long pending = insertUser("pending", false);
+        long verified = insertUser("verified", true);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 5; i++) {
+            insertToken(pending, "stale" + i, now - 2 * HOUR);
+        }
+        insertToken(pending, "fresh", now);
+        insertToken(verified, "orphan0", now);
+        insertToken(verified, "orphan1", now);
+        insertToken(verified, "orphan2", now);
+
+        maintenance.purge();
+
+        assertThat(tokenHashes()).containsExactly(TokenDigest.sha256Hex("fresh"));
+        // 5 expired rows at 2 per statement, the last short batch ends the loop
+        verify(verificationTokenDAO, times(3)).deleteExpired(any(Timestamp.class), anyInt());
+        verify(verificationTokenDAO, times(2)).deleteOrphaned(anyInt());
+    }
+
+    @Test
+    void freshTokensAreFoundBySha256Digest() {
+        long pending = insertUser("pending", false);
+        insertToken(pending, "abc", System.currentTimeMillis());
+
+        maintenance.purge();
+
+        VerificationToken token = verificationTokenDAO.findByTokenHash(TokenDigest.sha256Hex("abc")).orElseThrow();
+        assertThat(token.getLegacyToken()).isEmpty();
+        assertThat(verificationTokenDAO.findByTokenHash(TokenDigest.sha256Hex("abd"))).isEmpty();
+    }
+
+    @Test
+    void backfillHashesLegacyRowsAndBlanksTheRawToken() {
+        long pending = insertUser("pending", false);
+        jdbcTemplate.update("INSERT INTO verification_token (token, created_timestamp, user_id) VALUES (?, ?, ?)",
+                "legacy-token", new Timestamp(System.currentTimeMillis()), pending);
+
+        maintenance.backfillTokenHashes();
+
+        VerificationToken token = verificationTokenDAO.findByTokenHash(TokenDigest.sha256Hex("legacy-token"))
+                .orElseThrow();
+        assertThat(token.getLegacyToken()).isEmpty();
+    }
+
+    private long insertUser(String username, boolean emailVerified) {
+        jdbcTemplate.update("INSERT INTO local_user (username, email, password, confirm_password, first_name, last_name, "
+                + "phone_number, email_verified, token_version) VALUES (?, ?, 'x', 'x', 'First', 'Last', ?, ?, 0)",
+                username, username + "@example.com", "+" + username, emailVerified);
+        return jdbcTemplate.queryForObject("SELECT id FROM local_user WHERE username = ?", Long.class, username);
+    }
+
+    private void insertToken(long userId, String token, long createdAt) {
+        jdbcTemplate.update("INSERT INTO verification_token (token, token_hash, created_timestamp, user_id) "
+                + "VALUES ('', ?, ?, ?)", TokenDigest.sha256Hex(token), new Timestamp(createdAt), userId);
+    }
+
+    private List<String> tokenHashes() {
+        return jdbcTemplate.queryForList("SELECT token_hash FROM verification_token ORDER BY id", String.class);
+    }
+}
@@ -0,0 +1,71 @@
+package com.backend.ecommerce.users.service.revocation;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileRevocationRepositoryTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void loadsOnlyActiveEntries() {
+        FileRevocationRepository repository = repository();
+        repository.save("expired", 1_000);
+        repository.save("active", 5_000);
+
+        assertThat(repository.loadActive(2_000)).containsOnlyKeys("active").containsEntry("active", 5_000L);
+    }
+
+    @Test
+    void missingFileLoadsNothing() {
+        assertThat(repository().loadActive(0)).isEmpty();
+    }
+
+    @Test
+    void skipsMalformedLines() throws IOException {
+        Files.writeString(file(), "garbage\nbad notanumber\nok 5000\n", StandardCharsets.UTF_8);
+
+        assertThat(repository().loadActive(0)).containsOnlyKeys("ok");
+    }
+
+    @Test
+    void compactionRewritesOnlyActiveEntriesAndLeavesNoTempFiles() throws IOException {
+        FileRevocationRepository repository = repository();
+        repository.save("expired", 1_000);
+        repository.save("active", 5_000);
+
+        repository.purgeExpired(2_000);
+
+        assertThat(Files.readAllLines(file(), StandardCharsets.UTF_8)).containsExactly("active 5000");
+        try (Stream<Path> files = Files.list(dir)) {
+            assertThat(files).containsExactly(file());
+        }
+    }
+
+    @Test
+    void appendsAfterCompactionAndReloadsFromANewInstance() {
+        FileRevocationRepository repository = repository();
+        repository.save("expired", 1_000);
+        repository.purgeExpired(2_000);
+        repository.save("active", 5_000);
+
+        assertThat(repository().loadActive(2_000)).containsOnlyKeys("active");
+    }
+
+    private FileRevocationRepository repository() {
+        return new FileRevocationRepository(file().toString());
+    }
+
+    private Path file() {
+        return dir.resolve("revocations.txt");
+    }
+}
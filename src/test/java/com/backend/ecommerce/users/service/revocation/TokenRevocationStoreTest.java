@@ -0,0 +1,74 @@
+package com.backend.ecommerce.users.service.revocation;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenRevocationStoreTest {
+
+    @Test
+    void revokedTokenStaysRevokedUntilItExpires() throws InterruptedException {
+        TokenRevocationStore store = new TokenRevocationStore(new InMemoryRevocationRepository());
+
+        store.revoke("a", System.currentTimeMillis() + 200);
+
+        assertThat(store.isRevoked("a")).isTrue();
+        assertThat(store.isRevoked("b")).isFalse();
+        Thread.sleep(250);
+        assertThat(store.isRevoked("a")).isFalse();
+    }
+
+    @Test
+    void alreadyExpiredTokensAreNotStored() {
+        InMemoryRevocationRepository repository = new InMemoryRevocationRepository();
+        TokenRevocationStore store = new TokenRevocationStore(repository);
+
+        store.revoke("a", System.currentTimeMillis() - 1);
+
+        assertThat(store.isRevoked("a")).isFalse();
+        assertThat(repository.loadActive(0)).isEmpty();
+    }
+
+    @Test
+    void purgeDropsExpiredEntriesFromMemoryAndRepository() throws InterruptedException {
+        InMemoryRevocationRepository repository = new InMemoryRevocationRepository();
+        TokenRevocationStore store = new TokenRevocationStore(repository);
+        long now = System.currentTimeMillis();
+        store.revoke("short", now + 100);
+        store.revoke("long", now + 60_000);
+
+        Thread.sleep(150);
+        store.purgeExpired();
+
+        assertThat(repository.loadActive(0)).containsOnlyKeys("long");
+        assertThat(store.isRevoked("long")).isTrue();
+    }
+
+    @Test
+    void purgePicksUpRevocationsSavedByOtherInstances() {
+        InMemoryRevocationRepository repository = new InMemoryRevocationRepository();
+        TokenRevocationStore store = new TokenRevocationStore(repository);
+        repository.save("remote", System.currentTimeMillis() + 60_000);
+        assertThat(store.isRevoked("remote")).isFalse();
+
+        store.purgeExpired();
+
+        assertThat(store.isRevoked("remote")).isTrue();
+    }
+
+    @Test
+    void revocationsSurviveARestart(@TempDir Path dir) {
+        String file = dir.resolve("revocations.txt").toString();
+        TokenRevocationStore before = new TokenRevocationStore(new FileRevocationRepository(file));
+        before.load();
+        before.revoke("a", System.currentTimeMillis() + 60_000);
+
+        TokenRevocationStore after = new TokenRevocationStore(new FileRevocationRepository(file));
+        after.load();
+
+        assertThat(after.isRevoked("a")).isTrue();
+    }
+}